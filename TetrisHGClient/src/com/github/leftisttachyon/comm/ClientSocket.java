@@ -1,22 +1,33 @@
 package com.github.leftisttachyon.comm;
 
 import javax.swing.*;
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
-import java.util.LinkedList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
 /**
  * A wrapper class of a Socket that streamlines communication with a server.
+ * Once the server has accepted a name, this asks it for binary frames; if the
+ * server agrees, typed messages are sent as binary frames from then on, and
+ * otherwise everything stays text.
+ * <p>
+ * Messages sent between {@link #startBatch()} and {@link #flushBatch()} are
+ * held back and written together with a single flush, so that everything one
+ * frame produces goes out in one packet. Consecutive gravity messages in a
+ * batch are merged into one.
  *
  * @author Jed Wang
  * @since 0.9.1
@@ -29,19 +40,35 @@ public final class ClientSocket {
     private final Socket socket;
 
     /**
-     * The BufferedReader which reads out of the socket
+     * The MessageReader which reads out of the socket
      */
-    private BufferedReader in;
+    private MessageReader in;
 
     /**
-     * The PrintWriter which writes into the socket
+     * The stream which writes into the socket
      */
-    private PrintWriter out;
+    private OutputStream out;
 
     /**
      * A deque that queues up requests to the server
      */
-    private final BlockingDeque<String> toSend;
+    private final BlockingDeque<GameMessage> toSend;
+
+    /**
+     * The messages held back by the current batch
+     */
+    private final ArrayList<GameMessage> batch;
+
+    /**
+     * Whether messages are being held back in a batch
+     */
+    private boolean batching = false;
+
+    /**
+     * The lock that keeps the writer from flushing while a batch is being
+     * queued
+     */
+    private final Object writeLock = new Object();
 
     /**
      * A queue that queues up things to be read
@@ -53,6 +80,26 @@ public final class ClientSocket {
      */
     private volatile boolean communicating = false;
 
+    /**
+     * Whether the server has agreed to binary frames
+     */
+    private volatile boolean binary = false;
+
+    /**
+     * The executor that runs the reading and writing loops
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The loop that reads from the server, or null if it is not running
+     */
+    private Future<?> reader = null;
+
+    /**
+     * The loop that writes to the server, or null if it is not running
+     */
+    private Future<?> writer = null;
+
     /**
      * Creates a new ClientSocket, which attempts to establish a connection to
      * the given host.
@@ -65,11 +112,13 @@ public final class ClientSocket {
         in = null;
         out = null;
         toSend = new LinkedBlockingDeque<>();
+        batch = new ArrayList<>();
         toReceive = new LinkedBlockingQueue<>();
+        executor = TaskExecutors.newExecutor("ClientSocket");
 
         socket = new Socket(host, 9001);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        out = new PrintWriter(socket.getOutputStream(), true);
+        in = new MessageReader(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
 
         startCommunications();
     }
@@ -142,7 +191,9 @@ public final class ClientSocket {
     }
 
     /**
-     * Attempts to close all connections within this object.
+     * Attempts to close all connections within this object. This does not
+     * wait for the reading and writing loops to end, since it is called from
+     * the user interface.
      *
      * @return whether the operation was successful
      */
@@ -158,6 +209,10 @@ public final class ClientSocket {
             return true;
         } catch (IOException ex) {
             return false;
+        } finally {
+            // closing the socket wakes up the reader and the writer has been
+            // interrupted, so both end by themselves
+            executor.shutdown();
         }
     }
 
@@ -176,9 +231,60 @@ public final class ClientSocket {
      * @param message the message to send once preceding ones have
      */
     public void send(String message) {
+        send(GameMessage.text(message));
+    }
+
+    /**
+     * Queues the given message to be sent to the server. After all preceding
+     * messages have been sent, <i>then</i> this one will be sent. Typed
+     * messages go out as binary frames if the server has agreed to them.
+     *
+     * @param message the message to send once preceding ones have
+     */
+    public void send(GameMessage message) {
+        synchronized (batch) {
+            if (batching) {
+                int last = batch.size() - 1;
+                if (message.getType() == GameMessage.GRAVITY && last >= 0
+                        && batch.get(last).getType() == GameMessage.GRAVITY) {
+                    batch.set(last, GameMessage.gravity(
+                            batch.get(last).getValue(0) + message.getValue(0)));
+                } else {
+                    batch.add(message);
+                }
+                return;
+            }
+        }
         toSend.offer(message);
     }
 
+    /**
+     * Starts holding back sent messages until {@link #flushBatch()} is
+     * called. Starting a batch while one is open has no effect.
+     */
+    public void startBatch() {
+        synchronized (batch) {
+            batching = true;
+        }
+    }
+
+    /**
+     * Queues every message held back by the current batch, in order, to be
+     * written with a single flush, and stops holding messages back.
+     */
+    public void flushBatch() {
+        synchronized (batch) {
+            batching = false;
+            if (batch.isEmpty()) {
+                return;
+            }
+            synchronized (writeLock) {
+                toSend.addAll(batch);
+            }
+            batch.clear();
+        }
+    }
+
     /**
      * Places this message at the front of the queue to be sent at the first
      * avaliable opportunity. This method places the highest priority on the
@@ -187,30 +293,52 @@ public final class ClientSocket {
      * @param message the message to send as soon as possible
      */
     public void sendImmediately(String message) {
-        toSend.offerFirst(message);
+        toSend.offerFirst(GameMessage.text(message));
+    }
+
+    /**
+     * Determines whether typed messages are being sent as binary frames
+     *
+     * @return whether the server has agreed to binary frames
+     */
+    public boolean isBinary() {
+        return binary;
     }
 
     /**
      * Starts communications to the server. All queued messages will now be
      * sent.
      */
-    public void startCommunications() {
+    public synchronized void startCommunications() {
+        if (communicating) {
+            return;
+        }
         communicating = true;
 
-        new Thread(() -> {
+        reader = executor.submit(() -> {
             while (communicating) {
-                String read = null;
+                GameMessage read = null;
                 try {
-                    read = in.readLine();
+                    read = in.read();
+                } catch (IllegalArgumentException iae) {
+                    System.err.println("Could not read message: " + iae);
+                    continue;
                 } catch (SocketException se) {
+                    if (!communicating) {
+                        // closed on purpose
+                        break;
+                    }
                     JOptionPane.showMessageDialog(frame,
                             "You have been disconnected from the server.",
                             "Disconnected", JOptionPane.WARNING_MESSAGE);
                     System.exit(0);
                 } catch (IOException ex) {
-                    System.err.println("Could not read line");
+                    System.err.println("Could not read message");
                 }
                 if (read == null) {
+                    if (!communicating) {
+                        break;
+                    }
                     JOptionPane.showMessageDialog(frame,
                             "The server has gone offline.",
                             "Disconnected", JOptionPane.WARNING_MESSAGE);
@@ -218,33 +346,114 @@ public final class ClientSocket {
                 }
 
                 // System.out.println("Received: " + read);
-                if (hasServerListeners()) {
-                    for (Consumer<String> listener : listeners) {
-                        listener.accept(read);
+                if (!read.isBinary()) {
+                    String line = read.getText();
+                    if (line.equals(GameMessage.BINARY_OK)) {
+                        binary = true;
+                        continue;
+                    }
+                    if (line.equals("NAMEACCEPTED")) {
+                        send(GameMessage.BINARY);
+                    }
+                    try {
+                        read = GameMessage.parse(line);
+                    } catch (IllegalArgumentException iae) {
+                        System.err.println("Could not read message: " + iae);
                     }
-                } else {
-                    toReceive.offer(read);
                 }
+                receive(read);
             }
-        }).start();
+        });
 
-        new Thread(() -> {
+        writer = executor.submit(() -> {
+            ArrayList<GameMessage> drained = new ArrayList<>();
             while (communicating) {
                 try {
-                    out.println(toSend.take());
+                    GameMessage message = toSend.take();
+                    synchronized (writeLock) {
+                        // write whatever else is queued along with it
+                        do {
+                            drained.add(message);
+                        } while ((message = toSend.poll()) != null);
+                    }
+                    for (GameMessage m : drained) {
+                        write(m);
+                    }
+                    drained.clear();
+                    out.flush();
                 } catch (InterruptedException ex) {
+                    if (!communicating) {
+                        break;
+                    }
                     System.err.println("Take from toSend was interrupted");
+                } catch (IOException ex) {
+                    if (!communicating) {
+                        break;
+                    }
+                    System.err.println("Could not write message");
                 }
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Writes a message into the socket without flushing it: as a binary frame
+     * if it is typed and the server has agreed to binary frames, and as a line
+     * otherwise.
+     *
+     * @param message the message to write
+     * @throws IOException if the socket fails
+     */
+    private void write(GameMessage message) throws IOException {
+        if (binary && message.isBinary()) {
+            message.write(out);
+        } else {
+            out.write(message.toString().getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Hands a message from the server to whoever is listening: typed messages
+     * go to the message listeners, if there are any, and everything else goes
+     * to the line listeners or is queued to be read.
+     *
+     * @param message the message from the server
+     */
+    private void receive(GameMessage message) {
+        if (message.isBinary() && hasMessageListeners()) {
+            for (Consumer<GameMessage> listener : messageListeners) {
+                listener.accept(message);
+            }
+            return;
+        }
+
+        String line = message.toString();
+        if (hasServerListeners()) {
+            for (Consumer<String> listener : listeners) {
+                listener.accept(line);
+            }
+        } else {
+            toReceive.offer(line);
+        }
     }
 
     /**
      * Stops all communications... for now. Stops sending and receiving
-     * messages.
+     * messages. The writer stops right away; the reader stops once the line
+     * it is waiting for arrives or the socket is closed.
      */
-    public void stopCommunications() {
+    public synchronized void stopCommunications() {
         communicating = false;
+
+        if (writer != null) {
+            writer.cancel(true);
+            writer = null;
+        }
+        if (reader != null) {
+            reader.cancel(false);
+            reader = null;
+        }
     }
 
     /**
@@ -262,7 +471,7 @@ public final class ClientSocket {
     /**
      * The Consumers listening to the server
      */
-    private List<Consumer<String>> listeners = null;
+    private volatile List<Consumer<String>> listeners = null;
 
     /**
      * Sets the listener of this ClientSocket
@@ -271,7 +480,7 @@ public final class ClientSocket {
      */
     public void addServerListener(Consumer<String> consumer) {
         if (listeners == null) {
-            listeners = new LinkedList<>();
+            listeners = new CopyOnWriteArrayList<>();
         }
         listeners.add(consumer);
 
@@ -283,11 +492,51 @@ public final class ClientSocket {
         }
     }
 
+    /**
+     * The Consumers listening to typed messages from the server
+     */
+    private volatile List<Consumer<GameMessage>> messageListeners = null;
+
+    /**
+     * Adds a listener of typed messages. Once there is one, typed messages no
+     * longer go to the line listeners.
+     *
+     * @param consumer the listener to add to this ClientSocket
+     */
+    public void addMessageListener(Consumer<GameMessage> consumer) {
+        if (messageListeners == null) {
+            messageListeners = new CopyOnWriteArrayList<>();
+        }
+        messageListeners.add(consumer);
+    }
+
+    /**
+     * Removes the given listener from the list of message listeners
+     *
+     * @param listener the listener to remove
+     */
+    public void removeMessageListener(Consumer<GameMessage> listener) {
+        if (messageListeners != null) {
+            messageListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Determines whether this ClientSocket object has anything listening to
+     * typed messages
+     *
+     * @return whether there are message listeners
+     */
+    private boolean hasMessageListeners() {
+        return messageListeners != null && !messageListeners.isEmpty();
+    }
+
     /**
      * Removes all the currently listening listeners.
      */
     public void removeAllServerListeners() {
         listeners = null;
+        messageListeners = null;
     }
 
     /**
@@ -296,7 +545,9 @@ public final class ClientSocket {
      * @param listener the listener to remove
      */
     public void removeServerListener(Consumer<String> listener) {
-        listeners.remove(listener);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
     }
 
     /**
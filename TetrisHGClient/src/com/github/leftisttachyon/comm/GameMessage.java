@@ -0,0 +1,657 @@
+package com.github.leftisttachyon.comm;
+
+import com.github.leftisttachyon.tetris.GameAction;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A message of the protocol. The messages that are sent every frame during a
+ * game (actions, locks, gravity, garbage, entries and the end of a pause) are
+ * typed and carry their numbers as ints; every other message is a line of
+ * text.
+ * <p>
+ * A typed message can go over the wire in two ways. In text it is a line like
+ * {@code LOCK4 17 2}; in binary it is an opcode byte followed by its numbers
+ * as zigzag varints, with a varint count first for the messages that carry a
+ * variable amount of numbers. Opcodes are control characters that never start
+ * a line of text, so text lines and binary frames can share one stream: a
+ * reader looks at the first byte to tell them apart. Binary frames are only
+ * sent to a peer that has asked for them with {@link #BINARY}.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class GameMessage {
+
+    /**
+     * The type of a message that is a line of text
+     */
+    public static final int TEXT = 0;
+
+    /**
+     * The type of a message with the ids of executed actions
+     */
+    public static final int ACTIONS = 1;
+
+    /**
+     * The type of a message with the x, y and rotation of a lock
+     */
+    public static final int LOCK = 2;
+
+    /**
+     * The type of a message with the rows a tetromino fell
+     */
+    public static final int GRAVITY = 3;
+
+    /**
+     * The type of a message with the holes of placed garbage
+     */
+    public static final int GARBAGE = 4;
+
+    /**
+     * The type of a message with the left, right and hold flags of an entry,
+     * each 0 or 1
+     */
+    public static final int ENTER = 5;
+
+    /**
+     * The type of a message that says a pause has ended
+     */
+    public static final int PAUSE_ENDED = 6;
+
+    /**
+     * The line a client sends to ask for binary frames
+     */
+    public static final String BINARY = "BINARY";
+
+    /**
+     * The line a server answers {@link #BINARY} with if it understands binary
+     * frames
+     */
+    public static final String BINARY_OK = "BINARYOK";
+
+    /**
+     * The text prefix of each type
+     */
+    private static final String[] PREFIXES = {"", "ACTIONS", "LOCK", "G",
+        "GL", "ENTER", "PAUSE0"};
+
+    /**
+     * The amount of numbers each type carries, or -1 if the amount is sent
+     * first
+     */
+    private static final int[] ARITY = {0, -1, 3, 1, -1, 3, 0};
+
+    /**
+     * The most numbers a message with a variable amount may carry
+     */
+    private static final int MAX_VALUES = 1024;
+
+    /**
+     * The longest a varint of an int can be
+     */
+    private static final int MAX_VARINT = 5;
+
+    /**
+     * The one message that says a pause has ended
+     */
+    private static final GameMessage PAUSE_ENDED_MESSAGE
+            = new GameMessage(PAUSE_ENDED, new int[0], null);
+
+    /**
+     * The type of this message
+     */
+    private final int type;
+
+    /**
+     * The numbers this message carries
+     */
+    private final int[] values;
+
+    /**
+     * The line of this message, if it is a text message
+     */
+    private final String text;
+
+    /**
+     * Creates a new GameMessage.
+     *
+     * @param type the type of the message
+     * @param values the numbers of the message
+     * @param text the line of the message, if it is a text message
+     */
+    private GameMessage(int type, int[] values, String text) {
+        this.type = type;
+        this.values = values;
+        this.text = text;
+    }
+
+    /**
+     * Creates a message that is a line of text. Lines of typed messages stay
+     * text messages; use {@link #parse(java.lang.String)} to type them.
+     *
+     * @param line the line
+     * @return a text message
+     */
+    public static GameMessage text(String line) {
+        return new GameMessage(TEXT, null, line);
+    }
+
+    /**
+     * Creates a message with the ids of executed actions.
+     *
+     * @param actions a bitmask of the actions
+     * @return an {@link #ACTIONS} message
+     * @see GameAction#getMask()
+     */
+    public static GameMessage actions(int actions) {
+        int[] values = new int[Integer.bitCount(actions)];
+        int i = 0;
+        for (int bits = actions; bits != 0; bits &= bits - 1) {
+            values[i++] = Integer.numberOfTrailingZeros(bits);
+        }
+        return new GameMessage(ACTIONS, values, null);
+    }
+
+    /**
+     * Returns the actions of an {@link #ACTIONS} message as a bitmask. Ids
+     * that are not of any action are left out.
+     *
+     * @return a bitmask of the actions
+     * @see GameAction#getMask()
+     */
+    public int getActions() {
+        int actions = 0;
+        for (int i = 0; i < getValueCount(); i++) {
+            GameAction action = GameAction.forId(getValue(i));
+            if (action != null) {
+                actions |= action.getMask();
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Creates a message with the position of a lock.
+     *
+     * @param x the x coordinate of the tetromino
+     * @param y the y coordinate of the tetromino
+     * @param rotation the rotation state of the tetromino
+     * @return a {@link #LOCK} message
+     */
+    public static GameMessage lock(int x, int y, int rotation) {
+        return new GameMessage(LOCK, new int[]{x, y, rotation}, null);
+    }
+
+    /**
+     * Creates a message with the rows a tetromino fell.
+     *
+     * @param rows the amount of rows
+     * @return a {@link #GRAVITY} message
+     */
+    public static GameMessage gravity(int rows) {
+        return new GameMessage(GRAVITY, new int[]{rows}, null);
+    }
+
+    /**
+     * Creates a message with the holes of placed garbage.
+     *
+     * @param holes the empty column of each row of garbage
+     * @param count how many of the holes to send
+     * @return a {@link #GARBAGE} message
+     */
+    public static GameMessage garbage(int[] holes, int count) {
+        int[] values = new int[count];
+        System.arraycopy(holes, 0, values, 0, count);
+        return new GameMessage(GARBAGE, values, null);
+    }
+
+    /**
+     * Creates a message with the flags of an entry.
+     *
+     * @param left whether left was held
+     * @param right whether right was held
+     * @param hold whether hold was pressed
+     * @return an {@link #ENTER} message
+     */
+    public static GameMessage enter(boolean left, boolean right, boolean hold) {
+        return new GameMessage(ENTER, new int[]{left ? 1 : 0, right ? 1 : 0,
+            hold ? 1 : 0}, null);
+    }
+
+    /**
+     * Returns the message that says a pause has ended
+     *
+     * @return a {@link #PAUSE_ENDED} message
+     */
+    public static GameMessage pauseEnded() {
+        return PAUSE_ENDED_MESSAGE;
+    }
+
+    /**
+     * Returns the type of this message
+     *
+     * @return the type of this message
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Returns how many numbers this message carries
+     *
+     * @return the amount of numbers
+     */
+    public int getValueCount() {
+        return values == null ? 0 : values.length;
+    }
+
+    /**
+     * Returns one of the numbers of this message
+     *
+     * @param index the index of the number
+     * @return the number
+     */
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the line of this message if it is a text message
+     *
+     * @return the line, or null if this is a typed message
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns this message as a line of the text protocol.
+     *
+     * @return this message as a line of text
+     */
+    @Override
+    public String toString() {
+        if (type == TEXT) {
+            return text;
+        }
+
+        StringBuilder sb = new StringBuilder(PREFIXES[type]);
+        if (type == ENTER) {
+            for (int value : values) {
+                sb.append(value);
+            }
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                if (i != 0) {
+                    sb.append(' ');
+                }
+                sb.append(values[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a line of the text protocol. Lines of typed messages become typed
+     * messages; every other line becomes a text message.
+     *
+     * @param line the line to read
+     * @return the message on the line
+     * @throws IllegalArgumentException if the line starts like a typed message
+     * but its numbers cannot be read
+     */
+    public static GameMessage parse(String line) {
+        if (line.startsWith("ACTIONS")) {
+            return new GameMessage(ACTIONS, parseValues(line.substring(7)), null);
+        } else if (line.startsWith("LOCK")) {
+            int[] values = parseValues(line.substring(4));
+            if (values.length != 3) {
+                throw new IllegalArgumentException("A lock needs 3 numbers");
+            }
+            return new GameMessage(LOCK, values, null);
+        } else if (line.startsWith("GL")) {
+            return new GameMessage(GARBAGE, parseValues(line.substring(2)), null);
+        } else if (line.startsWith("G") && line.length() > 1
+                && (Character.isDigit(line.charAt(1)) || line.charAt(1) == '-')) {
+            return gravity(Integer.parseInt(line.substring(1)));
+        } else if (line.startsWith("ENTER")) {
+            if (line.length() != 8) {
+                throw new IllegalArgumentException("An entry needs 3 flags");
+            }
+            return enter(line.charAt(5) == '1', line.charAt(6) == '1',
+                    line.charAt(7) == '1');
+        } else if (line.equals("PAUSE0")) {
+            return PAUSE_ENDED_MESSAGE;
+        } else {
+            return text(line);
+        }
+    }
+
+    /**
+     * Reads numbers separated by spaces. Empty pieces are skipped.
+     *
+     * @param s the numbers
+     * @return the numbers
+     * @throws NumberFormatException if a number cannot be read
+     */
+    private static int[] parseValues(String s) {
+        String[] data = s.split(" ");
+        int[] values = new int[data.length];
+        int count = 0;
+        for (String piece : data) {
+            if (!piece.isEmpty()) {
+                values[count++] = Integer.parseInt(piece);
+            }
+        }
+        if (count > MAX_VALUES) {
+            throw new IllegalArgumentException("Too many numbers: " + count);
+        }
+        return count == values.length ? values
+                : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Determines whether the given byte starts a binary frame
+     *
+     * @param b the first byte of a message
+     * @return whether it is an opcode
+     */
+    public static boolean isOpcode(int b) {
+        return b >= ACTIONS && b <= PAUSE_ENDED;
+    }
+
+    /**
+     * Determines whether this message can be sent as a binary frame
+     *
+     * @return whether this is a typed message
+     */
+    public boolean isBinary() {
+        return type != TEXT;
+    }
+
+    /**
+     * Returns how many bytes the binary frame of this message takes
+     *
+     * @return the length of the binary frame
+     */
+    public int getEncodedLength() {
+        int length = 1;
+        if (ARITY[type] == -1) {
+            length += varintLength(values.length);
+        }
+        for (int value : values) {
+            length += varintLength(zigzag(value));
+        }
+        return length;
+    }
+
+    /**
+     * Writes the binary frame of this message into the given array.
+     *
+     * @param dst the array to write into
+     * @param offset where to start writing
+     * @return the index after the last byte written
+     */
+    public int encode(byte[] dst, int offset) {
+        dst[offset++] = (byte) type;
+        if (ARITY[type] == -1) {
+            offset = putVarint(dst, offset, values.length);
+        }
+        for (int value : values) {
+            offset = putVarint(dst, offset, zigzag(value));
+        }
+        return offset;
+    }
+
+    /**
+     * Writes the binary frame of this message to the given stream. Nothing is
+     * allocated, so the stream should be buffered.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream fails
+     */
+    public void write(OutputStream out) throws IOException {
+        out.write(type);
+        if (ARITY[type] == -1) {
+            writeVarint(out, values.length);
+        }
+        for (int value : values) {
+            writeVarint(out, zigzag(value));
+        }
+    }
+
+    /**
+     * Determines how long the binary frame at the start of the given bytes is.
+     *
+     * @param src the bytes
+     * @param offset where the frame starts
+     * @param length how many bytes there are
+     * @return the length of the frame, or -1 if not all of it is there yet
+     * @throws IllegalArgumentException if the bytes are not a binary frame
+     */
+    public static int frameLength(byte[] src, int offset, int length) {
+        if (length == 0) {
+            return -1;
+        }
+        int op = src[offset];
+        if (!isOpcode(op)) {
+            throw new IllegalArgumentException("Not an opcode: " + op);
+        }
+
+        int position = 1;
+        int count = ARITY[op];
+        if (count == -1) {
+            long varint = peekVarint(src, offset + position, length - position);
+            if (varint == -1) {
+                return -1;
+            }
+            count = checkCount((int) varint);
+            position += (int) (varint >>> 32);
+        }
+        for (int i = 0; i < count; i++) {
+            long varint = peekVarint(src, offset + position, length - position);
+            if (varint == -1) {
+                return -1;
+            }
+            position += (int) (varint >>> 32);
+        }
+        return position;
+    }
+
+    /**
+     * Reads a complete binary frame.
+     *
+     * @param src the bytes
+     * @param offset where the frame starts
+     * @return the message
+     * @throws IllegalArgumentException if the bytes are not a binary frame
+     * @see #frameLength(byte[], int, int)
+     */
+    public static GameMessage decode(byte[] src, int offset) {
+        int op = src[offset++];
+        if (!isOpcode(op)) {
+            throw new IllegalArgumentException("Not an opcode: " + op);
+        }
+        if (op == PAUSE_ENDED) {
+            return PAUSE_ENDED_MESSAGE;
+        }
+
+        int count = ARITY[op];
+        if (count == -1) {
+            long varint = peekVarint(src, offset, MAX_VARINT);
+            count = checkCount((int) varint);
+            offset += (int) (varint >>> 32);
+        }
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            long varint = peekVarint(src, offset, MAX_VARINT);
+            values[i] = unzigzag((int) varint);
+            offset += (int) (varint >>> 32);
+        }
+        return new GameMessage(op, values, null);
+    }
+
+    /**
+     * Reads the rest of a binary frame from the given stream, after its
+     * opcode.
+     *
+     * @param op the opcode that was read
+     * @param in the stream to read from
+     * @return the message
+     * @throws IOException if the stream fails or ends within the frame
+     * @throws IllegalArgumentException if the bytes are not a binary frame
+     */
+    public static GameMessage read(int op, InputStream in) throws IOException {
+        if (!isOpcode(op)) {
+            throw new IllegalArgumentException("Not an opcode: " + op);
+        }
+        if (op == PAUSE_ENDED) {
+            return PAUSE_ENDED_MESSAGE;
+        }
+
+        int count = ARITY[op];
+        if (count == -1) {
+            count = checkCount(readVarint(in));
+        }
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = unzigzag(readVarint(in));
+        }
+        return new GameMessage(op, values, null);
+    }
+
+    /**
+     * Checks the amount of numbers of a message.
+     *
+     * @param count the amount
+     * @return the amount
+     * @throws IllegalArgumentException if the amount is out of range
+     */
+    private static int checkCount(int count) {
+        if (count < 0 || count > MAX_VALUES) {
+            throw new IllegalArgumentException("Bad amount of numbers: "
+                    + count);
+        }
+        return count;
+    }
+
+    /**
+     * Maps an int to one whose magnitude is small when the int is, so that
+     * small negative numbers make short varints too.
+     *
+     * @param n the int
+     * @return the zigzag encoding
+     */
+    private static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    /**
+     * Undoes {@link #zigzag(int)}.
+     *
+     * @param n the zigzag encoding
+     * @return the int
+     */
+    private static int unzigzag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * Returns how many bytes the varint of the given int takes
+     *
+     * @param n the int
+     * @return the length of its varint
+     */
+    private static int varintLength(int n) {
+        int length = 1;
+        while ((n & ~0x7F) != 0) {
+            n >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the varint of the given int into an array.
+     *
+     * @param dst the array
+     * @param offset where to start writing
+     * @param n the int
+     * @return the index after the last byte written
+     */
+    private static int putVarint(byte[] dst, int offset, int n) {
+        while ((n & ~0x7F) != 0) {
+            dst[offset++] = (byte) ((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        dst[offset++] = (byte) n;
+        return offset;
+    }
+
+    /**
+     * Writes the varint of the given int to a stream.
+     *
+     * @param out the stream
+     * @param n the int
+     * @throws IOException if the stream fails
+     */
+    private static void writeVarint(OutputStream out, int n) throws IOException {
+        while ((n & ~0x7F) != 0) {
+            out.write((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        out.write(n);
+    }
+
+    /**
+     * Reads a varint out of an array without allocating.
+     *
+     * @param src the array
+     * @param offset where the varint starts
+     * @param available how many bytes there are
+     * @return the int in the low 32 bits and the length of the varint in the
+     * high 32 bits, or -1 if the varint is not complete
+     * @throws IllegalArgumentException if the varint is too long
+     */
+    private static long peekVarint(byte[] src, int offset, int available) {
+        int n = 0;
+        for (int i = 0; i < MAX_VARINT; i++) {
+            if (i >= available) {
+                return -1;
+            }
+            int b = src[offset + i];
+            n |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return ((long) (i + 1) << 32) | (n & 0xFFFFFFFFL);
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    /**
+     * Reads a varint from a stream.
+     *
+     * @param in the stream
+     * @return the int
+     * @throws IOException if the stream fails or ends within the varint
+     * @throws IllegalArgumentException if the varint is too long
+     */
+    private static int readVarint(InputStream in) throws IOException {
+        int n = 0;
+        for (int i = 0; i < MAX_VARINT; i++) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Stream ended within a varint");
+            }
+            n |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return n;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.leftisttachyon.comm;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads messages off a stream that carries both lines of text and binary
+ * frames. Lines end with a line break (a carriage return before it is
+ * dropped) and are read as UTF-8; a binary frame is recognized by its opcode.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ * @see GameMessage
+ */
+public class MessageReader implements AutoCloseable {
+
+    /**
+     * The longest line that can be read
+     */
+    private static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    /**
+     * The stream to read from
+     */
+    private final InputStream in;
+
+    /**
+     * The bytes of the line currently being read
+     */
+    private byte[] line;
+
+    /**
+     * Creates a new MessageReader.
+     *
+     * @param in the stream to read from
+     */
+    public MessageReader(InputStream in) {
+        this.in = new BufferedInputStream(in);
+        line = new byte[128];
+    }
+
+    /**
+     * Reads the next message, waiting if need be. Lines of typed messages are
+     * not typed; they come back as text messages.
+     *
+     * @return the next message, or null if the stream has ended
+     * @throws IOException if the stream fails or ends within a message
+     * @throws IllegalArgumentException if a binary frame or line is malformed
+     */
+    public GameMessage read() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return null;
+        }
+        if (GameMessage.isOpcode(b)) {
+            return GameMessage.read(b, in);
+        }
+
+        int length = 0;
+        while (b != '\n' && b != -1) {
+            if (length == MAX_LINE_LENGTH) {
+                throw new IllegalArgumentException("The line is too long");
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[length++] = (byte) b;
+            b = in.read();
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return GameMessage.text(new String(line, 0, length,
+                StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
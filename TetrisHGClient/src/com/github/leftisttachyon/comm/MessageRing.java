@@ -0,0 +1,145 @@
+package com.github.leftisttachyon.comm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size queue for handing messages from exactly one thread to exactly
+ * one other, without locks: the thread reading from the socket offers, and
+ * the thread running the game polls. Each side only ever writes its own
+ * counter, and publishes it after the slot it has filled or emptied, so
+ * neither side ever waits on the other.
+ * <p>
+ * Offering from more than one thread, or polling from more than one thread,
+ * breaks it.
+ *
+ * @author Jed Wang
+ * @param <E> the type of the messages
+ * @since 1.0.0
+ */
+public final class MessageRing<E> {
+
+    /**
+     * The slots of the ring; the length is a power of two
+     */
+    private final Object[] buffer;
+
+    /**
+     * What to mask a counter with to find its slot
+     */
+    private final int mask;
+
+    /**
+     * How many messages have been polled; only the polling thread writes it
+     */
+    private final AtomicLong head;
+
+    /**
+     * How many messages have been offered; only the offering thread writes it
+     */
+    private final AtomicLong tail;
+
+    /**
+     * The last head seen by the offering thread
+     */
+    private long cachedHead;
+
+    /**
+     * The last tail seen by the polling thread
+     */
+    private long cachedTail;
+
+    /**
+     * Creates a new, empty MessageRing.
+     *
+     * @param capacity the least amount of messages the ring should hold; it is
+     * rounded up to a power of two
+     */
+    public MessageRing(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        buffer = new Object[size];
+        mask = size - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+        cachedHead = 0;
+        cachedTail = 0;
+    }
+
+    /**
+     * Adds a message to the ring. Only to be called by the offering thread.
+     *
+     * @param message the message to add
+     * @return whether the message was added; false if the ring is full
+     */
+    public boolean offer(E message) {
+        if (message == null) {
+            throw new NullPointerException("Messages cannot be null");
+        }
+        long t = tail.get();
+        if (t - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if (t - cachedHead >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = message;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest message from the ring. Only to be called by the
+     * polling thread.
+     *
+     * @return the oldest message, or null if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h >= cachedTail) {
+            cachedTail = tail.get();
+            if (h >= cachedTail) {
+                return null;
+            }
+        }
+        int slot = (int) h & mask;
+        E message = (E) buffer[slot];
+        buffer[slot] = null;
+        head.lazySet(h + 1);
+        return message;
+    }
+
+    /**
+     * Returns about how many messages are in the ring; exact only if neither
+     * thread is using it
+     *
+     * @return about how many messages are in the ring
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * Determines whether the ring seems to be empty
+     *
+     * @return whether the ring seems to be empty
+     * @see #size()
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns how many messages the ring can hold
+     *
+     * @return the capacity of the ring
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+}
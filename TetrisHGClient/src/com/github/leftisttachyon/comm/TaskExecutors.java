@@ -0,0 +1,129 @@
+package com.github.leftisttachyon.comm;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors that run blocking socket loops. Every task gets a
+ * thread of its own; on a Java runtime with virtual threads those threads are
+ * virtual, so thousands of blocked connections do not use up native threads.
+ * The virtual thread executor is looked up reflectively, since this project
+ * is still built for Java 8.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class TaskExecutors {
+
+    /**
+     * The factory method of the virtual thread executor, or null if this
+     * runtime has no virtual threads
+     */
+    private static final Method VIRTUAL_FACTORY = findVirtualFactory();
+
+    /**
+     * No instances.
+     */
+    private TaskExecutors() {
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     *
+     * @return the method, or null if it does not exist
+     */
+    private static Method findVirtualFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Determines whether this runtime can run tasks on virtual threads
+     *
+     * @return whether virtual threads are available
+     */
+    public static boolean isVirtualAvailable() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    /**
+     * Creates an executor that runs every task on a new virtual thread, if
+     * this runtime has them; otherwise one that runs every task on a platform
+     * thread.
+     *
+     * @param name the prefix of the names of the platform threads
+     * @return a new executor
+     * @see #newPlatformExecutor(java.lang.String)
+     */
+    public static ExecutorService newExecutor(String name) {
+        ExecutorService virtual = newVirtualExecutor();
+        return virtual == null ? newPlatformExecutor(name) : virtual;
+    }
+
+    /**
+     * Creates an executor that runs every task on a new virtual thread.
+     *
+     * @return a new executor, or null if this runtime has no virtual threads
+     */
+    public static ExecutorService newVirtualExecutor() {
+        if (VIRTUAL_FACTORY == null) {
+            return null;
+        }
+
+        try {
+            return (ExecutorService) VIRTUAL_FACTORY.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            // virtual threads can be a preview feature that is switched off
+            return null;
+        }
+    }
+
+    /**
+     * Creates an executor that runs every task on a platform thread. Idle
+     * threads are reused for a while before they die. The threads are daemon
+     * threads, just like virtual threads, so they never keep the program
+     * alive by themselves.
+     *
+     * @param name the prefix of the names of the threads
+     * @return a new executor
+     */
+    public static ExecutorService newPlatformExecutor(String name) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = (runnable) -> {
+            Thread t = new Thread(runnable, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return Executors.newCachedThreadPool(factory);
+    }
+
+    /**
+     * Shuts the given executor down: no new tasks are accepted, running tasks
+     * are given the given amount of time to finish, and whatever is left is
+     * interrupted.
+     *
+     * @param executor the executor to shut down
+     * @param timeout the most milliseconds to wait for running tasks
+     * @return whether every task finished
+     */
+    public static boolean shutdown(ExecutorService executor, long timeout) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        return false;
+    }
+}
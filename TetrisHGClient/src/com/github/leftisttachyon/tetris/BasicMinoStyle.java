@@ -41,8 +41,18 @@ public class BasicMinoStyle extends MinoStyle {
      */
     private static final Color FLASH = new Color(186, 194, 194);
 
+    /**
+     * Draws a mino straight away: filling a rectangle with one color is faster
+     * than copying it out of an atlas.
+     */
     @Override
     public void drawMino(Graphics2D g2D, int x, int y, int size, int color) {
+        renderMino(g2D, x, y, size, color);
+    }
+
+    @Override
+    protected void renderMino(Graphics2D g2D, int x, int y, int size,
+            int color) {
         switch (color) {
             case CYAN:
                 g2D.setColor(Color.CYAN);
@@ -0,0 +1,76 @@
+package com.github.leftisttachyon.tetris;
+
+/**
+ * A listener for the events produced by an authoritative TetrisEngine. Each
+ * event is what the opponent's mirror needs to reproduce the same game; every
+ * method does nothing by default.
+ *
+ * @author Jed Wang
+ * @see TetrisEngine
+ * @since 1.0.0
+ */
+public interface EngineListener {
+
+    /**
+     * Called after a set of actions has been executed.
+     *
+     * @param actions a bitmask of the actions that were executed
+     * @see GameAction#getMask()
+     */
+    default void actionsExecuted(int actions) {
+    }
+
+    /**
+     * Called when the pause after a lock or a line clear has run out.
+     */
+    default void pauseEnded() {
+    }
+
+    /**
+     * Called when the current tetromino has locked by itself (through lock
+     * delay, not a hard drop) at the given position.
+     *
+     * @param x the x coordinate of the tetromino
+     * @param y the y coordinate of the tetromino
+     * @param rotation the rotation state of the tetromino
+     */
+    default void locked(int x, int y, int rotation) {
+    }
+
+    /**
+     * Called when rows of garbage have been placed at the bottom of the
+     * matrix.
+     *
+     * @param holes the empty column of each row of garbage, in order
+     * @param count the amount of rows of garbage placed; only the first
+     * {@code count} entries of {@code holes} are valid
+     */
+    default void garbagePlaced(int[] holes, int count) {
+    }
+
+    /**
+     * Called when the next tetromino enters the matrix.
+     *
+     * @param left whether it was rotated left on entry
+     * @param right whether it was rotated right on entry
+     * @param hold whether it was held on entry
+     */
+    default void entered(boolean left, boolean right, boolean hold) {
+    }
+
+    /**
+     * Called when gravity moves the current tetromino down.
+     *
+     * @param rows the amount of rows the tetromino moved down
+     */
+    default void gravityApplied(int rows) {
+    }
+
+    /**
+     * Called when a new bag of tetrominos has been generated.
+     *
+     * @param bag the types of the tetrominos in the bag, in order
+     */
+    default void bagGenerated(String bag) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.leftisttachyon.tetris;
+
+/**
+ * The things a player can do during a game. Actions are passed around as
+ * bitmasks of their {@link #getMask() masks}, so that the actions of a frame
+ * are a single int, and are sent to the server as their {@link #getId() ids}.
+ * Which key does which action is up to the
+ * {@link com.github.leftisttachyon.tetris.ui.KeyMap KeyMap}; the game itself
+ * knows nothing of keys.
+ * <p>
+ * The ids are the ordinals, so actions must only ever be added to the end.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public enum GameAction {
+
+    /**
+     * Drops the tetromino and locks it
+     */
+    HARD_DROP,
+    /**
+     * Drops the tetromino without locking it
+     */
+    SONIC_DROP,
+    /**
+     * Moves the tetromino down one row
+     */
+    SOFT_DROP,
+    /**
+     * Swaps the tetromino with the one being held
+     */
+    HOLD,
+    /**
+     * Rotates the tetromino counterclockwise
+     */
+    ROTATE_LEFT,
+    /**
+     * Rotates the tetromino clockwise
+     */
+    ROTATE_RIGHT,
+    /**
+     * Moves the tetromino left one column
+     */
+    MOVE_LEFT,
+    /**
+     * Moves the tetromino right one column
+     */
+    MOVE_RIGHT;
+
+    /**
+     * Every action, by ordinal; {@link #values()} copies its array every time
+     */
+    private static final GameAction[] ACTIONS = values();
+
+    /**
+     * The amount of actions
+     */
+    public static final int COUNT = ACTIONS.length;
+
+    /**
+     * Returns the id of this action, which is what is sent to the server
+     *
+     * @return the id of this action
+     */
+    public int getId() {
+        return ordinal();
+    }
+
+    /**
+     * Returns the bit of this action in a bitmask of actions
+     *
+     * @return the bit of this action
+     */
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Determines whether this action is in the given bitmask of actions
+     *
+     * @param actions a bitmask of actions
+     * @return whether this action is in it
+     */
+    public boolean isIn(int actions) {
+        return (actions & 1 << ordinal()) != 0;
+    }
+
+    /**
+     * Returns the action with the given ordinal
+     *
+     * @param ordinal the ordinal of the action
+     * @return the action
+     */
+    public static GameAction get(int ordinal) {
+        return ACTIONS[ordinal];
+    }
+
+    /**
+     * Finds the action with the given id.
+     *
+     * @param id the id of the action
+     * @return the action, or null if there is no action with the id
+     */
+    public static GameAction forId(int id) {
+        return id >= 0 && id < COUNT ? ACTIONS[id] : null;
+    }
+}
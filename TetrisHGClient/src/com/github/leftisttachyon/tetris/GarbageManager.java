@@ -80,6 +80,19 @@ public class GarbageManager implements Paintable {
         return garbageQueue.isEmpty();
     }
 
+    /**
+     * Returns the total amount of lines of garbage waiting in the queue
+     *
+     * @return the total amount of lines of garbage in the queue
+     */
+    public int getTotal() {
+        int total = 0;
+        for (int lines : garbageQueue) {
+            total += lines;
+        }
+        return total;
+    }
+
     /**
      * Queues garbage to drop onto your board.
      *
@@ -0,0 +1,21 @@
+package com.github.leftisttachyon.tetris;
+
+/**
+ * An interface that represents the state of the player's controls that the
+ * engine needs to look at outside of discrete actions, such as holding a
+ * rotation button while the next tetromino enters.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface InputState {
+
+    /**
+     * Determines whether the key of an action is being pressed or not.
+     *
+     * @param action the action that is being investigated
+     * @return whether the key of the given action is being pressed
+     */
+    boolean isPressed(GameAction action);
+}
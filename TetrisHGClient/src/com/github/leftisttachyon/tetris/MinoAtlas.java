@@ -0,0 +1,213 @@
+package com.github.leftisttachyon.tetris;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Every mino of one MinoStyle at one size, drawn once side by side into a
+ * single image: the mino of color {@code c} is the square starting at
+ * {@code c * size}. Drawing a mino is a copy out of that image.
+ * <p>
+ * If the style draws every mino without any see-through pixels, the image is
+ * opaque, which is much faster to copy from. Minos the style leaves empty are
+ * not drawn at all.
+ * <p>
+ * The minos are kept in a managed image, which Java2D may cache on the
+ * graphics card by itself. When drawing to a screen, they are also copied to
+ * a VolatileImage, which lives on the graphics card; if it is lost, it is
+ * copied again, and if the screen changes, it is created again.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class MinoAtlas {
+
+    /**
+     * The amount of colors in an atlas, from {@link MinoStyle#EMPTY} to
+     * {@link MinoStyle#GREY}
+     */
+    public static final int COLORS = MinoStyle.GREY + 1;
+
+    /**
+     * The size of every mino
+     */
+    private final int size;
+
+    /**
+     * The minos, as drawn by the style
+     */
+    private final BufferedImage minos;
+
+    /**
+     * Whether the style drew anything for each color
+     */
+    private final boolean[] drawn;
+
+    /**
+     * A copy of the minos on the graphics card, or null if none has been made
+     */
+    private VolatileImage accelerated;
+
+    /**
+     * The configuration the accelerated copy was made for
+     */
+    private GraphicsConfiguration acceleratedConfig;
+
+    /**
+     * Creates a new MinoAtlas by drawing every mino of the given style.
+     *
+     * @param style the style to draw
+     * @param size the size of every mino
+     */
+    MinoAtlas(MinoStyle style, int size) {
+        this.size = size;
+        drawn = new boolean[COLORS];
+        accelerated = null;
+        acceleratedConfig = null;
+
+        BufferedImage rendered = createImage(size * COLORS, size,
+                Transparency.TRANSLUCENT);
+        Graphics2D g2D = rendered.createGraphics();
+        try {
+            for (int color = 1; color < COLORS; color++) {
+                style.renderMino(g2D, color * size, 0, size, color);
+            }
+        } finally {
+            g2D.dispose();
+        }
+
+        boolean opaque = true;
+        for (int color = 1; color < COLORS; color++) {
+            int alpha = 0;
+            boolean cellOpaque = true;
+            for (int x = color * size; x < (color + 1) * size; x++) {
+                for (int y = 0; y < size; y++) {
+                    int a = rendered.getRGB(x, y) >>> 24;
+                    alpha |= a;
+                    cellOpaque &= a == 0xFF;
+                }
+            }
+            drawn[color] = alpha != 0;
+            opaque &= !drawn[color] || cellOpaque;
+        }
+
+        if (opaque) {
+            minos = createImage(size * COLORS, size, Transparency.OPAQUE);
+            g2D = minos.createGraphics();
+            try {
+                g2D.drawImage(rendered, 0, 0, null);
+            } finally {
+                g2D.dispose();
+            }
+        } else {
+            minos = rendered;
+        }
+    }
+
+    /**
+     * Creates an image compatible with the screen, if there is one.
+     *
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param transparency the transparency of the image, either
+     * {@link Transparency#OPAQUE} or {@link Transparency#TRANSLUCENT}
+     * @return a new image
+     */
+    private static BufferedImage createImage(int width, int height,
+            int transparency) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height,
+                transparency == Transparency.OPAQUE
+                        ? BufferedImage.TYPE_INT_RGB
+                        : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Returns the size of the minos in this atlas
+     *
+     * @return the size of the minos
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Draws a mino.
+     *
+     * @param g2D the Graphics2D object to draw with
+     * @param x the x coordinate of the top left corner of the mino
+     * @param y the y coordinate of the top left corner of the mino
+     * @param color the color of the mino
+     */
+    public void draw(Graphics2D g2D, int x, int y, int color) {
+        if (color <= MinoStyle.EMPTY || color >= COLORS || !drawn[color]) {
+            return;
+        }
+        int sx = color * size;
+
+        GraphicsConfiguration gc = g2D.getDeviceConfiguration();
+        if (gc != null
+                && gc.getDevice().getType() == GraphicsDevice.TYPE_RASTER_SCREEN) {
+            VolatileImage image = validate(gc);
+            if (image != null) {
+                g2D.drawImage(image, x, y, x + size, y + size,
+                        sx, 0, sx + size, size, null);
+                if (!image.contentsLost()) {
+                    return;
+                }
+            }
+        }
+        g2D.drawImage(minos, x, y, x + size, y + size, sx, 0, sx + size, size,
+                null);
+    }
+
+    /**
+     * Makes sure the copy of the minos on the graphics card is there and up
+     * to date.
+     *
+     * @param gc the configuration being drawn to
+     * @return the copy, or null if one cannot be made
+     */
+    private synchronized VolatileImage validate(GraphicsConfiguration gc) {
+        if (accelerated == null || acceleratedConfig != gc
+                || accelerated.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (accelerated != null) {
+                accelerated.flush();
+            }
+            accelerated = gc.createCompatibleVolatileImage(minos.getWidth(),
+                    minos.getHeight(), minos.getTransparency());
+            acceleratedConfig = gc;
+            if (accelerated == null) {
+                return null;
+            }
+            copyMinos();
+        } else if (accelerated.contentsLost()) {
+            copyMinos();
+        }
+        return accelerated;
+    }
+
+    /**
+     * Copies the minos into the copy on the graphics card.
+     */
+    private void copyMinos() {
+        Graphics2D g2D = accelerated.createGraphics();
+        try {
+            g2D.setComposite(AlphaComposite.Src);
+            g2D.drawImage(minos, 0, 0, null);
+        } finally {
+            g2D.dispose();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import static com.github.leftisttachyon.util.TetrisUtils.*;
 import java.awt.AlphaComposite;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.util.Arrays;
 
 /**
  * An abstract class that controls how each mino is drawn.
@@ -19,6 +20,19 @@ public abstract class MinoStyle {
      */
     public static final int MINO_SIZE = 24;
 
+    /**
+     * The atlases of this style drawn so far, indexed by the size of their
+     * minos. Replaced rather than changed, so it can be read without a lock.
+     */
+    private volatile MinoAtlas[] atlases = new MinoAtlas[MINO_SIZE + 1];
+
+    /**
+     * The tetromino boxes of this style drawn so far, indexed by their width.
+     * Replaced rather than changed, so it can be read without a lock.
+     */
+    private volatile TetrominoThumbnails[] thumbnails
+            = new TetrominoThumbnails[4 * MINO_SIZE + 1];
+
     /**
      * Draws a mino of the given color with the given Graphics2D object at the x
      * and y positions given.
@@ -69,7 +83,84 @@ public abstract class MinoStyle {
      * @param size the size of the mino to be drawn
      * @param color the color of the mino to be drawn
      */
-    public abstract void drawMino(Graphics2D g2D, int x, int y, int size, int color);
+    public void drawMino(Graphics2D g2D, int x, int y, int size, int color) {
+        if (color != EMPTY && size > 0) {
+            getAtlas(size).draw(g2D, x, y, color);
+        }
+    }
+
+    /**
+     * Returns the atlas of the minos of this style at the given size, drawing
+     * it if need be.
+     *
+     * @param size the size of the minos
+     * @return the atlas of the minos at the given size
+     */
+    public MinoAtlas getAtlas(int size) {
+        MinoAtlas[] current = atlases;
+        if (size < current.length && current[size] != null) {
+            return current[size];
+        }
+
+        synchronized (this) {
+            current = atlases;
+            if (size >= current.length) {
+                current = Arrays.copyOf(current,
+                        Math.max(size + 1, current.length * 2));
+            } else if (current[size] != null) {
+                return current[size];
+            } else {
+                current = current.clone();
+            }
+            MinoAtlas atlas = new MinoAtlas(this, size);
+            current[size] = atlas;
+            atlases = current;
+            return atlas;
+        }
+    }
+
+    /**
+     * Returns the boxes showing tetrominos in this style at the given width,
+     * for the piece preview and the hold box.
+     *
+     * @param width the width of a box
+     * @return the boxes of the given width
+     */
+    public TetrominoThumbnails getThumbnails(int width) {
+        TetrominoThumbnails[] current = thumbnails;
+        if (width < current.length && current[width] != null) {
+            return current[width];
+        }
+
+        synchronized (this) {
+            current = thumbnails;
+            if (width >= current.length) {
+                current = Arrays.copyOf(current, width + 1);
+            } else if (current[width] != null) {
+                return current[width];
+            } else {
+                current = current.clone();
+            }
+            TetrominoThumbnails boxes = new TetrominoThumbnails(this, width);
+            current[width] = boxes;
+            thumbnails = current;
+            return boxes;
+        }
+    }
+
+    /**
+     * Draws a mino of the given color and size with the given Graphics2D object
+     * at the x and y positions given, without going through an atlas. This is
+     * how atlases are drawn, once for every size.
+     *
+     * @param g2D the Graphics2D object to draw the mino with
+     * @param x the x coordinate of the top left corner of the mino to be drawn
+     * @param y the y coordinate of the top left corner of the mino to be drawn
+     * @param size the size of the mino to be drawn
+     * @param color the color of the mino to be drawn
+     */
+    protected abstract void renderMino(Graphics2D g2D, int x, int y, int size,
+            int color);
 
     /**
      * The translucent composite for drawing translucent stuff
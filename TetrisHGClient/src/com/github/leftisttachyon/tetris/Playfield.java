@@ -0,0 +1,39 @@
+package com.github.leftisttachyon.tetris;
+
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+
+/**
+ * An interface that represents anything a tetromino can be moved and rotated
+ * in: a grid of blocks/minos that tetrominos collide with.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public interface Playfield {
+
+    /**
+     * Finds and returns the value of the block/mino at the specified row and
+     * column. If the row or column are out of bounds, then it returns the value
+     * of WALL.
+     *
+     * @param r the row of the playfield to find
+     * @param c the column of the playfield to find
+     * @return the value of the wanted block/mino
+     * @see MinoStyle#WALL
+     */
+    int getBlock(int r, int c);
+
+    /**
+     * Determines whether a tetromino given as row bitmasks, with its top left
+     * corner placed at (x, y), would overlap any filled in block or go out of
+     * bounds.
+     *
+     * @param masks the row bitmasks of the tetromino, where bit {@code i} is
+     * column {@code i} of the tetromino
+     * @param x the column of the top left corner of the tetromino
+     * @param y the row of the top left corner of the tetromino
+     * @return whether the tetromino intersects with this playfield
+     * @see Tetromino#getMask(int)
+     */
+    boolean intersects(int[] masks, int x, int y);
+}
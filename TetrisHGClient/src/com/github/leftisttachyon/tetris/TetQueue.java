@@ -1,17 +1,22 @@
 package com.github.leftisttachyon.tetris;
 
-import com.github.leftisttachyon.comm.ClientSocket;
 import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
 import com.github.leftisttachyon.util.Paintable;
-import java.awt.Color;
 import java.awt.Graphics2D;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * A queue of tetrominos that control the bag randomization system as well as
  * the piece preview.
+ * <p>
+ * The queue itself is a ring of tetromino ids. Tetrominos only become objects
+ * when they leave the queue, and those objects come from a pool that holds a
+ * few of each type, so a long game creates no tetrominos after its first
+ * few.
  *
  * @author Jed Wang
  * @param <T> the type of tetromino in the queue
@@ -20,9 +25,41 @@ import java.util.List;
 public class TetQueue<T extends Tetromino> implements Paintable {
 
     /**
-     * The internal queue
+     * How many tetrominos of each type the pool holds: one to fall, one to
+     * be held and one to flash as it locks
      */
-    private LinkedList<T> tetQueue;
+    private static final int POOL_SIZE = 3;
+
+    /**
+     * The ids of the tetrominos in the queue, as a ring; the length is a power
+     * of two
+     */
+    private int[] ids;
+
+    /**
+     * Where the first tetromino in the ring is
+     */
+    private int head;
+
+    /**
+     * How many tetrominos are in the ring
+     */
+    private int size;
+
+    /**
+     * The tetrominos handed out by this queue, by id
+     */
+    private final Tetromino[][] pool;
+
+    /**
+     * The tetrominos shown in the piece preview, copied out of the queue
+     */
+    private final Tetromino[] preview;
+
+    /**
+     * Whether the queue has changed since the preview was last copied
+     */
+    private boolean previewChanged;
 
     /**
      * The TetrominoFactory to use to create the tetrominos
@@ -52,6 +89,33 @@ public class TetQueue<T extends Tetromino> implements Paintable {
      */
     private MinoStyle minoStyle;
 
+    /**
+     * The Random used to shuffle new bags
+     */
+    private Random random;
+
+    /**
+     * The Randomizer that decides new bags, or null if it has not been
+     * created from the TetrominoFactory and Random yet
+     */
+    private Randomizer randomizer;
+
+    /**
+     * What creates the Randomizer from the Random, or null to use the
+     * TetrominoFactory
+     */
+    private Function<Random, ? extends Randomizer> randomizerCreator;
+
+    /**
+     * The ids of the tetrominos of the last bag
+     */
+    private final int[] bagIds;
+
+    /**
+     * A Consumer that is told the types of every newly generated bag, in order
+     */
+    private Consumer<String> bagListener;
+
     /**
      * Creates a default TetQueue, with 5 pieces in the outlook.
      *
@@ -68,57 +132,79 @@ public class TetQueue<T extends Tetromino> implements Paintable {
      * @param outlook the number of pieces to be seen in the outlook.
      */
     public TetQueue(boolean isLeft, int outlook) {
-        tetQueue = new LinkedList<>();
+        ids = new int[Integer.highestOneBit(
+                Math.max(outlook, 0) + Randomizer.PIECES) << 1];
+        head = 0;
+        size = 0;
+        pool = new Tetromino[Randomizer.PIECES][POOL_SIZE];
         this.outlook = outlook;
+        preview = new Tetromino[Math.max(outlook, 0)];
+        previewChanged = true;
         this.isLeft = isLeft;
         tf = null;
         minoStyle = null;
+        random = new Random();
+        randomizer = null;
+        randomizerCreator = null;
+        bagIds = new int[Randomizer.PIECES];
+        bagListener = null;
     }
 
     @Override
     public void paint(Graphics2D g2D) {
-        MinoStyle style = getMinoStyle();
         if (outlook >= 1) {
-            g2D.setColor(Color.WHITE);
-            g2D.fillRect(0, 0, 80, 48);
-            if (tetQueue.size() >= 1) {
-                style.drawTetromino(g2D, 0, 0, 80, tetQueue.get(0));
+            if (previewChanged) {
+                updatePreview();
             }
 
+            MinoStyle style = getMinoStyle();
+            style.getThumbnails(80).draw(g2D, 0, 0, preview[0]);
+
+            TetrominoThumbnails small = style.getThumbnails(60);
             int x = isLeft ? 20 : 0;
             for (int i = 1, y = 58; i < outlook; i++, y += 46) {
-                g2D.setColor(Color.WHITE);
-                g2D.fillRect(x, y, 60, 36);
-                if (i < tetQueue.size()) {
-                    style.drawTetromino(g2D, x, y, 60, tetQueue.get(i));
-                }
+                small.draw(g2D, x, y, preview[i]);
             }
         }
     }
 
     /**
-     * Adds a new bag of tetrominos generated from the given TetrominoFactory
+     * Finds the tetrominos at the front of the queue for the preview. The
+     * preview only ever looks at the class and up state of a tetromino, so
+     * the first one of each type in the pool stands in for all of them.
+     */
+    private void updatePreview() {
+        for (int i = 0; i < preview.length; i++) {
+            preview[i] = i < size ? getPooled(peekId(i), 0) : null;
+        }
+        previewChanged = false;
+    }
+
+    /**
+     * Adds the next seven tetrominos decided by the Randomizer of this queue:
+     * the one set with {@link #setRandomizer(Function)}, or else the one of
+     * the TetrominoFactory
      *
-     * @see TetrominoFactory#createRandomBag()
+     * @see TetrominoFactory#createRandomizer(java.util.Random)
      */
     public void addBag() {
-        if (isLeft) {
-            List<T> bag = tf.createRandomBag();
-            tetQueue.addAll(bag);
-
-            if (ClientSocket.isConnected()) {
-                StringBuilder message = new StringBuilder("NB");
-                for (T t : bag) {
-                    message.append(t.getType());
-                }
-
-                ClientSocket.getConnection().send(message.toString());
+        if (randomizer == null) {
+            randomizer = randomizerCreator == null
+                    ? tf.createRandomizer(random)
+                    : randomizerCreator.apply(random);
+        }
+        randomizer.fill(bagIds, 0, bagIds.length);
+        for (int id : bagIds) {
+            addId(id);
+        }
 
-                // System.out.println("Add this: " + message.substring(2));
+        if (bagListener != null) {
+            char[] message = new char[bagIds.length];
+            for (int i = 0; i < bagIds.length; i++) {
+                message[i] = Randomizer.getType(bagIds[i]);
             }
-        } else {
-            throw new UnsupportedOperationException(
-                    "You shouldn't be generating random bags!");
+
+            bagListener.accept(new String(message));
         }
     }
 
@@ -130,31 +216,106 @@ public class TetQueue<T extends Tetromino> implements Paintable {
      * @see TetrominoFactory#createBagOf(java.lang.String)
      */
     public void addBag(String bag) {
-        tetQueue.addAll(tf.createBagOf(bag));
+        for (int i = 0; i < bag.length(); i++) {
+            int id = Randomizer.getId(bag.charAt(i));
+            if (id == -1) {
+                throw new IllegalArgumentException("Not a tetromino: "
+                        + bag.charAt(i));
+            }
+            addId(id);
+        }
     }
 
     /**
-     * Adds a tetromino to the queue
+     * Adds a tetromino to the end of the queue, making the ring bigger if it
+     * is full.
      *
-     * @param t the tetromino to add to the queue
+     * @param id the id of the tetromino to add
      */
-    void addTetromino(T t) {
-        tetQueue.add(t);
+    private void addId(int id) {
+        if (size == ids.length) {
+            int[] bigger = new int[ids.length << 1];
+            for (int i = 0; i < size; i++) {
+                bigger[i] = peekId(i);
+            }
+            ids = bigger;
+            head = 0;
+        }
+        ids[(head + size) & (ids.length - 1)] = id;
+        size++;
+        previewChanged = true;
     }
 
     /**
-     * Removes the next tetromino from the queue. If the queue is empty, this
-     * method throws an exception.
+     * Returns the id of a tetromino in the queue without removing it.
      *
-     * @return the tetromino removed from the head of this queue
+     * @param index how far from the front of the queue the tetromino is
+     * @return the id of the tetromino
+     * @see Randomizer#TYPES
      */
-    public T removeTetromino() {
-        T output = tetQueue.remove();
-        if (isLeft && tetQueue.size() < outlook) {
-            // System.out.println("Added bag");
+    public int peekId(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                    + ", size: " + size);
+        }
+        return ids[(head + index) & (ids.length - 1)];
+    }
+
+    /**
+     * Returns how many tetrominos are in the queue
+     *
+     * @return how many tetrominos are in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes the next tetromino from the queue. New bags are added first if
+     * the queue would otherwise have less tetrominos than the outlook shows.
+     * <p>
+     * The tetromino comes from the pool of this queue, and will be handed out
+     * again by a later call. The tetrominos the caller is still using must be
+     * given, so that a different one of the same type is handed out.
+     *
+     * @param held the tetromino being held, or null
+     * @param locking the tetromino flashing as it locks, or null
+     * @return the tetromino removed from the head of this queue, ready to be
+     * activated
+     */
+    public T removeTetromino(Tetromino held, Tetromino locking) {
+        while (size <= outlook) {
             addBag();
-        } // else System.out.println("No add bag");
-        return output;
+        }
+        int id = ids[head];
+        head = (head + 1) & (ids.length - 1);
+        size--;
+        previewChanged = true;
+
+        for (int slot = 0; slot < POOL_SIZE; slot++) {
+            T t = getPooled(id, slot);
+            if (t != held && t != locking) {
+                return t;
+            }
+        }
+        throw new IllegalStateException("Every pooled tetromino is in use");
+    }
+
+    /**
+     * Returns a tetromino from the pool, creating it if it has not been yet.
+     *
+     * @param id the id of the tetromino
+     * @param slot which of the tetrominos of that type to return
+     * @return the pooled tetromino
+     */
+    @SuppressWarnings("unchecked")
+    private T getPooled(int id, int slot) {
+        Tetromino t = pool[id][slot];
+        if (t == null) {
+            t = tf.createTetrominoOf(id);
+            pool[id][slot] = t;
+        }
+        return (T) t;
     }
 
     /**
@@ -164,6 +325,13 @@ public class TetQueue<T extends Tetromino> implements Paintable {
      */
     public void setTetrominoFactory(TetrominoFactory<T> tf) {
         this.tf = tf;
+        randomizer = null;
+        for (Tetromino[] tetrominos : pool) {
+            for (int slot = 0; slot < POOL_SIZE; slot++) {
+                tetrominos[slot] = null;
+            }
+        }
+        previewChanged = true;
     }
 
     /**
@@ -177,11 +345,56 @@ public class TetQueue<T extends Tetromino> implements Paintable {
         return tf;
     }
 
+    /**
+     * Sets the Random used to shuffle new bags
+     *
+     * @param random the Random to use from now on
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+        randomizer = null;
+    }
+
+    /**
+     * Sets what creates the Randomizer that decides new bags, instead of the
+     * TetrominoFactory. It is given the Random of this queue, so the seed
+     * still decides the tetrominos.
+     *
+     * @param creator what creates the Randomizer from the Random, or null to
+     * use the Randomizer of the TetrominoFactory again
+     */
+    public void setRandomizer(Function<Random, ? extends Randomizer> creator) {
+        randomizerCreator = creator;
+        randomizer = null;
+    }
+
+    /**
+     * Makes the tetrominos from now on be determined by the given seed. Two
+     * queues with the same seed and the same kind of TetrominoFactory make
+     * the same tetrominos in the same order.
+     *
+     * @param seed the seed of the tetrominos
+     */
+    public void setSeed(long seed) {
+        setRandom(new Random(seed));
+    }
+
+    /**
+     * Sets the Consumer that is told the types of every newly generated bag
+     *
+     * @param bagListener the Consumer to use from now on
+     */
+    public void setBagListener(Consumer<String> bagListener) {
+        this.bagListener = bagListener;
+    }
+
     /**
      * Clears all tetrominos from this queue.
      */
     public void clearQueue() {
-        tetQueue.clear();
+        head = 0;
+        size = 0;
+        previewChanged = true;
     }
 
     /**
@@ -202,13 +415,26 @@ public class TetQueue<T extends Tetromino> implements Paintable {
         return minoStyle == null ? BasicMinoStyle.getMinoStyle() : minoStyle;
     }
 
+    /**
+     * Returns the types of the tetrominos in the queue, in order
+     *
+     * @return the types of the tetrominos in the queue, like "IJLOSTZ"
+     */
+    public String getTypes() {
+        char[] types = new char[size];
+        for (int i = 0; i < size; i++) {
+            types[i] = Randomizer.getType(peekId(i));
+        }
+        return new String(types);
+    }
+
     @Override
     public String toString() {
         return "TetQueue isLeft=" + isLeft
                 + " minoStyle=" + (minoStyle == null ? "null"
                         : minoStyle.getClass().getSimpleName())
                 + " outlook=" + outlook
-                + " tetQueue=" + tetQueue
+                + " tetQueue=" + getTypes()
                 + " tf=" + (tf == null ? "null" : tf.getClass().getSimpleName());
     }
 }
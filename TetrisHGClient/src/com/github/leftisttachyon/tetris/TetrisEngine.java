@@ -0,0 +1,1759 @@
+package com.github.leftisttachyon.tetris;
+
+import com.github.leftisttachyon.tetris.tetrominos.TetT;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
+import com.github.leftisttachyon.tetris.tetrominos.ars.ARSSpinSystem;
+import com.github.leftisttachyon.tetris.tetrominos.ars.ARSTetrominoFactory;
+import com.github.leftisttachyon.tetris.tetrominos.nes.NESSpinSystem;
+import com.github.leftisttachyon.tetris.tetrominos.nes.NESTetrominoFactory;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
+import com.github.leftisttachyon.tetris.tetrominos.srs.SRSSpinSystem;
+import com.github.leftisttachyon.tetris.tetrominos.srs.SRSTetrominoFactory;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.github.leftisttachyon.tetris.MinoStyle.*;
+
+/**
+ * The rules of a game of Tetris, without any painting or networking. An
+ * authoritative engine plays the game from the player's input and reports
+ * what happened to an EngineListener; a mirror engine reproduces the same game
+ * from those events through its {@code apply} methods. All randomness comes
+ * from a seedable Random, so that two engines given the same seed and the same
+ * input play out identically.
+ *
+ * @author Jed Wang
+ * @see EngineListener
+ * @since 1.0.0
+ */
+public class TetrisEngine implements Playfield {
+
+    /**
+     * The amount of frames to delay blocks falling down after a line clear.
+     */
+    private int lineClearDelay = 25;
+
+    /**
+     * ARE after a line clear; amount of frames to pause the tetromino coming
+     * in.
+     */
+    private int lineClearARE = 25;
+
+    /**
+     * ARE without a line clear; amount of frames to pause the tetromino coming
+     * in.
+     */
+    private int standardARE = 25;
+
+    /**
+     * The amount of frames while touching the ground until the tetromino locks
+     * down.
+     */
+    private int lockDelay = 30;
+
+    /**
+     * The amount of rows in the matrix, including the ones above the visible
+     * playing field
+     */
+    public static final int MATRIX_HEIGHT = 40;
+
+    /**
+     * The amount of columns in the matrix
+     */
+    public static final int MATRIX_WIDTH = 10;
+
+    /**
+     * The amount of wall bits on the right side of each row bitmask. Column
+     * {@code c} of a row is stored at bit {@code c + WALL_PAD}.
+     *
+     * @see #getRow(int)
+     */
+    public static final int WALL_PAD = 8;
+
+    /**
+     * The column a tetromino comes in at
+     */
+    public static final int SPAWN_X = 3;
+
+    /**
+     * The row a tetromino comes in at, unless something is in the way
+     */
+    public static final int SPAWN_Y = 19;
+
+    /**
+     * The bitmask of an empty row: only the wall bits on either side are set
+     */
+    private static final int EMPTY_ROW = ~(((1 << MATRIX_WIDTH) - 1) << WALL_PAD);
+
+    /**
+     * The bitmask of a full row: every column and every wall bit is set
+     */
+    private static final int FULL_ROW = -1;
+
+    /**
+     * A bitmask of cleared lines; bit {@code r} is set if row {@code r} is
+     * going to be cleared
+     */
+    private long linesToClear;
+
+    /**
+     * The occupancy of the matrix; one bitmask per row, padded with wall bits
+     * on either side
+     *
+     * @see #WALL_PAD
+     */
+    private final int[] rows;
+
+    /**
+     * The colors of the minos in the matrix. A cell is nonzero if and only if
+     * the corresponding bit in {@code rows} is set.
+     */
+    private final int[][] colors;
+
+    /**
+     * Counts changes to the blocks of the matrix, so that whoever draws it can
+     * tell whether a drawing of it is still up to date
+     */
+    private int boardVersion;
+
+    /**
+     * The internal TetQueue for this engine
+     */
+    private final TetQueue<Tetromino> queue;
+
+    /**
+     * The internal TetrominoFactory for this engine
+     */
+    private TetrominoFactory factory;
+
+    /**
+     * The internal SpinSystem used for rotating tetrominos for this engine
+     */
+    private SpinSystem spinSystem;
+
+    /**
+     * The currently falling tetromino
+     */
+    private Tetromino currentTet;
+
+    /**
+     * The current tetromino being held. Null represents no tetromino being held
+     */
+    private Tetromino holdTet;
+
+    /**
+     * Whether this engine is in a game or not
+     */
+    private boolean inGame;
+
+    /**
+     * Whether hold is avaliable
+     */
+    private boolean holdAvaliable;
+
+    /**
+     * The last action that moved the current tetromino, or null if it has
+     * not been moved since it last fell
+     */
+    private GameAction lastMove;
+
+    /**
+     * +2 kick?
+     */
+    private boolean bigSpin;
+
+    /**
+     * The combo
+     */
+    private int combo;
+
+    /**
+     * Stores back to back bonus
+     */
+    private boolean back2Back;
+
+    /**
+     * The GarbageManager for this engine
+     */
+    private GarbageManager garbageManager;
+
+    /**
+     * Whether this engine plays the game itself (true) or only mirrors the
+     * events of another engine (false)
+     */
+    private final boolean authoritative;
+
+    /**
+     * The source of all randomness in this engine: garbage holes, and the
+     * seed of the bags
+     */
+    private final Random random;
+
+    /**
+     * The listener that is told about everything an authoritative engine does
+     */
+    private EngineListener listener = new EngineListener() {
+    };
+
+    /**
+     * The holes of the garbage placed by {@link #placeGarbage()}; reused
+     * between calls.
+     */
+    private int[] garbageHoles = new int[8];
+
+    /**
+     * Creates a new TetrisEngine with an unpredictable seed.
+     *
+     * @param authoritative whether this engine plays the game itself rather
+     * than mirroring another one
+     */
+    public TetrisEngine(boolean authoritative) {
+        this(authoritative, new Random());
+    }
+
+    /**
+     * Creates a new TetrisEngine with the given seed.
+     *
+     * @param authoritative whether this engine plays the game itself rather
+     * than mirroring another one
+     * @param seed the seed of all of the randomness in this engine
+     */
+    public TetrisEngine(boolean authoritative, long seed) {
+        this(authoritative, new Random(seed));
+    }
+
+    /**
+     * Creates a new TetrisEngine that uses the given Random.
+     *
+     * @param authoritative whether this engine plays the game itself rather
+     * than mirroring another one
+     * @param random the source of all of the randomness in this engine
+     */
+    private TetrisEngine(boolean authoritative, Random random) {
+        this.authoritative = authoritative;
+        this.random = random;
+        rows = new int[MATRIX_HEIGHT];
+        colors = new int[MATRIX_HEIGHT][MATRIX_WIDTH];
+        clearMatrix();
+        queue = new TetQueue<>(authoritative);
+        queue.setSeed(random.nextLong());
+        queue.setBagListener(bag -> listener.bagGenerated(bag));
+        factory = null;
+        spinSystem = null;
+        currentTet = null;
+        holdTet = null;
+        inGame = false;
+        holdAvaliable = false;
+        linesToClear = 0;
+        gravity = 0.015625;
+        lastMove = null;
+        bigSpin = false;
+        combo = -1;
+        back2Back = false;
+        garbageManager = new GarbageManager();
+        gravityCnt = 0;
+        gravityNum = -1;
+        lockCnt = 0;
+    }
+
+    /**
+     * Determines whether this engine plays the game itself or only mirrors
+     * the events of another engine.
+     *
+     * @return whether this engine is authoritative
+     */
+    public boolean isAuthoritative() {
+        return authoritative;
+    }
+
+    /**
+     * Determines whether the current tetromino can still be held
+     *
+     * @return whether hold is available
+     */
+    public boolean isHoldAvailable() {
+        return holdAvaliable;
+    }
+
+    /**
+     * Sets the listener that is told about everything this engine does.
+     *
+     * @param listener the EngineListener to use from now on
+     */
+    public void setEngineListener(EngineListener listener) {
+        this.listener = listener == null ? new EngineListener() {
+        } : listener;
+    }
+
+    /**
+     * Reseeds the randomness of this engine, so that the garbage holes and
+     * bags from now on are determined by the given seed.
+     *
+     * @param seed the new seed
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+        queue.setSeed(random.nextLong());
+    }
+
+    /**
+     * Reseeds only the bags of this engine. Every engine in a match is given
+     * the same seed by the server, so that every player gets the same
+     * tetrominos in the same order, and a mirror makes the same tetrominos as
+     * the engine it mirrors without being told them.
+     *
+     * @param seed the seed of the bags
+     */
+    public void setPieceSeed(long seed) {
+        queue.setSeed(seed);
+    }
+
+    /**
+     * Picks the randomizer that decides the order of the tetrominos of this
+     * engine, instead of the one of its TetrominoFactory. It is given the
+     * Random of the piece seed, so engines with the same seed and the same
+     * randomizer still make the same tetrominos. The server's copies of a
+     * match use the randomizer of the TetrominoFactory.
+     *
+     * @param creator what creates the Randomizer from the Random of the piece
+     * seed, like {@code random -> new BagRandomizer(random, 2)}, or null to
+     * use the Randomizer of the TetrominoFactory
+     * @see TetrominoFactory#createRandomizer(Random)
+     */
+    public void setRandomizer(Function<Random, ? extends Randomizer> creator) {
+        queue.setRandomizer(creator);
+    }
+
+    /**
+     * Returns the source of the garbage holes of this engine
+     *
+     * @return the Random used by this engine
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the currently used TetrominoFactory to the given one.
+     *
+     * @param factory the TetrominoFactory to use from now on
+     */
+    public void setTetrominoFactory(TetrominoFactory factory) {
+        this.factory = factory;
+        queue.setTetrominoFactory(factory);
+    }
+
+    /**
+     * Returns the currently used TetrominoFactory
+     *
+     * @return the currently used TetrominoFactory
+     */
+    public TetrominoFactory getTetrominoFactory() {
+        return factory;
+    }
+
+    /**
+     * Sets the currently used SpinSystem to the given name
+     *
+     * @param spinSystem the SpinSystem to use from now on
+     */
+    public void setSpinSystem(SpinSystem spinSystem) {
+        this.spinSystem = spinSystem;
+    }
+
+    /**
+     * Returns the currently used SpinSystem
+     *
+     * @return the SpinSystem currently being used
+     */
+    public SpinSystem getSpinSystem() {
+        return spinSystem;
+    }
+
+    /**
+     * Returns the internally stored TetQueue
+     *
+     * @return the internally stored TetQueue
+     */
+    public TetQueue<?> getQueue() {
+        return queue;
+    }
+
+    /**
+     * Returns the currently falling tetromino
+     *
+     * @return the currently falling tetromino, or null if there is none
+     */
+    public Tetromino getCurrentTetromino() {
+        return currentTet;
+    }
+
+    /**
+     * Returns the tetromino currently being held
+     *
+     * @return the tetromino currently being held, or null if there is none
+     */
+    public Tetromino getHoldTetromino() {
+        return holdTet;
+    }
+
+    /**
+     * Returns a number that changes whenever a block of the matrix changes:
+     * when a tetromino locks, lines clear, garbage comes in, the player dies,
+     * the server corrects the matrix or the engine is reset. The falling
+     * tetromino is not part of the matrix.
+     *
+     * @return the version of the blocks of the matrix
+     */
+    public int getBoardVersion() {
+        return boardVersion;
+    }
+
+    @Override
+    public int getBlock(int r, int c) {
+        if (r < 0 || r >= MATRIX_HEIGHT || c < 0 || c >= MATRIX_WIDTH) {
+            return WALL;
+        } else {
+            return colors[r][c];
+        }
+    }
+
+    /**
+     * Determines whether the block/mino at the specified row and column is
+     * filled in. Anything out of bounds counts as filled in.
+     *
+     * @param r the row of the matrix to check
+     * @param c the column of the matrix to check
+     * @return whether the given block is filled in
+     */
+    public boolean isOccupied(int r, int c) {
+        int bit = c + WALL_PAD;
+        if (r < 0 || r >= MATRIX_HEIGHT || bit < 0 || bit >= Integer.SIZE) {
+            return true;
+        }
+        return (rows[r] >>> bit & 1) != 0;
+    }
+
+    /**
+     * Returns the occupancy of a row of the matrix as a bitmask: bit
+     * {@code c + WALL_PAD} is set if column {@code c} is filled in, and every
+     * bit outside of the matrix is set.
+     *
+     * @param r the row of the matrix
+     * @return the bitmask of the row
+     * @see #WALL_PAD
+     */
+    public int getRow(int r) {
+        return rows[r];
+    }
+
+    /**
+     * Determines whether the given 4x4 tetromino state, with its top left
+     * corner placed at (x, y), would overlap any filled in block or go out of
+     * bounds.
+     *
+     * @param state the 4x4 state of the tetromino
+     * @param x the column of the top left corner of the state
+     * @param y the row of the top left corner of the state
+     * @return whether the state intersects with this matrix
+     */
+    public boolean intersects(int[][] state, int x, int y) {
+        for (int j = 0; j < state.length; j++) {
+            int[] row = state[j];
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] > 0 && isOccupied(y + j, x + i)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc} Each row is tested with a single shift and AND against the
+     * occupancy of the matrix.
+     */
+    @Override
+    public boolean intersects(int[] masks, int x, int y) {
+        int shift = x + WALL_PAD;
+        if (shift < 0 || shift > Integer.SIZE - 4) {
+            return true;
+        }
+
+        for (int j = 0; j < masks.length; j++) {
+            int mask = masks[j];
+            if (mask != 0) {
+                int r = y + j;
+                if (r < 0 || r >= MATRIX_HEIGHT
+                        || (rows[r] & mask << shift) != 0) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Sets the block/mino at the specified row and column to the given color,
+     * keeping the occupancy bitmasks in sync.
+     *
+     * @param r the row of the block to set
+     * @param c the column of the block to set
+     * @param color the new color of the block
+     */
+    private void setBlock(int r, int c, int color) {
+        boardVersion++;
+        colors[r][c] = color;
+        if (color == EMPTY) {
+            rows[r] &= ~(1 << (c + WALL_PAD));
+        } else {
+            rows[r] |= 1 << (c + WALL_PAD);
+        }
+    }
+
+    /**
+     * Empties out every row of the matrix.
+     */
+    private void clearMatrix() {
+        for (int r = 0; r < MATRIX_HEIGHT; r++) {
+            clearLine(r);
+        }
+    }
+
+    /**
+     * Copies a portion of the internal matrix to a new matrix. Uses
+     * {@code getBlock} to determine the value of each block.
+     *
+     * @param r the row of the top left corner
+     * @param c the column of the top left corner
+     * @param w the width of the wanted matrix
+     * @param h the height of the wanted matrix
+     * @return the copied portion of the matrix
+     * @see #getBlock(int, int)
+     */
+    public int[][] getSection(int r, int c, int w, int h) {
+        int[][] output = new int[w][h];
+        for (int i = 0; i < w; i++) {
+            for (int j = 0; j < h; j++) {
+                output[i][j] = getBlock(r + i, c + j);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Counts how many of the four blocks diagonal to the center of a T are
+     * filled in; a T that rotated into place with at least three is a T-spin.
+     *
+     * @param tee the T
+     * @param field what the T is in
+     * @return how many corners are filled in
+     */
+    public static int countCorners(TetT tee, Playfield field) {
+        Point center = tee.getCenter();
+        int x = tee.getX() + center.y, y = tee.getY() + center.x;
+        int corners = 0;
+        if (field.getBlock(y - 1, x + 1) != 0) {
+            corners++;
+        }
+        if (field.getBlock(y + 1, x + 1) != 0) {
+            corners++;
+        }
+        if (field.getBlock(y - 1, x - 1) != 0) {
+            corners++;
+        }
+        if (field.getBlock(y + 1, x - 1) != 0) {
+            corners++;
+        }
+        return corners;
+    }
+
+    /**
+     * Puts a tetromino where it comes in: unrotated at the spawn position, or
+     * up to two rows higher if something is in the way.
+     *
+     * @param t the tetromino to put in place
+     * @param field what the tetromino comes into
+     */
+    public static void spawn(Tetromino t, Playfield field) {
+        t.setRotation(Tetromino.UP);
+        t.setX(SPAWN_X);
+        t.setY(SPAWN_Y);
+        for (int i = 0; i < 2 && t.intersects(field); i++) {
+            t.moveDown(-1);
+        }
+    }
+
+    /**
+     * Resets the parameters of a tetromino so that it is ready to become
+     * active.
+     *
+     * @param t the tetromino to activate
+     */
+    private void activate(Tetromino t) {
+        spawn(t, this);
+
+        lockDelayCnt = lockDelay;
+        lastMove = null;
+        bigSpin = false;
+    }
+
+    /**
+     * Executes the actions in the given bitmask.
+     *
+     * @param actions a bitmask of the actions that should be executed
+     * @see GameAction#getMask()
+     */
+    public void executeActions(int actions) {
+        if (!inGame) {
+            return;
+        }
+
+        if (GameAction.HARD_DROP.isIn(actions)) {
+            if (currentTet != null) {
+                hardDrop();
+            }
+        } else if (GameAction.SONIC_DROP.isIn(actions)) {
+            if (currentTet != null) {
+                sonicDrop();
+            }
+        } else if (GameAction.SOFT_DROP.isIn(actions)) {
+            if (currentTet != null) {
+                softDrop();
+            }
+        }
+
+        if (GameAction.HOLD.isIn(actions) && currentTet != null) {
+            hold();
+        }
+
+        if (GameAction.ROTATE_LEFT.isIn(actions)) {
+            if (spinSystem == null) {
+                System.err.println("No spin system installed, cannot rotate left");
+            } else if (currentTet != null) {
+                int prevY = currentTet.getY();
+                spinSystem.rotateLeft(currentTet, this);
+                bigSpin = currentTet.getY() - prevY == 2;
+                lastMove = GameAction.ROTATE_LEFT;
+            }
+        }
+
+        if (GameAction.ROTATE_RIGHT.isIn(actions)) {
+            if (spinSystem == null) {
+                System.err.println("No spin system installed, cannot rotate right");
+            } else if (currentTet != null) {
+                int prevY = currentTet.getY();
+                spinSystem.rotateRight(currentTet, this);
+                bigSpin = currentTet.getY() - prevY == 2;
+                lastMove = GameAction.ROTATE_RIGHT;
+            }
+        }
+
+        if (GameAction.MOVE_LEFT.isIn(actions)
+                && currentTet != null
+                && !currentTet.intersects(this, -1, 0)) {
+            currentTet.moveLeft();
+            lastMove = GameAction.MOVE_LEFT;
+        }
+
+        if (GameAction.MOVE_RIGHT.isIn(actions)
+                && currentTet != null
+                && !currentTet.intersects(this, 1, 0)) {
+            currentTet.moveRight();
+            lastMove = GameAction.MOVE_RIGHT;
+        }
+
+        if (authoritative && actions != 0) {
+            listener.actionsExecuted(actions);
+        }
+    }
+
+    /**
+     * Moves the current tetromino the given amount of times in one direction,
+     * or as far as it goes. Where it stops is found with a sweep over the
+     * occupancy of the matrix instead of by testing every step. Each step is
+     * told to the listener as its own action, so that a mirror ends up in the
+     * same place by executing them.
+     *
+     * @param action {@link GameAction#MOVE_LEFT},
+     * {@link GameAction#MOVE_RIGHT} or {@link GameAction#SOFT_DROP}
+     * @param times how many times to move, or {@link Integer#MAX_VALUE} to
+     * move as far as the tetromino goes
+     * @return how many times the tetromino moved
+     */
+    public int shift(GameAction action, int times) {
+        if (!inGame || currentTet == null || times <= 0) {
+            return 0;
+        }
+
+        int distance;
+        switch (action) {
+            case MOVE_LEFT:
+                distance = Math.min(times, reach(-1));
+                currentTet.transform(-distance, 0);
+                break;
+            case MOVE_RIGHT:
+                distance = Math.min(times, reach(1));
+                currentTet.transform(distance, 0);
+                break;
+            case SOFT_DROP:
+                distance = 0;
+                while (distance < times
+                        && !currentTet.intersects(this, 0, distance + 1)) {
+                    distance++;
+                }
+                currentTet.transform(0, distance);
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot shift with "
+                        + action);
+        }
+
+        if (distance > 0) {
+            lastMove = action;
+            if (authoritative) {
+                for (int i = 0; i < distance; i++) {
+                    listener.actionsExecuted(action.getMask());
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Finds how many columns the current tetromino can move sideways before
+     * it hits something. Each row of a tetromino is a single run of minos, so
+     * in each row only the nearest filled in bit past the end of the run
+     * matters; the walls are filled in bits too.
+     *
+     * @param direction -1 for left, 1 for right
+     * @return how many columns the current tetromino can move
+     */
+    private int reach(int direction) {
+        int[] masks = currentTet.getMask();
+        int shift = currentTet.getX() + WALL_PAD;
+        int y = currentTet.getY();
+        int reach = MATRIX_WIDTH;
+        for (int j = 0; j < masks.length; j++) {
+            if (masks[j] == 0) {
+                continue;
+            }
+            int piece = masks[j] << shift, row = rows[y + j];
+            int free;
+            if (direction < 0) {
+                int end = Integer.numberOfTrailingZeros(piece);
+                int blocked = row & ((1 << end) - 1);
+                free = end - (31 - Integer.numberOfLeadingZeros(blocked)) - 1;
+            } else {
+                int end = 31 - Integer.numberOfLeadingZeros(piece);
+                int blocked = end == 31 ? 0 : row & -(2 << end);
+                free = blocked == 0 ? 31 - end
+                        : Integer.numberOfTrailingZeros(blocked) - end - 1;
+            }
+            reach = Math.min(reach, free);
+        }
+        return reach;
+    }
+
+    /**
+     * Swaps the currently held tetromino with the active one. If there is no
+     * tetromino being held, the active tetromino becomes held and the next
+     * tetromino in the queue becomes active.
+     */
+    private void hold() {
+        if (holdAvaliable) {
+            if (holdTet == null) {
+                holdTet = currentTet;
+                currentTet = queue.removeTetromino(holdTet, lockingTet);
+                activate(currentTet);
+            } else {
+                Tetromino temp = holdTet;
+                holdTet = currentTet;
+                activate(temp);
+                currentTet = temp;
+            }
+
+            holdAvaliable = false;
+        }
+    }
+
+    /**
+     * Hard drops the currently active piece (which is locking, consistent with
+     * SRS rules) and makes the next piece in the queue active.
+     */
+    private void hardDrop() {
+        sonicDrop();
+        lock();
+    }
+
+    /**
+     * Soft drops the currently active piece downwards once. This action is not
+     * locking, consistent with SRS rules.
+     */
+    private void softDrop() {
+        if (!currentTet.intersects(this, 0, 1)) {
+            currentTet.moveDown();
+            lastMove = GameAction.SOFT_DROP;
+        } else if (spinSystem.getType().equals("ARS")) {
+            lock();
+        }
+    }
+
+    /**
+     * Sonic drops the currently active piece. This action is not locking,
+     * consistent with the TGM series.
+     */
+    private void sonicDrop() {
+        while (!currentTet.intersects(this, 0, 1)) {
+            currentTet.moveDown();
+        }
+    }
+
+    /**
+     * The tetromino currently being locked
+     */
+    private Tetromino lockingTet = null;
+
+    /**
+     * A counter for lock flash
+     */
+    private int lockFlashCnt = -1;
+
+    /**
+     * Locks the current piece to the playing field and sets flags for the
+     * animation and piece change.
+     */
+    private void lock() {
+        int[][] temp = currentTet.getState();
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                if (temp[i][j] > 0) {
+                    setBlock(i + currentTet.getY(), j + currentTet.getX(),
+                            GREY);
+                }
+            }
+        }
+
+        lockingTet = currentTet;
+        currentTet = null;
+        holdAvaliable = false;
+
+        for (int i = 0; i < MATRIX_HEIGHT; i++) {
+            if (isLineFull(i)) {
+                linesToClear |= 1L << i;
+            }
+        }
+
+        if (linesToClear == 0) {
+            pauseAnimationCnt = standardARE + 1;
+        } else {
+            pauseAnimationCnt = lineClearDelay + 1;
+        }
+        lockFlashCnt = 5;
+
+        if (++lockCnt == 10 && gravityNum < GRAVITY.length - 1) {
+            gravity = GRAVITY[++gravityNum];
+            lockCnt = 0;
+        }
+    }
+
+    /**
+     * Finishes locking the tetromino that is currently flashing: colors it in,
+     * clears full lines, sends garbage and places any garbage that is left
+     * over.
+     */
+    private void resolveLock() {
+        int linesToSend = linesToSend();
+
+        int[][] temp = lockingTet.getState();
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                if (temp[i][j] > 0) {
+                    setBlock(i + lockingTet.getY(),
+                            j + lockingTet.getX(), temp[i][j]);
+                }
+            }
+        }
+
+        for (long l = linesToClear; l != 0; l &= l - 1) {
+            clearLine(Long.numberOfTrailingZeros(l));
+        }
+
+        if (isClear()) {
+            linesToSend += 7;
+        }
+
+        lockingTet = null;
+        lockFlashCnt = -1;
+
+        int through = garbageManager.counterGarbage(linesToSend);
+        if (through != 0) {
+            if (sendGarbo != null) {
+                sendGarbo.accept(through);
+            }
+        }
+
+        placeGarbage();
+    }
+
+    /**
+     * Cuts the lock flash short, if a tetromino is still flashing. A mirror
+     * calls this before applying anything that the authoritative engine could
+     * only have done after the flash was over.
+     */
+    public void settleLock() {
+        if (lockingTet != null) {
+            resolveLock();
+        }
+    }
+
+    /**
+     * Adds a bag of tetrominos
+     *
+     * @param bag the bag of tetrominos to add
+     */
+    public void addBag(String bag) {
+        queue.addBag(bag);
+    }
+
+    /**
+     * Starts gameplay on this engine.
+     */
+    public void startGame() {
+        currentTet = queue.removeTetromino(holdTet, lockingTet);
+        activate(currentTet);
+        inGame = true;
+        holdAvaliable = true;
+    }
+
+    /**
+     * Ends gameplay on this engine.
+     */
+    public void endGame() {
+        currentTet = null;
+        inGame = false;
+    }
+
+    /**
+     * Resets this engine to starting conditions.
+     */
+    public void reset() {
+        currentTet = null;
+        queue.clearQueue();
+        clearMatrix();
+        inGame = false;
+        holdAvaliable = false;
+        gravity = 0.015625;
+        lineClearARE = 25;
+        standardARE = 25;
+        lineClearDelay = 40;
+        linesToClear = 0;
+        lockDelay = 30;
+        lockDelayCnt = 30;
+        lockFlashCnt = -1;
+        lockingTet = null;
+        pauseAnimationCnt = -1;
+        previousY = -1;
+        lastMove = null;
+        bigSpin = false;
+        combo = -1;
+        back2Back = false;
+        garbageManager.reset();
+        gravityCnt = 0;
+        gravityNum = -1;
+        lockCnt = 0;
+    }
+
+    /**
+     * An internal level counter
+     */
+    private int lockCnt;
+
+    /**
+     * The entry in the gravity table currently on
+     */
+    private int gravityNum;
+
+    /**
+     * An array of the progression of gravity
+     */
+    private static final double[] GRAVITY = {
+        0.015625, 0.0234375, 0.03125, 0.0390625, 0.046875, 0.0625, 0.125,
+        0.1875, 0.25, 0.3125, 0.375, 0.4375, 0.5, 0.5625, 0.015625, 0.125,
+        0.25, 0.375, 0.5, 0.625, 0.75, 0.875, 1, 2, 3, 4, 5, 4, 3, 20
+    };
+
+    /**
+     * The amount of gravity per frame
+     */
+    private double gravity;
+
+    /**
+     * A counter for gravity
+     */
+    private double gravityCnt;
+
+    /**
+     * A counter for a pause
+     */
+    private int pauseAnimationCnt = -1;
+
+    /**
+     * The lock delay counter
+     */
+    private int lockDelayCnt = lockDelay;
+
+    /**
+     * The previous Y value
+     */
+    private int previousY = -1;
+
+    /**
+     * Called when player dies.
+     */
+    private void die() {
+        if (currentTet != null) {
+            int[][] temp = currentTet.getState();
+            for (int i = 0; i < 4; i++) {
+                for (int j = 0; j < 4; j++) {
+                    if (temp[i][j] > 0) {
+                        setBlock(i + currentTet.getY(), j + currentTet.getX(),
+                                temp[i][j]);
+                    }
+                }
+            }
+            currentTet = null;
+            holdAvaliable = false;
+        }
+        inGame = false;
+
+        holdAvaliable = false;
+
+        onDeath();
+
+        if (sendGarbo != null) {
+            sendGarbo.accept(-1);
+        }
+    }
+
+    /**
+     * Called when the player tops out, after the game has ended but before the
+     * garbage consumer is told. Does nothing by default.
+     */
+    protected void onDeath() {
+    }
+
+    /**
+     * Determines if this matrix is empty
+     *
+     * @return if this matrix is empty
+     */
+    private boolean isClear() {
+        for (int row : rows) {
+            if (row != EMPTY_ROW) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advances a frame.
+     *
+     * @param input the state of the player's controls; only used by an
+     * authoritative engine
+     */
+    public void advanceFrame(InputState input) {
+        if (lockingTet != null) {
+            // lockFlashCnt >= 0
+            if (lockFlashCnt > 0) {
+                lockFlashCnt--;
+            } else {
+                resolveLock();
+            }
+        }
+
+        if (pauseAnimationCnt >= 0 && authoritative) {
+            pauseAnimationCnt--;
+        }
+
+        if (pauseAnimationCnt == 0) {
+            if (authoritative) {
+                listener.pauseEnded();
+            }
+
+            pause0(input);
+        }
+
+        if (currentTet != null) {
+            if (authoritative) {
+                processGravity(input);
+            }
+
+            if (currentTet.intersects(this, 0, 1)
+                    && previousY == currentTet.getY()) {
+                if (authoritative && lockDelayCnt == 0) {
+                    lockDelayCnt = lockDelay;
+                    listener.locked(currentTet.getX(), currentTet.getY(),
+                            currentTet.getRotation());
+                    lock();
+                }
+
+                if (lockDelay > 0) {
+                    lockDelayCnt--;
+                }
+            } else {
+                lockDelayCnt = lockDelay;
+            }
+        }
+
+        if (currentTet == null) {
+            previousY = -1;
+        } else {
+            previousY = currentTet.getY();
+        }
+    }
+
+    /**
+     * Places garbage at the bottom of the matrix, randomizing the holes and
+     * also notifying the listener that this matrix just took garbage.
+     */
+    private void placeGarbage() {
+        if (authoritative && !garbageManager.isEmpty()) {
+            int total = 0, count = 0;
+            while (true) {
+                int newG = garbageManager.peekGarbage();
+                if (newG == 0) {
+                    break;
+                }
+
+                if (total != 0 && (total += newG) >= 5) {
+                    break;
+                }
+                garbageManager.pollGarbage();
+
+                int hole = random.nextInt(MATRIX_WIDTH);
+                for (int i = 0; i < newG; i++) {
+                    if (random.nextDouble() > 0.8) {
+                        hole = random.nextInt(MATRIX_WIDTH);
+                    }
+
+                    addGarbage(hole);
+                    if (count == garbageHoles.length) {
+                        garbageHoles = Arrays.copyOf(garbageHoles, count * 2);
+                    }
+                    garbageHoles[count++] = hole;
+                }
+            }
+
+            listener.garbagePlaced(garbageHoles, count);
+        }
+    }
+
+    /**
+     * Enters the next tetromino with the given parameters.
+     *
+     * @param left whether to rotate left
+     * @param right whether to rotate right
+     * @param hold whether to hold
+     */
+    private void enter(boolean left, boolean right, boolean hold) {
+        currentTet = queue.removeTetromino(holdTet, lockingTet);
+        activate(currentTet);
+
+        if (left && spinSystem != null) {
+            // currentTet.rotateLeft();
+            spinSystem.rotateLeft(currentTet, this);
+        }
+        if (right && spinSystem != null) {
+            // currentTet.rotateRight();
+            spinSystem.rotateRight(currentTet, this);
+        }
+        holdAvaliable = true;
+        if (hold) {
+            hold();
+        }
+
+        pauseAnimationCnt = -1;
+
+        if (currentTet.intersects(this)) {
+            die();
+        }
+    }
+
+    /**
+     * Mirrors the current tetromino locking by itself at the given position.
+     *
+     * @param x the x coordinate of the tetromino
+     * @param y the y coordinate of the tetromino
+     * @param rotation the rotation state of the tetromino
+     * @see EngineListener#locked(int, int, int)
+     */
+    public void applyLock(int x, int y, int rotation) {
+        if (inGame && currentTet != null) {
+            currentTet.setX(x);
+            currentTet.setY(y);
+            currentTet.setRotation(rotation);
+            lock();
+        }
+    }
+
+    /**
+     * Mirrors the next tetromino entering the matrix.
+     *
+     * @param left whether it was rotated left on entry
+     * @param right whether it was rotated right on entry
+     * @param hold whether it was held on entry
+     * @see EngineListener#entered(boolean, boolean, boolean)
+     */
+    public void applyEnter(boolean left, boolean right, boolean hold) {
+        if (inGame) {
+            settleLock();
+            enter(left, right, hold);
+        }
+    }
+
+    /**
+     * Mirrors a row of garbage being placed at the bottom of the matrix.
+     *
+     * @param hole the empty column of the row of garbage
+     * @see EngineListener#garbagePlaced(int[], int)
+     */
+    public void applyGarbage(int hole) {
+        if (inGame) {
+            settleLock();
+            addGarbage(hole);
+            garbageManager.counterGarbage(1);
+        }
+    }
+
+    /**
+     * Mirrors gravity moving the current tetromino down.
+     *
+     * @param rows the amount of rows the tetromino moved down
+     * @see EngineListener#gravityApplied(int)
+     */
+    public void applyGravity(int rows) {
+        if (inGame && currentTet != null) {
+            currentTet.moveDown(rows);
+        }
+    }
+
+    /**
+     * Mirrors the pause after a lock or a line clear running out.
+     *
+     * @see EngineListener#pauseEnded()
+     */
+    public void applyPauseEnded() {
+        if (inGame) {
+            settleLock();
+            pauseAnimationCnt = 0;
+            pause0(null);
+        }
+    }
+
+    /**
+     * Overwrites the matrix with the given one, after settling any tetromino
+     * that is still flashing. This is how the server corrects a player whose
+     * matrix no longer agrees with the server's copy of it.
+     *
+     * @param linesToClear a bitmask of the lines that are going to be cleared
+     * @param matrix the color of every block of the matrix, one digit per
+     * block, row by row
+     * @see #getMatrixString()
+     */
+    public void applySync(long linesToClear, String matrix) {
+        if (matrix.length() != MATRIX_HEIGHT * MATRIX_WIDTH) {
+            throw new IllegalArgumentException("Invalid matrix of length "
+                    + matrix.length());
+        }
+
+        settleLock();
+
+        for (int r = 0, i = 0; r < MATRIX_HEIGHT; r++) {
+            for (int c = 0; c < MATRIX_WIDTH; c++, i++) {
+                setBlock(r, c, matrix.charAt(i) - '0');
+            }
+        }
+        this.linesToClear = linesToClear;
+    }
+
+    /**
+     * Returns the color of every block of the matrix, one digit per block, row
+     * by row.
+     *
+     * @return a String representation of the matrix
+     * @see #applySync(long, java.lang.String)
+     */
+    public String getMatrixString() {
+        StringBuilder output = new StringBuilder(MATRIX_HEIGHT * MATRIX_WIDTH);
+        for (int[] row : colors) {
+            for (int color : row) {
+                output.append((char) ('0' + color));
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Returns a bitmask of the lines that are going to be cleared; bit
+     * {@code r} is set if row {@code r} is going to be cleared
+     *
+     * @return a bitmask of the lines that are going to be cleared
+     */
+    public long getLinesToClear() {
+        return linesToClear;
+    }
+
+    /**
+     * Determines whether this engine is in a game or not
+     *
+     * @return whether this engine is in a game or not
+     */
+    public boolean isInGame() {
+        return inGame;
+    }
+
+    /**
+     * Determines whether the given row is full or not
+     *
+     * @param r the row to investigate
+     * @return whether the given row is full
+     */
+    private boolean isLineFull(int r) {
+        return rows[r] == FULL_ROW;
+    }
+
+    /**
+     * Clears the given line
+     *
+     * @param r the row to clear
+     */
+    private void clearLine(int r) {
+        boardVersion++;
+        rows[r] = EMPTY_ROW;
+        Arrays.fill(colors[r], EMPTY);
+    }
+
+    /**
+     * Sets the gravity to the given integer
+     *
+     * @param gravity the gravity to use from now on
+     */
+    public void setGravity(double gravity) {
+        this.gravity = gravity;
+    }
+
+    /**
+     * Increases gravity by the given amount
+     *
+     * @param increase the amount to increase the gravity by
+     */
+    public void increaseGravity(int increase) {
+        gravity += increase;
+    }
+
+    /**
+     * Determines how many lines should be sent to the opponent, given that the
+     * tetromino is now locked down. This method does not take into account
+     * perfect clears.
+     *
+     * @return how many lines should be sent
+     */
+    private int linesToSend() {
+        int linesToSend = 0;
+        boolean b2b;
+
+        int cleared = Long.bitCount(linesToClear);
+        if (cleared == 0) {
+            combo = -1;
+            b2b = false;
+        } else {
+            combo++;
+            b2b = back2Back;
+            back2Back = cleared == 4;
+        }
+
+        if (combo > 0) {
+            int geg = combo + 1;
+            if (geg > 10) {
+                linesToSend += 5;
+            } else if (geg > 7) {
+                linesToSend += 4;
+            } else if (geg > 5) {
+                linesToSend += 3;
+            } else if (geg > 3) {
+                linesToSend += 2;
+            } else {
+                linesToSend++;
+            }
+        }
+
+        boolean tSpin = false;
+
+        // T-spin?
+        if (lockingTet instanceof TetT
+                && (lastMove == GameAction.ROTATE_LEFT
+                || lastMove == GameAction.ROTATE_RIGHT)) {
+            TetT tee = (TetT) lockingTet;
+
+            // corners can be 4
+            if (countCorners(tee, this) >= 3) {
+                // Ok, so T-spin
+                if (cleared != 0) {
+                    back2Back = true;
+                }
+                // but mini?
+                tSpin = bigSpin || tee.filledFaceCorners(this) == 2;
+            }
+        }
+
+        switch (cleared) {
+            case 0:
+                linesToSend = 0;
+                break;
+            case 1:
+                if (tSpin) {
+                    linesToSend += 2;
+                }
+                break;
+            case 2:
+                if (tSpin) {
+                    linesToSend += 4;
+                } else {
+                    linesToSend++;
+                }
+                break;
+            case 3:
+                if (tSpin) {
+                    linesToSend += 6;
+                } else {
+                    linesToSend += 2;
+                }
+                break;
+            case 4:
+                linesToSend += 4;
+                break;
+            default:
+                assert false : "You cleared less than 0 lines or more than 4.";
+        }
+
+        if (b2b && back2Back) {
+            linesToSend++;
+        }
+
+        return linesToSend;
+    }
+
+    /**
+     * Called when the pause counter is 0. That means either enter the next
+     * piece or clear some lines.
+     *
+     * @param input the state of the player's controls
+     */
+    private void pause0(InputState input) {
+        if (linesToClear == 0) {
+            if (authoritative) {
+                boolean left = input.isPressed(GameAction.ROTATE_LEFT),
+                        right = input.isPressed(GameAction.ROTATE_RIGHT),
+                        hold = input.isPressed(GameAction.HOLD);
+                enter(left, right, hold);
+                listener.entered(left, right, hold);
+            }
+        } else {
+            int temp = MATRIX_HEIGHT - 1;
+            for (int i = temp; i >= 0; i--) {
+                if ((linesToClear >>> i & 1) == 0) {
+                    if (temp != i) {
+                        rows[temp] = rows[i];
+                        System.arraycopy(colors[i], 0,
+                                colors[temp], 0, MATRIX_WIDTH);
+                    }
+                    temp--;
+                }
+            }
+            for (; temp >= 0; temp--) {
+                clearLine(temp);
+            }
+
+            linesToClear = 0;
+
+            pauseAnimationCnt = lineClearARE;
+        }
+    }
+
+    /**
+     * Processes gravity on the piece
+     *
+     * @param input the state of the player's controls
+     */
+    private void processGravity(InputState input) {
+        if (gravity >= 1) {
+            int i;
+            for (i = 0; i < gravity
+                    && !currentTet.intersects(this, 0, 1); i++) {
+                currentTet.moveDown();
+                lastMove = null;
+            }
+
+            listener.gravityApplied(i);
+        } else {
+            if (!input.isPressed(GameAction.SOFT_DROP)
+                    && !currentTet.intersects(this, 0, 1)) {
+                gravityCnt += gravity;
+                if (gravityCnt >= 1) {
+                    currentTet.moveDown();
+                    lastMove = null;
+                    gravityCnt = 0;
+
+                    listener.gravityApplied(1);
+                }
+            } else {
+                gravityCnt = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of frames while touching the ground until the
+     * tetromino locks down
+     *
+     * @return the lock delay
+     */
+    public int getLockDelay() {
+        return lockDelay;
+    }
+
+    /**
+     * Returns how many frames are left until the current tetromino locks down
+     *
+     * @return the lock delay counter
+     */
+    public int getLockDelayCount() {
+        return lockDelayCnt;
+    }
+
+    /**
+     * Sets the line clear ARE
+     *
+     * @param lineClearARE the new line clear ARE
+     */
+    public void setLineClearARE(int lineClearARE) {
+        this.lineClearARE = lineClearARE;
+    }
+
+    /**
+     * Sets the line clear delay
+     *
+     * @param lineClearDelay the new lnie clear delay
+     */
+    public void setLineClearDelay(int lineClearDelay) {
+        this.lineClearDelay = lineClearDelay;
+    }
+
+    /**
+     * Sets ARE under normal conditions
+     *
+     * @param standardARE the new standard ARE
+     */
+    public void setStandardARE(int standardARE) {
+        this.standardARE = standardARE;
+    }
+
+    /**
+     * Sets the lock delay
+     *
+     * @param lockDelay the new lock delay
+     */
+    public void setLockDelay(int lockDelay) {
+        this.lockDelay = lockDelay;
+
+        if (lockDelayCnt > lockDelay) {
+            lockDelayCnt = lockDelay;
+        }
+    }
+
+    /**
+     * Sets the rules of the given engine to the type of the given number: 0
+     * means SRS, 1 means ARS and 2 means NES. Any other value will result in
+     * an error. The queue of the engine is emptied.
+     *
+     * @param engine the engine to configure
+     * @param type the type of the engine after this operation
+     */
+    public static void setEngineAs(TetrisEngine engine, int type) {
+        if (engine == null) {
+            return;
+        }
+
+        switch (type) {
+            case 0:
+                engine.queue.clearQueue();
+                engine.setSpinSystem(SRSSpinSystem.getSpinSystem());
+                engine.setTetrominoFactory(SRSTetrominoFactory.getTetrominoFactory());
+                break;
+            case 1:
+                engine.queue.clearQueue();
+                engine.setSpinSystem(ARSSpinSystem.getSpinSystem());
+                engine.setTetrominoFactory(ARSTetrominoFactory.getTetrominoFactory());
+                break;
+            case 2:
+                engine.queue.clearQueue();
+                engine.setSpinSystem(NESSpinSystem.getSpinSystem());
+                engine.setTetrominoFactory(NESTetrominoFactory.getTetrominoFactory());
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid parameter type with value " + type);
+        }
+    }
+
+    /**
+     * Finds the garbage multiplier of the given type of engine: players that
+     * chose a harder rotation system send more garbage.
+     *
+     * @param type the type of the engine, as in
+     * {@link #setEngineAs(TetrisEngine, int)}
+     * @return the damage multiplier
+     */
+    public static double getGarbageMultiplier(int type) {
+        switch (type) {
+            case 0:
+                return 1;
+            case 1:
+                return 1.25;
+            case 2:
+                return 1.5;
+            default:
+                throw new IllegalArgumentException("Invalid parameter type with value " + type);
+        }
+    }
+
+    /**
+     * Adds a row of garbage to the bottom of the matrix.
+     *
+     * @param emptyColumn the column that is empty in the row of garbage.
+     */
+    public void addGarbage(int emptyColumn) {
+        int[] top = colors[0];
+        System.arraycopy(rows, 1, rows, 0, MATRIX_HEIGHT - 1);
+        System.arraycopy(colors, 1, colors, 0, MATRIX_HEIGHT - 1);
+        colors[MATRIX_HEIGHT - 1] = top;
+
+        for (int i = 0; i < MATRIX_WIDTH; i++) {
+            if (i == emptyColumn) {
+                setBlock(MATRIX_HEIGHT - 1, i, EMPTY);
+            } else {
+                setBlock(MATRIX_HEIGHT - 1, i, MinoStyle.GREY);
+            }
+        }
+
+        linesToClear >>>= 1;
+
+        if (currentTet != null && currentTet.intersects(this)) {
+            currentTet.moveDown(-1);
+        }
+
+        if (lockingTet != null && lockingTet.intersects(this)) {
+            lockingTet.moveDown(-1);
+        }
+    }
+
+    /**
+     * A Consumer object that is called when garbage is to be sent.
+     */
+    private Consumer<Integer> sendGarbo = null;
+
+    /**
+     * Sets the Consumer object to call when garbage is sent.
+     *
+     * @param consumer the consumer to use from now on
+     */
+    public void setGarbageConsumer(Consumer<Integer> consumer) {
+        sendGarbo = consumer;
+    }
+
+    /**
+     * Queues garbage up for the queue
+     *
+     * @param lines the lines to queue up
+     */
+    public void queueGarbage(int lines) {
+        if (lines != 0) {
+            garbageManager.offerGarbage(lines);
+        }
+    }
+
+    /**
+     * Returns the amount of gravity this engine is using
+     *
+     * @return the amount of gravity this engine is using
+     */
+    public double getGravity() {
+        return gravity;
+    }
+
+    /**
+     * Attempts to print as much info about this object as possible.
+     */
+    public void printAllInfo() {
+        System.out.println(toString());
+        System.out.println("  Objects:");
+        System.out.printf("    currentTet:%20s%n", currentTet);
+        System.out.printf("    factory:%23s%n", factory == null ? "null"
+                : factory.getClass().getSimpleName());
+        System.out.printf("    garbageManager:%16s%n", garbageManager);
+        System.out.printf("    holdTet:%22s%n", holdTet);
+        System.out.printf("    linesToClear:%18s%n",
+                Long.toBinaryString(linesToClear));
+        System.out.printf("    lockingTet:%20s%n", lockingTet);
+        System.out.println("    matrix:");
+        for (int[] is : colors) {
+            System.out.print("    ");
+            for (int i : is) {
+                System.out.print(i);
+            }
+            System.out.println();
+        }
+        System.out.printf("    queue:%24s%n", queue);
+        System.out.printf("    sendGarbo:%21s%n", sendGarbo);
+        System.out.printf("    spinSystem:%20s%n", spinSystem == null ? "null"
+                : spinSystem.getClass().getSimpleName());
+        System.out.println("  Numbers:");
+        System.out.println("    combo:             " + combo);
+        System.out.println("    gravity:           " + gravity);
+        System.out.println("    gravityCnt:        " + gravityCnt);
+        System.out.println("    gravityNum:        " + gravityNum);
+        System.out.println("    lastMove:          " + lastMove);
+        System.out.println("    lineClearARE:      " + lineClearARE);
+        System.out.println("    lineClearDelay:    " + lineClearDelay);
+        System.out.println("    lockCnt:           " + lockCnt);
+        System.out.println("    lockDelay:         " + lockDelay);
+        System.out.println("    lockDelayCnt:      " + lockDelayCnt);
+        System.out.println("    lockFlashCnt:      " + lockFlashCnt);
+        System.out.println("    pauseAnimationCnt: " + pauseAnimationCnt);
+        System.out.println("    previousY:         " + previousY);
+        System.out.println("    standardARE:       " + standardARE);
+        System.out.println("  Booleans:");
+        System.out.println("    authoritative: " + authoritative);
+        System.out.println("    back2Back:     " + back2Back);
+        System.out.println("    bigSpin:       " + bigSpin);
+        System.out.println("    holdAvaliable: " + holdAvaliable);
+        System.out.println("    inGame:        " + inGame);
+    }
+
+    /**
+     * Returns the GarbageManager internally stored in this engine
+     *
+     * @return the GarbageManager internally stored in this engine
+     */
+    public GarbageManager getGarbageManager() {
+        return garbageManager;
+    }
+}
@@ -1,6 +1,14 @@
 package com.github.leftisttachyon.tetris;
 
+import com.github.leftisttachyon.tetris.bot.BeamSearchBot;
+import com.github.leftisttachyon.tetris.bot.Bot;
+import com.github.leftisttachyon.tetris.bot.BotPlayer;
+import com.github.leftisttachyon.tetris.bot.GreedyBot;
+import com.github.leftisttachyon.tetris.ui.TetrisFrame;
 import com.github.leftisttachyon.ui.LobbyWindow;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.JFrame;
 
 /**
  * The main class; entry point of the application
@@ -11,13 +19,27 @@ import com.github.leftisttachyon.ui.LobbyWindow;
 public class TetrisMain {
 
     /**
-     * The main method; where the application starts
+     * The main method; where the application starts. Pass {@code --active} to
+     * draw games actively instead of having Swing repaint them, and
+     * {@code --bot} to play against a bot right away instead of going to the
+     * lobby; {@code --beam-bot} plays against one that looks ahead.
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        /*TetrisFrame frame = new TetrisFrame();
-        frame.start();*/
+        List<String> options = Arrays.asList(args);
+        if (options.contains("--active")) {
+            TetrisFrame.setActiveRendering(true);
+        }
+
+        if (options.contains("--bot") || options.contains("--beam-bot")) {
+            Bot bot = options.contains("--beam-bot") ? new BeamSearchBot()
+                    : new GreedyBot();
+            TetrisFrame frame = new TetrisFrame(new BotPlayer(bot));
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.start();
+            return;
+        }
 
         LobbyWindow.run();
     }
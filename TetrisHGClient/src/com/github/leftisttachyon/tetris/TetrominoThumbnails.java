@@ -0,0 +1,128 @@
+package com.github.leftisttachyon.tetris;
+
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The boxes that show tetrominos in the piece preview and the hold box, for
+ * one MinoStyle at one width. The box of each kind of tetromino is drawn once,
+ * background and all, and then copied every time it is shown.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ * @see MinoStyle#drawTetromino(java.awt.Graphics2D, int, int, int,
+ * com.github.leftisttachyon.tetris.tetrominos.Tetromino)
+ */
+public final class TetrominoThumbnails {
+
+    /**
+     * The style the tetrominos are drawn in
+     */
+    private final MinoStyle style;
+
+    /**
+     * The width of a box
+     */
+    private final int width;
+
+    /**
+     * The height of a box: three minos
+     */
+    private final int height;
+
+    /**
+     * The boxes drawn so far, by the class of the tetromino in them; all
+     * tetrominos of a class look the same in their up state
+     */
+    private final ConcurrentHashMap<Class<?>, BufferedImage> thumbnails;
+
+    /**
+     * Creates a new, empty TetrominoThumbnails.
+     *
+     * @param style the style to draw the tetrominos in
+     * @param width the width of a box
+     */
+    TetrominoThumbnails(MinoStyle style, int width) {
+        this.style = style;
+        this.width = width;
+        height = 3 * (width / 5);
+        thumbnails = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the width of a box
+     *
+     * @return the width of a box
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of a box
+     *
+     * @return the height of a box
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Draws the box of the given tetromino.
+     *
+     * @param g2D the Graphics2D to draw with
+     * @param x the x-coordinate of the top left corner of the box
+     * @param y the y-coordinate of the top left corner of the box
+     * @param t the tetromino in the box, or null for an empty box
+     */
+    public void draw(Graphics2D g2D, int x, int y, Tetromino t) {
+        if (t == null) {
+            g2D.setColor(Color.WHITE);
+            g2D.fillRect(x, y, width, height);
+            return;
+        }
+
+        BufferedImage thumbnail = thumbnails.get(t.getClass());
+        if (thumbnail == null) {
+            thumbnail = createThumbnail(t);
+            thumbnails.putIfAbsent(t.getClass(), thumbnail);
+        }
+        g2D.drawImage(thumbnail, x, y, null);
+    }
+
+    /**
+     * Draws the box of the given tetromino.
+     *
+     * @param t the tetromino to draw
+     * @return the box of the given tetromino
+     */
+    private BufferedImage createThumbnail(Tetromino t) {
+        BufferedImage thumbnail;
+        if (GraphicsEnvironment.isHeadless()) {
+            thumbnail = new BufferedImage(width, height,
+                    BufferedImage.TYPE_INT_RGB);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            thumbnail = gc.createCompatibleImage(width, height,
+                    Transparency.OPAQUE);
+        }
+
+        Graphics2D g2D = thumbnail.createGraphics();
+        try {
+            g2D.setColor(Color.WHITE);
+            g2D.fillRect(0, 0, width, height);
+            style.drawTetromino(g2D, 0, 0, width, t);
+        } finally {
+            g2D.dispose();
+        }
+        return thumbnail;
+    }
+}
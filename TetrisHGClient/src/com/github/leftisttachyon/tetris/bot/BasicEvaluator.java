@@ -0,0 +1,123 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import static com.github.leftisttachyon.tetris.TetrisEngine.*;
+
+/**
+ * An Evaluator that adds up a few things about the board, each with a weight:
+ * how tall the columns are altogether, how many rows were cleared, how many
+ * holes are covered up and how bumpy the surface is. T-spins get a bonus for
+ * every row they clear.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class BasicEvaluator implements Evaluator {
+
+    /**
+     * The weight of the total height of all of the columns
+     */
+    private final double heightWeight;
+
+    /**
+     * The weight of the number of rows cleared
+     */
+    private final double linesWeight;
+
+    /**
+     * The weight of the number of covered up empty blocks
+     */
+    private final double holesWeight;
+
+    /**
+     * The weight of how much the heights of neighboring columns differ
+     */
+    private final double bumpinessWeight;
+
+    /**
+     * The bonus for every row a T-spin clears
+     */
+    private final double tSpinWeight;
+
+    /**
+     * Creates a new BasicEvaluator with weights that play a steady game.
+     */
+    public BasicEvaluator() {
+        this(-0.510066, 0.760666, -0.35663, -0.184483, 1.0);
+    }
+
+    /**
+     * Creates a new BasicEvaluator with the given weights.
+     *
+     * @param heightWeight the weight of the total height of the columns
+     * @param linesWeight the weight of the number of rows cleared
+     * @param holesWeight the weight of the number of holes
+     * @param bumpinessWeight the weight of the bumpiness of the surface
+     * @param tSpinWeight the bonus for every row a T-spin clears
+     */
+    public BasicEvaluator(double heightWeight, double linesWeight,
+            double holesWeight, double bumpinessWeight, double tSpinWeight) {
+        this.heightWeight = heightWeight;
+        this.linesWeight = linesWeight;
+        this.holesWeight = holesWeight;
+        this.bumpinessWeight = bumpinessWeight;
+        this.tSpinWeight = tSpinWeight;
+    }
+
+    @Override
+    public double evaluate(Board board, int linesCleared, boolean tSpin) {
+        return heightWeight * getAggregateHeight(board)
+                + linesWeight * linesCleared
+                + holesWeight * countHoles(board)
+                + bumpinessWeight * getBumpiness(board)
+                + (tSpin ? tSpinWeight * linesCleared : 0);
+    }
+
+    /**
+     * Adds up the heights of every column.
+     *
+     * @param board the board
+     * @return the total height of the columns
+     */
+    public static int getAggregateHeight(Board board) {
+        int total = 0;
+        for (int c = 0; c < MATRIX_WIDTH; c++) {
+            total += board.getColumnHeight(c);
+        }
+        return total;
+    }
+
+    /**
+     * Counts the empty blocks that have a filled in block somewhere above
+     * them. Going down from the top, the columns seen so far are kept as a
+     * bitmask, so every row is checked at once.
+     *
+     * @param board the board
+     * @return how many holes there are
+     */
+    public static int countHoles(Board board) {
+        int above = 0, holes = 0;
+        for (int r = board.getTop(); r < MATRIX_HEIGHT; r++) {
+            int columns = board.getColumns(r);
+            holes += Integer.bitCount(above & ~columns);
+            above |= columns;
+        }
+        return holes;
+    }
+
+    /**
+     * Adds up how much the heights of each pair of neighboring columns
+     * differ.
+     *
+     * @param board the board
+     * @return the bumpiness of the surface
+     */
+    public static int getBumpiness(Board board) {
+        int total = 0, last = board.getColumnHeight(0);
+        for (int c = 1; c < MATRIX_WIDTH; c++) {
+            int height = board.getColumnHeight(c);
+            total += Math.abs(height - last);
+            last = height;
+        }
+        return total;
+    }
+}
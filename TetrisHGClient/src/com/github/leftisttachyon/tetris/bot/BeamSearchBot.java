@@ -0,0 +1,635 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import com.github.leftisttachyon.tetris.SpinSystem;
+import com.github.leftisttachyon.tetris.TetQueue;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A Bot that looks several tetrominos ahead. It places the current tetromino,
+ * then the ones in the preview, keeping only the best boards after every
+ * tetromino (a beam search), and trying the held tetromino wherever hold can
+ * be used. The placement of the current tetromino that leads to the best
+ * board at the end is the one chosen.
+ * <p>
+ * The whole search runs on the threads of a ForkJoinPool, and the boards of
+ * a step are searched on them in parallel. {@link #chooseLater(TetrisEngine)}
+ * only reads the engine on the thread running the game, so the game does not
+ * wait for the search. Each
+ * thread has its own {@link PlacementFinder} and board to try placements on,
+ * and the boards that are kept come from a {@link BoardPool}. The boards are
+ * scored with a {@link HeuristicEvaluator} that knows how much garbage is
+ * about to come in.
+ * <p>
+ * A search must be done before the next one is started.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class BeamSearchBot implements Bot {
+
+    /**
+     * How many tetrominos are placed in every line of the search by default,
+     * counting the current one
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /**
+     * How many boards are kept after every step by default
+     */
+    public static final int DEFAULT_WIDTH = 64;
+
+    /**
+     * The weights boards are scored with
+     */
+    private final HeuristicEvaluator weights;
+
+    /**
+     * How many tetrominos are placed in every line of the search
+     */
+    private final int depth;
+
+    /**
+     * How many boards are kept after every step
+     */
+    private final int width;
+
+    /**
+     * The threads that search
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * What each thread searches with
+     */
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Where the boards that are kept come from
+     */
+    private final BoardPool boards;
+
+    /**
+     * The matrix of the engine being played
+     */
+    private final Board rootBoard;
+
+    /**
+     * The ids of the tetrominos in the preview, in order
+     */
+    private final int[] preview;
+
+    /**
+     * How many tetrominos of the preview are known
+     */
+    private int previewCount;
+
+    /**
+     * What scores boards in the search being run; it knows the garbage that
+     * is coming in
+     */
+    private HeuristicEvaluator evaluator;
+
+    /**
+     * The factory of the tetrominos of the game
+     */
+    private TetrominoFactory<?> factory;
+
+    /**
+     * The SpinSystem of the game
+     */
+    private SpinSystem<?> spinSystem;
+
+    /**
+     * Whether tetrominos drop to the floor after every move
+     */
+    private boolean twentyG;
+
+    /**
+     * The x-value of the current tetromino
+     */
+    private int rootX;
+
+    /**
+     * The y-value of the current tetromino
+     */
+    private int rootY;
+
+    /**
+     * The rotation state of the current tetromino
+     */
+    private int rootRotation;
+
+    /**
+     * The boards being searched from
+     */
+    private List<Node> beam;
+
+    /**
+     * The placements found from each board of the beam, by index
+     */
+    private final List<List<Candidate>> children;
+
+    /**
+     * Creates a new BeamSearchBot that searches with the default depth and
+     * width, on every processor.
+     */
+    public BeamSearchBot() {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new BeamSearchBot that scores boards with the default
+     * weights.
+     *
+     * @param depth how many tetrominos to place in every line of the search
+     * @param width how many boards to keep after every step
+     * @param parallelism how many threads to search on
+     */
+    public BeamSearchBot(int depth, int width, int parallelism) {
+        this(new HeuristicEvaluator(), depth, width, parallelism);
+    }
+
+    /**
+     * Creates a new BeamSearchBot.
+     *
+     * @param weights what to score boards with
+     * @param depth how many tetrominos to place in every line of the search
+     * @param width how many boards to keep after every step
+     * @param parallelism how many threads to search on
+     */
+    public BeamSearchBot(HeuristicEvaluator weights, int depth, int width,
+            int parallelism) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("The depth and width must be "
+                    + "positive: " + depth + ", " + width);
+        }
+        this.weights = weights;
+        this.depth = depth;
+        this.width = width;
+        pool = new ForkJoinPool(parallelism);
+        workers = ThreadLocal.withInitial(Worker::new);
+        boards = new BoardPool();
+        rootBoard = new Board();
+        preview = new int[depth + 1];
+        previewCount = 0;
+        beam = new ArrayList<>();
+        children = new ArrayList<>();
+    }
+
+    @Override
+    public Placement choose(TetrisEngine engine) {
+        return chooseLater(engine).join();
+    }
+
+    @Override
+    public ForkJoinTask<Placement> chooseLater(TetrisEngine engine) {
+        boolean started = start(engine);
+        return pool.submit(() -> started ? searchFromRoot() : null);
+    }
+
+    /**
+     * Reads everything the search needs from an engine, and puts its matrix
+     * in the beam.
+     *
+     * @param engine the engine to choose for
+     * @return whether there is a tetromino to choose for
+     */
+    private boolean start(TetrisEngine engine) {
+        Tetromino current = engine.getCurrentTetromino();
+        if (current == null) {
+            return false;
+        }
+
+        evaluator = weights.withIncomingGarbage(
+                engine.getGarbageManager().getTotal());
+        factory = engine.getTetrominoFactory();
+        spinSystem = engine.getSpinSystem();
+        twentyG = engine.getGravity() >= 20;
+        rootX = current.getX();
+        rootY = current.getY();
+        rootRotation = current.getRotation();
+
+        TetQueue<?> queue = engine.getQueue();
+        previewCount = Math.min(queue.size(), preview.length);
+        for (int i = 0; i < previewCount; i++) {
+            preview[i] = queue.peekId(i);
+        }
+
+        rootBoard.copyFrom(engine);
+        Tetromino held = engine.getHoldTetromino();
+        double shape = evaluator.evaluate(rootBoard, 0, false);
+        beam.add(new Node(boards.acquire(rootBoard), shape, shape,
+                PlacementFinder.typeOf(current),
+                held == null ? -1 : PlacementFinder.typeOf(held), 0,
+                engine.isHoldAvailable(), null));
+        return true;
+    }
+
+    /**
+     * Searches from the board in the beam, on a thread of the pool.
+     *
+     * @return where the current tetromino should go, or null if it cannot go
+     * anywhere
+     */
+    private Placement searchFromRoot() {
+        Node best = null;
+        for (int step = 0; step < depth; step++) {
+            List<Node> next = search();
+            if (next.isEmpty()) {
+                break;
+            }
+            releaseBeam();
+            beam = next;
+            best = beam.get(0);
+        }
+        releaseBeam();
+
+        if (best == null) {
+            return null;
+        }
+        Candidate first = best.first;
+        return new Placement(first.type, first.x, first.y, first.rotation,
+                first.spin, first.hold, first.lines, best.value);
+    }
+
+    /**
+     * Places the next tetromino on every board of the beam, in parallel, and
+     * keeps the best of the boards that come out.
+     *
+     * @return the boards to search from next, best first
+     */
+    private List<Node> search() {
+        children.clear();
+        for (int i = 0; i < beam.size(); i++) {
+            children.add(null);
+        }
+        new Expand(0, beam.size()).invoke();
+
+        List<Candidate> all = new ArrayList<>();
+        for (List<Candidate> found : children) {
+            all.addAll(found);
+        }
+        all.sort((a, b) -> Double.compare(b.value, a.value));
+
+        int kept = Math.min(width, all.size());
+        List<Node> next = new ArrayList<>(kept);
+        for (int i = 0; i < kept; i++) {
+            next.add(createNode(all.get(i)));
+        }
+        return next;
+    }
+
+    /**
+     * Makes the board a placement leads to.
+     *
+     * @param c the placement
+     * @return the board with the tetromino placed
+     */
+    private Node createNode(Candidate c) {
+        Node parent = beam.get(c.parent);
+        Board board = boards.acquire(parent.board);
+        board.place(c.masks, c.x, c.y);
+
+        int current, hold = parent.hold, next = parent.next;
+        if (c.hold) {
+            if (hold == -1) {
+                // the next tetromino came in when the current one was held
+                next++;
+            }
+            hold = parent.current;
+        }
+        current = pieceAt(next);
+
+        return new Node(board, c.value,
+                evaluator.evaluate(board, 0, false), current, hold, next + 1,
+                true, parent.first == null ? c : parent.first);
+    }
+
+    /**
+     * Finds and scores every placement from one board of the beam. Runs on
+     * the threads of the pool.
+     *
+     * @param index the index of the board in the beam
+     */
+    private void expand(int index) {
+        Node node = beam.get(index);
+        Worker worker = workers.get();
+        PlacementFinder finder = worker.finder;
+        List<Candidate> found = new ArrayList<>();
+
+        if (node.current != -1) {
+            if (node.first == null) {
+                finder.find(node.board, factory, spinSystem, node.current,
+                        rootX, rootY, rootRotation, twentyG);
+            } else {
+                finder.find(node.board, factory, spinSystem, node.current,
+                        twentyG);
+            }
+            addCandidates(worker, node, index, node.current, false, found);
+
+            if (node.holdAvailable) {
+                int type = node.hold != -1 ? node.hold : pieceAt(node.next);
+                if (type != -1 && type != node.current) {
+                    finder.find(node.board, factory, spinSystem, type,
+                            twentyG);
+                    addCandidates(worker, node, index, type, true, found);
+                }
+            }
+        }
+        children.set(index, found);
+    }
+
+    /**
+     * Scores every placement the last search of a worker found.
+     *
+     * @param worker the worker
+     * @param node the board the placements are on
+     * @param index the index of the board in the beam
+     * @param type the id of the type of the tetromino
+     * @param hold whether the tetromino comes from holding
+     * @param found the list to add the placements to
+     */
+    private void addCandidates(Worker worker, Node node, int index, int type,
+            boolean hold, List<Candidate> found) {
+        PlacementFinder finder = worker.finder;
+        Board after = worker.after;
+        for (int i = 0; i < finder.getCount(); i++) {
+            int x = finder.getX(i), y = finder.getY(i);
+            int[] masks = finder.getMask(i);
+            boolean tSpin = finder.isTSpin(node.board, i);
+
+            after.copyFrom(node.board);
+            int lines = after.place(masks, x, y);
+            // the shape of the last board is swapped for the new one, and
+            // what every clear on the way was worth stays
+            double value = node.value - node.shape
+                    + evaluator.evaluate(after, lines, tSpin);
+            found.add(new Candidate(index, type, x, y, finder.getRotation(i),
+                    finder.isSpin(i), hold, lines, masks, value));
+        }
+    }
+
+    /**
+     * Returns the id of a tetromino in the preview.
+     *
+     * @param index the index of the tetromino in the preview
+     * @return its id, or -1 if it is not known
+     */
+    private int pieceAt(int index) {
+        return index < previewCount ? preview[index] : -1;
+    }
+
+    /**
+     * Gives the boards of the beam back to the pool and empties it.
+     */
+    private void releaseBeam() {
+        for (Node node : beam) {
+            boards.release(node.board);
+        }
+        beam = new ArrayList<>();
+    }
+
+    /**
+     * Returns how many boards the pool has made; once it has enough, a
+     * search makes none.
+     *
+     * @return how many boards have been made
+     */
+    public int getBoardsCreated() {
+        return boards.getCreated();
+    }
+
+    /**
+     * Stops the threads that search. This bot cannot be used afterwards.
+     */
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Expands a range of the beam, splitting it in half until every task has
+     * one board.
+     */
+    private final class Expand extends RecursiveAction {
+
+        /**
+         * The version of this class, for serialization
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The index of the first board
+         */
+        private final int from;
+
+        /**
+         * The index after the last board
+         */
+        private final int to;
+
+        /**
+         * Creates a new Expand.
+         *
+         * @param from the index of the first board
+         * @param to the index after the last board
+         */
+        Expand(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    expand(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Expand(from, middle), new Expand(middle, to));
+            }
+        }
+    }
+
+    /**
+     * What a thread of the pool searches with.
+     */
+    private static final class Worker {
+
+        /**
+         * The finder of this thread
+         */
+        private final PlacementFinder finder = new PlacementFinder();
+
+        /**
+         * The board this thread tries placements on
+         */
+        private final Board after = new Board();
+    }
+
+    /**
+     * A board in the beam.
+     */
+    private static final class Node {
+
+        /**
+         * The board
+         */
+        private final Board board;
+
+        /**
+         * What the line of the search that got here is worth
+         */
+        private final double value;
+
+        /**
+         * What the shape of the board alone is worth
+         */
+        private final double shape;
+
+        /**
+         * The id of the tetromino to place next, or -1 if it is not known
+         */
+        private final int current;
+
+        /**
+         * The id of the held tetromino, or -1 if there is none
+         */
+        private final int hold;
+
+        /**
+         * The index in the preview of the tetromino after the current one
+         */
+        private final int next;
+
+        /**
+         * Whether hold can be used
+         */
+        private final boolean holdAvailable;
+
+        /**
+         * The placement of the tetromino in play that started this line of
+         * the search, or null for the board the search starts from
+         */
+        private final Candidate first;
+
+        /**
+         * Creates a new Node.
+         *
+         * @param board the board
+         * @param value what the line of the search is worth
+         * @param shape what the shape of the board is worth
+         * @param current the id of the tetromino to place next
+         * @param hold the id of the held tetromino
+         * @param next the index in the preview of the tetromino after
+         * @param holdAvailable whether hold can be used
+         * @param first the placement that started the line of the search
+         */
+        Node(Board board, double value, double shape, int current, int hold,
+                int next, boolean holdAvailable, Candidate first) {
+            this.board = board;
+            this.value = value;
+            this.shape = shape;
+            this.current = current;
+            this.hold = hold;
+            this.next = next;
+            this.holdAvailable = holdAvailable;
+            this.first = first;
+        }
+    }
+
+    /**
+     * A placement found from a board of the beam, before its own board is
+     * made.
+     */
+    private static final class Candidate {
+
+        /**
+         * The index in the beam of the board it is on
+         */
+        private final int parent;
+
+        /**
+         * The id of the type of the tetromino
+         */
+        private final int type;
+
+        /**
+         * The x-value of the tetromino
+         */
+        private final int x;
+
+        /**
+         * The y-value of the tetromino
+         */
+        private final int y;
+
+        /**
+         * The rotation state of the tetromino
+         */
+        private final int rotation;
+
+        /**
+         * Whether the tetromino gets there by rotating last
+         */
+        private final boolean spin;
+
+        /**
+         * Whether the tetromino comes from holding
+         */
+        private final boolean hold;
+
+        /**
+         * How many rows are cleared
+         */
+        private final int lines;
+
+        /**
+         * The row bitmasks of the tetromino
+         */
+        private final int[] masks;
+
+        /**
+         * What the line of the search is worth with this placement
+         */
+        private final double value;
+
+        /**
+         * Creates a new Candidate.
+         *
+         * @param parent the index in the beam of the board it is on
+         * @param type the id of the type of the tetromino
+         * @param x the x-value of the tetromino
+         * @param y the y-value of the tetromino
+         * @param rotation the rotation state of the tetromino
+         * @param spin whether the tetromino gets there by rotating last
+         * @param hold whether the tetromino comes from holding
+         * @param lines how many rows are cleared
+         * @param masks the row bitmasks of the tetromino
+         * @param value what the line of the search is worth
+         */
+        Candidate(int parent, int type, int x, int y, int rotation,
+                boolean spin, boolean hold, int lines, int[] masks,
+                double value) {
+            this.parent = parent;
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.rotation = rotation;
+            this.spin = spin;
+            this.hold = hold;
+            this.lines = lines;
+            this.masks = masks;
+            this.value = value;
+        }
+    }
+}
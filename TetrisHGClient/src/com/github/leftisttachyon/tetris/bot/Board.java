@@ -0,0 +1,268 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import com.github.leftisttachyon.tetris.Playfield;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+
+import static com.github.leftisttachyon.tetris.MinoStyle.*;
+import static com.github.leftisttachyon.tetris.TetrisEngine.*;
+
+/**
+ * A matrix for a bot to try placements on: only which blocks are filled in,
+ * kept the same way a {@link TetrisEngine} keeps them, as one bitmask per row
+ * padded with wall bits on either side. Boards are cheap to copy, so a bot can
+ * make one for every placement it tries.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ * @see TetrisEngine#getRow(int)
+ */
+public final class Board implements Playfield {
+
+    /**
+     * The bitmask of an empty row: only the wall bits on either side are set
+     */
+    public static final int EMPTY_ROW
+            = ~(((1 << MATRIX_WIDTH) - 1) << WALL_PAD);
+
+    /**
+     * The bitmask of a full row
+     */
+    public static final int FULL_ROW = -1;
+
+    /**
+     * The occupancy of the matrix; one bitmask per row
+     */
+    private final int[] rows;
+
+    /**
+     * The highest row that has a filled in block, or
+     * {@link TetrisEngine#MATRIX_HEIGHT} if there is none
+     */
+    private int top;
+
+    /**
+     * Creates a new, empty Board.
+     */
+    public Board() {
+        rows = new int[MATRIX_HEIGHT];
+        clear();
+    }
+
+    /**
+     * Creates a copy of the given Board.
+     *
+     * @param other the Board to copy
+     */
+    public Board(Board other) {
+        rows = other.rows.clone();
+        top = other.top;
+    }
+
+    /**
+     * Empties every row.
+     */
+    public void clear() {
+        for (int r = 0; r < MATRIX_HEIGHT; r++) {
+            rows[r] = EMPTY_ROW;
+        }
+        top = MATRIX_HEIGHT;
+    }
+
+    /**
+     * Makes this Board the same as the matrix of the given engine.
+     *
+     * @param engine the engine to copy
+     */
+    public void copyFrom(TetrisEngine engine) {
+        for (int r = 0; r < MATRIX_HEIGHT; r++) {
+            rows[r] = engine.getRow(r);
+        }
+        findTop();
+    }
+
+    /**
+     * Makes this Board the same as another one.
+     *
+     * @param other the Board to copy
+     */
+    public void copyFrom(Board other) {
+        System.arraycopy(other.rows, 0, rows, 0, MATRIX_HEIGHT);
+        top = other.top;
+    }
+
+    /**
+     * Returns the occupancy of a row as a bitmask.
+     *
+     * @param r the row
+     * @return the bitmask of the row
+     * @see TetrisEngine#getRow(int)
+     */
+    public int getRow(int r) {
+        return rows[r];
+    }
+
+    /**
+     * Returns the filled in columns of a row, with column {@code c} at bit
+     * {@code c}.
+     *
+     * @param r the row
+     * @return the filled in columns of the row
+     */
+    public int getColumns(int r) {
+        return rows[r] >>> WALL_PAD & (1 << MATRIX_WIDTH) - 1;
+    }
+
+    /**
+     * Determines whether the block at the given row and column is filled in.
+     * Anything out of bounds counts as filled in.
+     *
+     * @param r the row
+     * @param c the column
+     * @return whether the block is filled in
+     */
+    public boolean isOccupied(int r, int c) {
+        if (r < 0 || r >= MATRIX_HEIGHT || c < 0 || c >= MATRIX_WIDTH) {
+            return true;
+        }
+        return (rows[r] >>> (c + WALL_PAD) & 1) != 0;
+    }
+
+    /**
+     * {@inheritDoc} A Board does not know colors, so every filled in block is
+     * {@link com.github.leftisttachyon.tetris.MinoStyle#GREY GREY}.
+     */
+    @Override
+    public int getBlock(int r, int c) {
+        if (r < 0 || r >= MATRIX_HEIGHT || c < 0 || c >= MATRIX_WIDTH) {
+            return WALL;
+        }
+        return isOccupied(r, c) ? GREY : EMPTY;
+    }
+
+    @Override
+    public boolean intersects(int[] masks, int x, int y) {
+        int shift = x + WALL_PAD;
+        if (shift < 0 || shift > Integer.SIZE - 4) {
+            return true;
+        }
+
+        for (int j = 0; j < masks.length; j++) {
+            int mask = masks[j];
+            if (mask != 0) {
+                int r = y + j;
+                if (r < 0 || r >= MATRIX_HEIGHT
+                        || (rows[r] & mask << shift) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds how many rows a tetromino can fall before it lands. Every row
+     * above the highest filled in one is empty, so the tetromino is moved
+     * straight down to there before it is checked one row at a time.
+     *
+     * @param masks the row bitmasks of the tetromino
+     * @param x the column of the top left corner of the tetromino
+     * @param y the row of the top left corner of the tetromino
+     * @return how many rows it can fall
+     */
+    public int dropDistance(int[] masks, int x, int y) {
+        int distance = top - masks.length - y;
+        if (distance < 0 || y < 0) {
+            distance = 0;
+        }
+        while (!intersects(masks, x, y + distance + 1)) {
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * Fills in the blocks of a tetromino and clears the rows it fills. Where
+     * it is put is not checked.
+     *
+     * @param masks the row bitmasks of the tetromino
+     * @param x the column of the top left corner of the tetromino
+     * @param y the row of the top left corner of the tetromino
+     * @return how many rows were cleared
+     */
+    public int place(int[] masks, int x, int y) {
+        int shift = x + WALL_PAD;
+        int cleared = 0;
+        for (int j = 0; j < masks.length; j++) {
+            if (masks[j] != 0) {
+                int r = y + j;
+                rows[r] |= masks[j] << shift;
+                if (r < top) {
+                    top = r;
+                }
+                if (rows[r] == FULL_ROW) {
+                    cleared++;
+                }
+            }
+        }
+        if (cleared > 0) {
+            clearFullRows();
+        }
+        return cleared;
+    }
+
+    /**
+     * Takes out every full row, moving the rows above it down.
+     */
+    private void clearFullRows() {
+        int to = MATRIX_HEIGHT - 1;
+        for (int from = MATRIX_HEIGHT - 1; from >= 0; from--) {
+            if (rows[from] != FULL_ROW) {
+                rows[to--] = rows[from];
+            }
+        }
+        while (to >= 0) {
+            rows[to--] = EMPTY_ROW;
+        }
+        findTop();
+    }
+
+    /**
+     * Finds the highest filled in row again after the rows have changed.
+     */
+    private void findTop() {
+        top = MATRIX_HEIGHT;
+        for (int r = 0; r < MATRIX_HEIGHT; r++) {
+            if (rows[r] != EMPTY_ROW) {
+                top = r;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the highest filled in row.
+     *
+     * @return the highest filled in row, or {@link TetrisEngine#MATRIX_HEIGHT}
+     * if the board is empty
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Finds how tall a column is: how many rows there are from its highest
+     * filled in block down to the floor.
+     *
+     * @param c the column
+     * @return the height of the column, or 0 if it is empty
+     */
+    public int getColumnHeight(int c) {
+        int bit = 1 << (c + WALL_PAD);
+        for (int r = 0; r < MATRIX_HEIGHT; r++) {
+            if ((rows[r] & bit) != 0) {
+                return MATRIX_HEIGHT - r;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import java.util.ArrayDeque;
+
+/**
+ * Boards that are not being used, kept to be used again. A bot that searches
+ * many moves ahead goes through a lot of boards; taking them from a pool
+ * keeps it from making garbage for the collector every time it looks.
+ * <p>
+ * A BoardPool is not thread-safe.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class BoardPool {
+
+    /**
+     * The boards that can be handed out
+     */
+    private final ArrayDeque<Board> free;
+
+    /**
+     * How many boards this pool has made
+     */
+    private int created;
+
+    /**
+     * Creates a new, empty BoardPool.
+     */
+    public BoardPool() {
+        free = new ArrayDeque<>();
+        created = 0;
+    }
+
+    /**
+     * Hands out a board that is the same as the given one.
+     *
+     * @param source the board to copy
+     * @return a copy of the board, from the pool if there is one
+     */
+    public Board acquire(Board source) {
+        Board board = free.pollFirst();
+        if (board == null) {
+            created++;
+            return new Board(source);
+        }
+        board.copyFrom(source);
+        return board;
+    }
+
+    /**
+     * Gives a board back to the pool. It must not be used afterwards.
+     *
+     * @param board the board
+     */
+    public void release(Board board) {
+        free.addFirst(board);
+    }
+
+    /**
+     * Returns how many boards this pool has made altogether
+     *
+     * @return how many boards have been made
+     */
+    public int getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Something that decides where tetrominos go: given an engine in the middle
+ * of a game, a Bot picks where its current tetromino should land. Moving the
+ * tetromino there is up to a {@link BotPlayer}.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface Bot {
+
+    /**
+     * Chooses where the current tetromino of the given engine goes, or
+     * whether to swap it with the held one first. Only called from the thread
+     * running the game.
+     *
+     * @param engine the engine to choose for; it has a current tetromino
+     * @return where the tetromino should go, or null if it cannot go anywhere
+     */
+    Placement choose(TetrisEngine engine);
+
+    /**
+     * Starts choosing where the current tetromino of the given engine goes,
+     * without holding up the thread running the game: what is needed from
+     * the engine is read right away, and the choice is there once the
+     * returned Future is done. Only called from the thread running the game,
+     * and not again until the last choice is done. By default, this chooses
+     * right away.
+     *
+     * @param engine the engine to choose for; it has a current tetromino
+     * @return where the tetromino should go, or null if it cannot go
+     * anywhere, once it is done
+     * @see #choose(TetrisEngine)
+     */
+    default Future<Placement> chooseLater(TetrisEngine engine) {
+        return CompletableFuture.completedFuture(choose(engine));
+    }
+
+    /**
+     * Stops the threads this Bot chooses on, if it has any. It cannot be used
+     * afterwards.
+     */
+    default void shutdown() {
+    }
+}
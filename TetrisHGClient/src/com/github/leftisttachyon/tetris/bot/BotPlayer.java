@@ -0,0 +1,291 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import com.github.leftisttachyon.tetris.GameAction;
+import com.github.leftisttachyon.tetris.InputState;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Plays an engine for a {@link Bot}: every frame it gives the actions that
+ * move the current tetromino toward where the Bot chose, one action at a
+ * time, the same way a player pressing keys would. If the tetromino ends up
+ * somewhere the path did not expect, like after gravity pulls it down, a new
+ * path is found from where it is.
+ * <p>
+ * The Bot chooses off the thread running the game, with
+ * {@link Bot#chooseLater(TetrisEngine)}; until it is done, the tetromino is
+ * left where it is. A choice for a tetromino that locks in the meantime is
+ * thrown away.
+ * <p>
+ * A BotPlayer is also the {@link InputState} of the engine it plays, with no
+ * keys ever held down.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class BotPlayer implements InputState {
+
+    /**
+     * What chooses where tetrominos go
+     */
+    private final Bot bot;
+
+    /**
+     * What finds the way to the chosen placements
+     */
+    private final PlacementFinder finder;
+
+    /**
+     * The matrix of the engine, for finding paths on
+     */
+    private final Board board;
+
+    /**
+     * The tetromino that is being moved
+     */
+    private Tetromino piece;
+
+    /**
+     * Where the tetromino is being moved to
+     */
+    private Placement target;
+
+    /**
+     * How many moves of the path have been done
+     */
+    private int step;
+
+    /**
+     * How many moves the path has
+     */
+    private int pathLength;
+
+    /**
+     * The choice the bot is working on, or null if there is none
+     */
+    private Future<Placement> choosing;
+
+    /**
+     * Whether the choice the bot is working on is for a tetromino that is
+     * gone
+     */
+    private boolean stale;
+
+    /**
+     * Whether to wait for the bot on the thread running the game
+     */
+    private boolean blocking;
+
+    /**
+     * How many frames are left before the next action
+     */
+    private int wait;
+
+    /**
+     * How many frames to wait after every action
+     */
+    private int actionDelay;
+
+    /**
+     * Creates a new BotPlayer that waits a frame between actions.
+     *
+     * @param bot what chooses where tetrominos go
+     */
+    public BotPlayer(Bot bot) {
+        this.bot = bot;
+        finder = new PlacementFinder();
+        board = new Board();
+        piece = null;
+        target = null;
+        step = 0;
+        pathLength = 0;
+        choosing = null;
+        stale = false;
+        blocking = false;
+        wait = 0;
+        actionDelay = 1;
+    }
+
+    /**
+     * Sets how many frames to wait after every action. Zero does one action
+     * every frame.
+     *
+     * @param actionDelay how many frames to wait
+     */
+    public void setActionDelay(int actionDelay) {
+        if (actionDelay < 0) {
+            throw new IllegalArgumentException("The delay cannot be negative");
+        }
+        this.actionDelay = actionDelay;
+    }
+
+    /**
+     * Returns how many frames are waited after every action
+     *
+     * @return how many frames are waited
+     */
+    public int getActionDelay() {
+        return actionDelay;
+    }
+
+    /**
+     * Sets whether to wait for the bot on the thread running the game,
+     * rather than leave the tetromino where it is until the bot is done.
+     * Games that are not played in real time, like headless ones, should
+     * wait.
+     *
+     * @param blocking whether to wait for the bot
+     */
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    /**
+     * Returns whether the bot is waited for on the thread running the game
+     *
+     * @return whether the bot is waited for
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    /**
+     * Stops the threads the bot chooses on. This BotPlayer cannot be used
+     * afterwards.
+     *
+     * @see Bot#shutdown()
+     */
+    public void shutdown() {
+        bot.shutdown();
+    }
+
+    /**
+     * Decides what to do this frame. The result is meant for
+     * {@link TetrisEngine#executeActions(int)}, before the engine advances.
+     *
+     * @param engine the engine being played
+     * @return a bitmask of the actions to execute
+     * @see GameAction#getMask()
+     */
+    public int nextActions(TetrisEngine engine) {
+        Tetromino current = engine.getCurrentTetromino();
+        if (!engine.isInGame() || current == null) {
+            piece = null;
+            target = null;
+            stale = choosing != null;
+            return 0;
+        }
+
+        if (current != piece) {
+            piece = current;
+            target = null;
+            stale = choosing != null;
+        }
+
+        if (wait > 0) {
+            wait--;
+            return 0;
+        }
+        wait = actionDelay;
+
+        if (target == null) {
+            if (choosing != null && stale && (blocking || choosing.isDone())) {
+                collect();
+            }
+            if (choosing == null) {
+                choosing = bot.chooseLater(engine);
+                stale = false;
+            }
+            if (!blocking && !choosing.isDone()) {
+                // look again next frame
+                wait = 0;
+                return 0;
+            }
+            target = collect();
+            if (target == null) {
+                return done(GameAction.HARD_DROP);
+            }
+            if (target.isHold()) {
+                return done(GameAction.HOLD);
+            }
+            if (!plan(engine)) {
+                return 0;
+            }
+        } else if (step > 0 && (current.getX() != finder.getPathX(step - 1)
+                || current.getY() != finder.getPathY(step - 1)
+                || current.getRotation() != finder.getPathRotation(step - 1))) {
+            if (!plan(engine)) {
+                return 0;
+            }
+        }
+
+        if (step == pathLength) {
+            return done(GameAction.HARD_DROP);
+        }
+        return finder.getPathMove(step++).getMask();
+    }
+
+    /**
+     * Takes the choice of the bot once it is done, waiting for it if need
+     * be.
+     *
+     * @return where the bot chose
+     */
+    private Placement collect() {
+        Future<Placement> done = choosing;
+        choosing = null;
+        try {
+            return done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("The bot could not choose",
+                    ex.getCause());
+        }
+    }
+
+    /**
+     * Finds the way from where the tetromino is to the target. If there is
+     * none, the target is chosen again next time.
+     *
+     * @param engine the engine being played
+     * @return whether there is a way
+     */
+    private boolean plan(TetrisEngine engine) {
+        board.copyFrom(engine);
+        pathLength = finder.findPath(board, engine.getTetrominoFactory(),
+                engine.getSpinSystem(), piece, engine.getGravity() >= 20,
+                target);
+        step = 0;
+        if (pathLength < 0) {
+            target = null;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the tetromino once an action that finishes with it is done.
+     * The tetromino objects are reused, so the same one can come back as a
+     * different tetromino later.
+     *
+     * @param action the action that finishes with the tetromino
+     * @return the bitmask of the action
+     */
+    private int done(GameAction action) {
+        piece = null;
+        target = null;
+        return action.getMask();
+    }
+
+    /**
+     * {@inheritDoc} A bot never holds a key down, so this is always false.
+     */
+    @Override
+    public boolean isPressed(GameAction action) {
+        return false;
+    }
+}
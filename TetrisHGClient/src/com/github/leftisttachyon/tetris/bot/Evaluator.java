@@ -0,0 +1,23 @@
+package com.github.leftisttachyon.tetris.bot;
+
+/**
+ * Scores the board a placement leaves behind, so that a bot can tell which
+ * placement is best.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+    /**
+     * Scores a board; higher is better.
+     *
+     * @param board the board after the tetromino has locked and its rows
+     * have been cleared
+     * @param linesCleared how many rows the tetromino cleared
+     * @param tSpin whether the tetromino was a T-spin, minis aside
+     * @return the score of the board
+     */
+    double evaluate(Board board, int linesCleared, boolean tSpin);
+}
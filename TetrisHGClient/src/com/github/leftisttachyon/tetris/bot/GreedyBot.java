@@ -0,0 +1,134 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import com.github.leftisttachyon.tetris.SpinSystem;
+import com.github.leftisttachyon.tetris.TetQueue;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Bot that only looks at the tetromino it has: it tries every placement of
+ * the current tetromino and of the one it could hold instead, scores the board
+ * each one leaves with an {@link Evaluator} and takes the best.
+ * <p>
+ * A GreedyBot keeps the boards it tries placements on, so it is not
+ * thread-safe.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class GreedyBot implements Bot {
+
+    /**
+     * What scores the boards placements leave
+     */
+    private final Evaluator evaluator;
+
+    /**
+     * What finds the placements
+     */
+    private final PlacementFinder finder;
+
+    /**
+     * The matrix of the engine being played
+     */
+    private final Board board;
+
+    /**
+     * The board a placement is tried on
+     */
+    private final Board after;
+
+    /**
+     * Creates a new GreedyBot that uses a {@link BasicEvaluator}.
+     */
+    public GreedyBot() {
+        this(new BasicEvaluator());
+    }
+
+    /**
+     * Creates a new GreedyBot.
+     *
+     * @param evaluator what scores the boards placements leave
+     */
+    public GreedyBot(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        finder = new PlacementFinder();
+        board = new Board();
+        after = new Board();
+    }
+
+    @Override
+    public Placement choose(TetrisEngine engine) {
+        List<Placement> candidates = getCandidates(engine);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * Finds and scores every placement of the current tetromino of the given
+     * engine, and of the tetromino it would get by holding if hold can be
+     * used.
+     *
+     * @param engine the engine
+     * @return the placements, best first
+     */
+    public List<Placement> getCandidates(TetrisEngine engine) {
+        List<Placement> candidates = new ArrayList<>();
+        Tetromino current = engine.getCurrentTetromino();
+        if (current == null) {
+            return candidates;
+        }
+
+        board.copyFrom(engine);
+        TetrominoFactory<?> factory = engine.getTetrominoFactory();
+        SpinSystem<?> spinSystem = engine.getSpinSystem();
+        boolean twentyG = engine.getGravity() >= 20;
+        int type = PlacementFinder.typeOf(current);
+
+        finder.find(board, factory, spinSystem, current, twentyG);
+        addCandidates(candidates, type, false);
+
+        if (engine.isHoldAvailable()) {
+            Tetromino held = engine.getHoldTetromino();
+            TetQueue<?> queue = engine.getQueue();
+            int holdType = -1;
+            if (held != null) {
+                holdType = PlacementFinder.typeOf(held);
+            } else if (queue.size() > 0) {
+                holdType = queue.peekId(0);
+            }
+
+            if (holdType != -1 && holdType != type) {
+                finder.find(board, factory, spinSystem, holdType, twentyG);
+                addCandidates(candidates, holdType, true);
+            }
+        }
+
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    /**
+     * Scores every placement the last search found and adds them to a list.
+     *
+     * @param candidates the list to add to
+     * @param type the id of the type of the tetromino that was searched for
+     * @param hold whether the tetromino comes from holding
+     */
+    private void addCandidates(List<Placement> candidates, int type,
+            boolean hold) {
+        for (int i = 0; i < finder.getCount(); i++) {
+            int x = finder.getX(i), y = finder.getY(i);
+            boolean tSpin = finder.isTSpin(board, i);
+
+            after.copyFrom(board);
+            int lines = after.place(finder.getMask(i), x, y);
+            double score = evaluator.evaluate(after, lines, tSpin);
+            candidates.add(new Placement(type, x, y, finder.getRotation(i),
+                    finder.isSpin(i), hold, lines, score));
+        }
+    }
+}
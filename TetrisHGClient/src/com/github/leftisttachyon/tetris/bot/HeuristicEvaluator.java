@@ -0,0 +1,216 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import static com.github.leftisttachyon.tetris.TetrisEngine.*;
+
+/**
+ * An Evaluator for bots that look ahead: besides the shape of the board it
+ * rewards clears by how much garbage they send, rewards T-spin slots that are
+ * ready to be filled, and gets more careful the more garbage is about to
+ * come in. Every HeuristicEvaluator is immutable, so one can be shared by
+ * every thread of a search.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ * @see BeamSearchBot
+ */
+public final class HeuristicEvaluator implements Evaluator {
+
+    /**
+     * The bitmask of every column
+     */
+    private static final int ALL_COLUMNS = (1 << MATRIX_WIDTH) - 1;
+
+    /**
+     * How tall the stack can get before it is in danger, counting garbage
+     * that is about to come in
+     */
+    private static final int DANGER_HEIGHT = 12;
+
+    /**
+     * The reward for clearing each number of rows, by how many rows
+     */
+    private static final double[] CLEAR_REWARDS = {0, -1.5, -1, -0.5, 4};
+
+    /**
+     * The reward for clearing each number of rows with a T-spin, by how many
+     * rows
+     */
+    private static final double[] T_SPIN_REWARDS = {0, 2, 6, 8};
+
+    /**
+     * The weight of the total height of all of the columns
+     */
+    private final double heightWeight;
+
+    /**
+     * The weight of the number of covered up empty blocks
+     */
+    private final double holesWeight;
+
+    /**
+     * The weight of the number of rows that have a hole in them
+     */
+    private final double holeRowsWeight;
+
+    /**
+     * The weight of how much the heights of neighboring columns differ
+     */
+    private final double bumpinessWeight;
+
+    /**
+     * The weight of every row the stack is above the danger height
+     */
+    private final double dangerWeight;
+
+    /**
+     * The weight of the rewards for clears
+     */
+    private final double clearWeight;
+
+    /**
+     * The reward for a T-spin slot that is ready to be filled
+     */
+    private final double tSlotWeight;
+
+    /**
+     * The reward for every row of incoming garbage a clear can cancel
+     */
+    private final double cancelWeight;
+
+    /**
+     * How many rows of garbage are about to come in
+     */
+    private final int incomingGarbage;
+
+    /**
+     * Creates a new HeuristicEvaluator with weights that build for T-spins
+     * and tetrises when it is safe to.
+     */
+    public HeuristicEvaluator() {
+        this(-0.5, -4, -2, -0.35, -3, 1, 2, 0.75, 0);
+    }
+
+    /**
+     * Creates a new HeuristicEvaluator.
+     *
+     * @param heightWeight the weight of the total height of the columns
+     * @param holesWeight the weight of the number of holes
+     * @param holeRowsWeight the weight of the number of rows with holes
+     * @param bumpinessWeight the weight of the bumpiness of the surface
+     * @param dangerWeight the weight of every row above the danger height
+     * @param clearWeight the weight of the rewards for clears
+     * @param tSlotWeight the reward for a T-spin slot
+     * @param cancelWeight the reward for every row of incoming garbage a
+     * clear cancels
+     * @param incomingGarbage how many rows of garbage are about to come in
+     */
+    public HeuristicEvaluator(double heightWeight, double holesWeight,
+            double holeRowsWeight, double bumpinessWeight,
+            double dangerWeight, double clearWeight, double tSlotWeight,
+            double cancelWeight, int incomingGarbage) {
+        this.heightWeight = heightWeight;
+        this.holesWeight = holesWeight;
+        this.holeRowsWeight = holeRowsWeight;
+        this.bumpinessWeight = bumpinessWeight;
+        this.dangerWeight = dangerWeight;
+        this.clearWeight = clearWeight;
+        this.tSlotWeight = tSlotWeight;
+        this.cancelWeight = cancelWeight;
+        this.incomingGarbage = incomingGarbage;
+    }
+
+    /**
+     * Returns a HeuristicEvaluator with the same weights as this one that
+     * knows how much garbage is about to come in.
+     *
+     * @param lines how many rows of garbage are about to come in
+     * @return a HeuristicEvaluator for the given amount of garbage
+     * @see com.github.leftisttachyon.tetris.GarbageManager#getTotal()
+     */
+    public HeuristicEvaluator withIncomingGarbage(int lines) {
+        if (lines == incomingGarbage) {
+            return this;
+        }
+        return new HeuristicEvaluator(heightWeight, holesWeight,
+                holeRowsWeight, bumpinessWeight, dangerWeight, clearWeight,
+                tSlotWeight, cancelWeight, lines);
+    }
+
+    /**
+     * Returns how many rows of garbage this evaluator expects to come in
+     *
+     * @return how many rows of garbage are about to come in
+     */
+    public int getIncomingGarbage() {
+        return incomingGarbage;
+    }
+
+    @Override
+    public double evaluate(Board board, int linesCleared, boolean tSpin) {
+        int aggregate = 0, bumpiness = 0, highest = 0;
+        int last = board.getColumnHeight(0);
+        for (int c = 0; c < MATRIX_WIDTH; c++) {
+            int height = c == 0 ? last : board.getColumnHeight(c);
+            aggregate += height;
+            bumpiness += Math.abs(height - last);
+            highest = Math.max(highest, height);
+            last = height;
+        }
+
+        int above = 0, holes = 0, holeRows = 0;
+        for (int r = board.getTop(); r < MATRIX_HEIGHT; r++) {
+            int columns = board.getColumns(r);
+            int covered = Integer.bitCount(above & ~columns);
+            if (covered > 0) {
+                holes += covered;
+                holeRows++;
+            }
+            above |= columns;
+        }
+
+        double clear = tSpin ? T_SPIN_REWARDS[Math.min(linesCleared, 3)]
+                : CLEAR_REWARDS[linesCleared];
+        int canceled = Math.min(linesCleared, incomingGarbage);
+        int danger = Math.max(0, highest + incomingGarbage - DANGER_HEIGHT);
+        // a T-spin slot is not worth keeping when garbage would bury it
+        int slots = danger > 0 ? 0 : Math.min(countTSlots(board), 1);
+
+        return heightWeight * aggregate
+                + holesWeight * holes
+                + holeRowsWeight * holeRows
+                + bumpinessWeight * bumpiness
+                + dangerWeight * danger * danger
+                + clearWeight * clear
+                + tSlotWeight * slots
+                + cancelWeight * canceled;
+    }
+
+    /**
+     * Counts the places a T could be spun into to clear two rows: three empty
+     * blocks in a row with an overhang over one end, and under the middle
+     * one an empty block between two filled ones, on top of a filled block or
+     * the floor. All columns of a row are checked at once by shifting its
+     * bitmask.
+     *
+     * @param board the board
+     * @return how many T-spin slots there are
+     */
+    public static int countTSlots(Board board) {
+        int slots = 0;
+        for (int r = Math.max(board.getTop(), 1); r < MATRIX_HEIGHT - 1; r++) {
+            int overhang = board.getColumns(r - 1),
+                    empty = ~board.getColumns(r) & ALL_COLUMNS,
+                    below = board.getColumns(r + 1),
+                    floor = r + 2 < MATRIX_HEIGHT ? board.getColumns(r + 2)
+                    : ALL_COLUMNS;
+
+            // bit c is set if the slot would be centered on column c
+            int top = empty & empty << 1 & empty >>> 1,
+                    middle = ~below & below << 1 & below >>> 1,
+                    roof = overhang << 1 | overhang >>> 1;
+            slots += Integer.bitCount(top & middle & floor & roof
+                    & ALL_COLUMNS);
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.leftisttachyon.tetris.bot;
+
+/**
+ * Where a tetromino can end up: its position and rotation once it has landed,
+ * whether the piece being held is swapped in first, and how good a bot thinks
+ * it is.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ * @see PlacementFinder
+ */
+public final class Placement implements Comparable<Placement> {
+
+    /**
+     * The id of the type of the tetromino
+     *
+     * @see com.github.leftisttachyon.tetris.tetrominos.random.Randomizer
+     */
+    private final int type;
+
+    /**
+     * The column of the top left corner of the tetromino
+     */
+    private final int x;
+
+    /**
+     * The row of the top left corner of the tetromino
+     */
+    private final int y;
+
+    /**
+     * The rotation state of the tetromino
+     */
+    private final int rotation;
+
+    /**
+     * Whether the tetromino gets there by rotating last
+     */
+    private final boolean spin;
+
+    /**
+     * Whether hold is pressed before the tetromino is moved
+     */
+    private final boolean hold;
+
+    /**
+     * How many rows are cleared when the tetromino locks
+     */
+    private final int linesCleared;
+
+    /**
+     * How good the placement is; higher is better
+     */
+    private final double score;
+
+    /**
+     * Creates a new Placement.
+     *
+     * @param type the id of the type of the tetromino
+     * @param x the column of the top left corner of the tetromino
+     * @param y the row of the top left corner of the tetromino
+     * @param rotation the rotation state of the tetromino
+     * @param spin whether the tetromino gets there by rotating last
+     * @param hold whether hold is pressed first
+     * @param linesCleared how many rows are cleared
+     * @param score how good the placement is
+     */
+    public Placement(int type, int x, int y, int rotation, boolean spin,
+            boolean hold, int linesCleared, double score) {
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.rotation = rotation;
+        this.spin = spin;
+        this.hold = hold;
+        this.linesCleared = linesCleared;
+        this.score = score;
+    }
+
+    /**
+     * Returns the id of the type of the tetromino
+     *
+     * @return the id of the type of the tetromino
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Returns the column of the top left corner of the tetromino
+     *
+     * @return the x-value of the tetromino
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Returns the row of the top left corner of the tetromino
+     *
+     * @return the y-value of the tetromino
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Returns the rotation state of the tetromino
+     *
+     * @return the rotation state of the tetromino
+     */
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Returns whether the tetromino gets there by rotating last, which is
+     * what a T-spin needs
+     *
+     * @return whether the last move is a rotation
+     */
+    public boolean isSpin() {
+        return spin;
+    }
+
+    /**
+     * Returns whether hold is pressed before the tetromino is moved
+     *
+     * @return whether the held tetromino is used
+     */
+    public boolean isHold() {
+        return hold;
+    }
+
+    /**
+     * Returns how many rows are cleared when the tetromino locks
+     *
+     * @return how many rows are cleared
+     */
+    public int getLinesCleared() {
+        return linesCleared;
+    }
+
+    /**
+     * Returns how good the placement is; higher is better
+     *
+     * @return the score of the placement
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Orders placements from best to worst.
+     *
+     * @param other the placement to compare to
+     * @return a negative number if this placement is better
+     */
+    @Override
+    public int compareTo(Placement other) {
+        return Double.compare(other.score, score);
+    }
+
+    @Override
+    public String toString() {
+        return "Placement[type=" + type + ", x=" + x + ", y=" + y
+                + ", rotation=" + rotation + ", spin=" + spin + ", hold="
+                + hold + ", lines=" + linesCleared + ", score=" + score + "]";
+    }
+}
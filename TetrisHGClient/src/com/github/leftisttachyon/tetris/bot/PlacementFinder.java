@@ -0,0 +1,1000 @@
+package com.github.leftisttachyon.tetris.bot;
+
+import com.github.leftisttachyon.tetris.GameAction;
+import com.github.leftisttachyon.tetris.Playfield;
+import com.github.leftisttachyon.tetris.SpinSystem;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.tetrominos.TetT;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
+import java.util.Arrays;
+
+import static com.github.leftisttachyon.tetris.TetrisEngine.*;
+
+/**
+ * Finds every place a tetromino can land on a Board, by searching through
+ * every position and rotation it can reach with the moves a player has: left,
+ * right, both rotations through the SpinSystem, kicks and all, sonic drops
+ * and one row soft drops, so that tucks, spins and slides under overhangs
+ * halfway down a well are found too. The search is breadth first, so the way
+ * it finds to each placement takes the fewest moves. With 20G, the tetromino
+ * drops to the floor after every move.
+ * <p>
+ * Two things keep the search cheap. Rows well above the stack are all the
+ * same, so a soft drop there goes straight down to the first row near the
+ * stack; the path it finds still soft drops one row at a time. And a
+ * rotation that fits without a kick is never kicked by any SpinSystem, so
+ * only rotations that are blocked are kicked. The kicks a SpinSystem tries
+ * for each type and rotation are learned once, by letting it rotate on a
+ * playfield where nothing fits, and then tried in order straight on the
+ * board; a SpinSystem that looks at single blocks to choose its kicks, like
+ * ARS, is asked every time instead.
+ * <p>
+ * Placements that fill in the same blocks are only found once. For a T, one
+ * that gets there by rotating last is kept apart from one that does not,
+ * since only the first can be a T-spin.
+ * <p>
+ * The results of a search are kept in this object until the next one, and
+ * are read by index, so that searching creates no objects. A PlacementFinder
+ * is not thread-safe; give every thread its own.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class PlacementFinder {
+
+    /**
+     * The lowest column the top left corner of a tetromino can be at
+     */
+    private static final int MIN_X = -3;
+
+    /**
+     * The lowest row the top left corner of a tetromino can be at
+     */
+    private static final int MIN_Y = -3;
+
+    /**
+     * How many columns of positions each row and rotation has
+     */
+    private static final int COLUMNS = 16;
+
+    /**
+     * How many rows of positions each rotation has
+     */
+    private static final int ROWS = MATRIX_HEIGHT - MIN_Y;
+
+    /**
+     * How many positions and rotations a tetromino can be in
+     */
+    private static final int STATES = 4 * ROWS * COLUMNS;
+
+    /**
+     * How many rows a kick can move a tetromino up or down
+     */
+    private static final int KICK_ROWS = 2;
+
+    /**
+     * The moves of the search, in the order they are tried
+     */
+    private static final GameAction[] MOVES = {GameAction.MOVE_LEFT,
+        GameAction.MOVE_RIGHT, GameAction.ROTATE_RIGHT, GameAction.ROTATE_LEFT,
+        GameAction.SONIC_DROP, GameAction.SOFT_DROP};
+
+    /**
+     * The index of {@link GameAction#MOVE_LEFT} in {@link #MOVES}
+     */
+    private static final int MOVE_LEFT = 0;
+
+    /**
+     * The index of {@link GameAction#MOVE_RIGHT} in {@link #MOVES}
+     */
+    private static final int MOVE_RIGHT = 1;
+
+    /**
+     * The index of {@link GameAction#ROTATE_RIGHT} in {@link #MOVES}
+     */
+    private static final int ROTATE_RIGHT = 2;
+
+    /**
+     * The index of {@link GameAction#ROTATE_LEFT} in {@link #MOVES}
+     */
+    private static final int ROTATE_LEFT = 3;
+
+    /**
+     * The index of {@link GameAction#SONIC_DROP} in {@link #MOVES}
+     */
+    private static final int SONIC_DROP = 4;
+
+    /**
+     * The index of {@link GameAction#SOFT_DROP} in {@link #MOVES}
+     */
+    private static final int SOFT_DROP = 5;
+
+    /**
+     * The kicks of a rotation that the SpinSystem has to be asked about
+     */
+    private static final int[] ASK_SPIN_SYSTEM = new int[0];
+
+    /**
+     * The search each state was last reached in
+     */
+    private final int[] visited;
+
+    /**
+     * The search each state was last landed in by hard dropping from another
+     */
+    private final int[] landed;
+
+    /**
+     * The state each state was reached from, or -1 for the start
+     */
+    private final int[] parent;
+
+    /**
+     * The move each state was reached with
+     */
+    private final byte[] parentMove;
+
+    /**
+     * The states waiting to be searched from
+     */
+    private final int[] queue;
+
+    /**
+     * The search each placement was last found in without a spin, by the
+     * state it has in the first rotation state that fills in the same blocks
+     */
+    private final int[] found;
+
+    /**
+     * The search each placement was last found in with a spin, by the state
+     * it has in the first rotation state that fills in the same blocks
+     */
+    private final int[] foundSpin;
+
+    /**
+     * The number of the current search
+     */
+    private int search;
+
+    /**
+     * The x-value of each placement found
+     */
+    private final int[] placementX;
+
+    /**
+     * The y-value of each placement found
+     */
+    private final int[] placementY;
+
+    /**
+     * The rotation state of each placement found
+     */
+    private final int[] placementRotation;
+
+    /**
+     * Whether each placement found gets there by rotating last
+     */
+    private final boolean[] placementSpin;
+
+    /**
+     * How many placements were found
+     */
+    private int count;
+
+    /**
+     * The moves of the last path found
+     */
+    private final GameAction[] path;
+
+    /**
+     * The state the tetromino should be in after each move of the last path
+     */
+    private final int[] pathStates;
+
+    /**
+     * How many moves the last path has
+     */
+    private int pathLength;
+
+    /**
+     * The move that ends the last path after the state the search returned,
+     * or -1 if the path ends at that state
+     */
+    private int finalMove;
+
+    /**
+     * The state the move that ends the last path gets to
+     */
+    private int finalState;
+
+    /**
+     * The id of the type of the tetromino of the last search
+     */
+    private int type;
+
+    /**
+     * The factory the scratch tetrominos come from
+     */
+    private TetrominoFactory<?> scratchFactory;
+
+    /**
+     * A tetromino of each type to rotate through the SpinSystem, by id
+     */
+    private final Tetromino[] scratch;
+
+    /**
+     * The row bitmasks of each rotation state of each scratch tetromino, by
+     * id and rotation state
+     */
+    private final int[][][] shapes;
+
+    /**
+     * What to add to a state of each scratch tetromino to get the state in
+     * the first rotation state that fills in the same blocks, by id and
+     * rotation state
+     */
+    private final int[][] sameBlocks;
+
+    /**
+     * The SpinSystem the kicks were learned from
+     */
+    private SpinSystem<?> kickSystem;
+
+    /**
+     * The kicks the SpinSystem tries for each scratch tetromino, as x and y
+     * offsets in the order they are tried, by id and by rotation state times
+     * two, plus one for rotating left; null if they have not been learned
+     * yet, or {@link #ASK_SPIN_SYSTEM}
+     */
+    private final int[][][] kicks;
+
+    /**
+     * The playfield the kicks are learned on
+     */
+    private final KickProbe probe;
+
+    /**
+     * Creates a new PlacementFinder.
+     */
+    public PlacementFinder() {
+        visited = new int[STATES];
+        landed = new int[STATES];
+        parent = new int[STATES];
+        parentMove = new byte[STATES];
+        queue = new int[STATES];
+        found = new int[STATES];
+        foundSpin = new int[STATES];
+        search = 0;
+        placementX = new int[STATES];
+        placementY = new int[STATES];
+        placementRotation = new int[STATES];
+        placementSpin = new boolean[STATES];
+        count = 0;
+        path = new GameAction[STATES];
+        pathStates = new int[STATES];
+        pathLength = -1;
+        finalMove = -1;
+        finalState = -1;
+        type = -1;
+        scratchFactory = null;
+        scratch = new Tetromino[Randomizer.PIECES];
+        shapes = new int[Randomizer.PIECES][4][];
+        sameBlocks = new int[Randomizer.PIECES][4];
+        kickSystem = null;
+        kicks = new int[Randomizer.PIECES][8][];
+        probe = new KickProbe();
+    }
+
+    /**
+     * Finds every placement of a tetromino that has just come in.
+     *
+     * @param board the board to place the tetromino on
+     * @param factory the factory of the tetrominos of the game
+     * @param spinSystem the SpinSystem of the game
+     * @param type the id of the type of the tetromino
+     * @param twentyG whether the tetromino drops to the floor after every move
+     * @return how many placements were found; none if the tetromino cannot
+     * come in
+     */
+    public int find(Board board, TetrominoFactory<?> factory,
+            SpinSystem<?> spinSystem, int type, boolean twentyG) {
+        Tetromino t = getScratch(factory, type);
+        TetrisEngine.spawn(t, board);
+        if (t.intersects(board)) {
+            count = 0;
+            return 0;
+        }
+        return find(board, factory, spinSystem, type, t.getX(), t.getY(),
+                t.getRotation(), twentyG);
+    }
+
+    /**
+     * Finds every placement of a tetromino that starts where the given one is.
+     * The tetromino itself is not moved.
+     *
+     * @param board the board to place the tetromino on
+     * @param factory the factory of the tetrominos of the game
+     * @param spinSystem the SpinSystem of the game
+     * @param piece the tetromino
+     * @param twentyG whether the tetromino drops to the floor after every move
+     * @return how many placements were found
+     */
+    public int find(Board board, TetrominoFactory<?> factory,
+            SpinSystem<?> spinSystem, Tetromino piece, boolean twentyG) {
+        return find(board, factory, spinSystem, typeOf(piece), piece.getX(),
+                piece.getY(), piece.getRotation(), twentyG);
+    }
+
+    /**
+     * Finds every placement of a tetromino that starts at the given position.
+     *
+     * @param board the board to place the tetromino on
+     * @param factory the factory of the tetrominos of the game
+     * @param spinSystem the SpinSystem of the game
+     * @param type the id of the type of the tetromino
+     * @param x the x-value the tetromino starts at
+     * @param y the y-value the tetromino starts at
+     * @param rotation the rotation state the tetromino starts in
+     * @param twentyG whether the tetromino drops to the floor after every move
+     * @return how many placements were found
+     */
+    public int find(Board board, TetrominoFactory<?> factory,
+            SpinSystem<?> spinSystem, int type, int x, int y, int rotation,
+            boolean twentyG) {
+        count = 0;
+        search(board, factory, spinSystem, type, x, y, rotation, twentyG, -1,
+                false);
+        return count;
+    }
+
+    /**
+     * Finds the fewest moves that get a tetromino from where it is to where it
+     * can be hard dropped into the given placement. Afterwards the moves are
+     * read with {@link #getPathMove(int)}.
+     *
+     * @param board the board the tetromino is on
+     * @param factory the factory of the tetrominos of the game
+     * @param spinSystem the SpinSystem of the game
+     * @param piece the tetromino, where it is now; it is not moved
+     * @param twentyG whether the tetromino drops to the floor after every move
+     * @param target the placement to get to
+     * @return how many moves there are, or -1 if the placement cannot be
+     * reached
+     */
+    public int findPath(Board board, TetrominoFactory<?> factory,
+            SpinSystem<?> spinSystem, Tetromino piece, boolean twentyG,
+            Placement target) {
+        int type = typeOf(piece);
+        getScratch(factory, type);
+        int targetState = stateOf(target.getX(), target.getY(),
+                target.getRotation());
+        targetState += sameBlocks[type][target.getRotation()];
+
+        count = 0;
+        int end = search(board, factory, spinSystem, type, piece.getX(),
+                piece.getY(), piece.getRotation(), twentyG, targetState,
+                target.isSpin() && type == Randomizer.T);
+        if (end == -1) {
+            pathLength = -1;
+            return -1;
+        }
+
+        pathLength = finalMove == -1 ? 0 : 1;
+        for (int s = end; parent[s] != -1; s = parent[s]) {
+            pathLength += moveLength(s);
+        }
+        int i = pathLength;
+        if (finalMove != -1) {
+            i--;
+            path[i] = MOVES[finalMove];
+            pathStates[i] = finalState;
+        }
+        for (int s = end; parent[s] != -1; s = parent[s]) {
+            // a soft drop through the rows above the stack is one row at a
+            // time when it is played
+            for (int row = moveLength(s) - 1; row >= 0; row--) {
+                i--;
+                path[i] = MOVES[parentMove[s]];
+                pathStates[i] = s - row * COLUMNS;
+            }
+        }
+        return pathLength;
+    }
+
+    /**
+     * Returns how many moves the move a state was reached with takes to play:
+     * the rows dropped for a soft drop, and one for anything else.
+     *
+     * @param state the state
+     * @return how many moves it takes
+     */
+    private int moveLength(int state) {
+        if (parentMove[state] != SOFT_DROP) {
+            return 1;
+        }
+        return yOf(state) - yOf(parent[state]);
+    }
+
+    /**
+     * Searches every state a tetromino can reach, recording the placements
+     * it can land in, until the placement with the given key is found.
+     *
+     * @param board the board the tetromino is on
+     * @param factory the factory of the tetrominos of the game
+     * @param spinSystem the SpinSystem of the game
+     * @param type the id of the type of the tetromino
+     * @param x the x-value the tetromino starts at
+     * @param y the y-value the tetromino starts at
+     * @param rotation the rotation state the tetromino starts in
+     * @param twentyG whether the tetromino drops to the floor after every move
+     * @param target the state of the placement to stop at in the first
+     * rotation state that fills in the same blocks, or -1 to find every
+     * placement
+     * @param targetSpin whether the placement to stop at is a spin
+     * @return the state the target can be hard dropped from, or -1 if there
+     * is no target or it cannot be reached; if the target is a spin, the
+     * state it is rotated into from, with the rotation kept in
+     * {@link #finalMove}
+     */
+    @SuppressWarnings("unchecked")
+    private int search(Board board, TetrominoFactory<?> factory,
+            SpinSystem<?> spinSystem, int type, int x, int y, int rotation,
+            boolean twentyG, int target, boolean targetSpin) {
+        Tetromino t = getScratch(factory, type);
+        int[][] masksOf = shapes[type];
+        int[] same = sameBlocks[type];
+        SpinSystem<Tetromino> spins = (SpinSystem<Tetromino>) spinSystem;
+        if (spinSystem != kickSystem) {
+            for (int[][] learned : kicks) {
+                Arrays.fill(learned, null);
+            }
+            kickSystem = spinSystem;
+        }
+        int[][] kicksOf = kicks[type];
+        this.type = type;
+        boolean spinMatters = type == Randomizer.T;
+        finalMove = -1;
+        nextSearch();
+
+        // above this row, nothing a tetromino can do touches the stack
+        int openAir = board.getTop() - 3 - KICK_ROWS;
+
+        if (twentyG) {
+            y += board.dropDistance(masksOf[rotation], x, y);
+        }
+        int start = stateOf(x, y, rotation);
+        visited[start] = search;
+        parent[start] = -1;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int s = queue[head++];
+            int sx = xOf(s), sy = yOf(s), sr = rotationOf(s);
+            int[] masks = masksOf[sr];
+
+            // where it lands if it is dropped from here
+            int drop = board.dropDistance(masks, sx, sy);
+            int bottom = stateOf(sx, sy + drop, sr);
+            if (landed[bottom] != search) {
+                landed[bottom] = search;
+                if (!targetSpin && bottom + same[sr] == target) {
+                    return s;
+                }
+                record(bottom, same[sr], false);
+            }
+
+            for (int m = 0; m < MOVES.length; m++) {
+                int nx = sx, ny = sy, nr = sr;
+                boolean rotated = false;
+                switch (m) {
+                    case MOVE_LEFT:
+                    case MOVE_RIGHT:
+                        nx += m == MOVE_LEFT ? -1 : 1;
+                        if (board.intersects(masks, nx, ny)) {
+                            continue;
+                        }
+                        break;
+                    case ROTATE_RIGHT:
+                    case ROTATE_LEFT:
+                        nr = sr + (m == ROTATE_RIGHT ? 1 : 3)
+                                & 3;
+                        if (board.intersects(masksOf[nr], sx, sy)) {
+                            boolean left = m == ROTATE_LEFT;
+                            int k = sr * 2 + (left ? 1 : 0);
+                            if (kicksOf[k] == null) {
+                                kicksOf[k] = learnKicks(spins, t, masksOf[nr],
+                                        sr, left);
+                            }
+                            int[] kick = kicksOf[k];
+                            if (kick != ASK_SPIN_SYSTEM) {
+                                int i = 0;
+                                while (i < kick.length && board.intersects(
+                                        masksOf[nr], sx + kick[i],
+                                        sy + kick[i + 1])) {
+                                    i += 2;
+                                }
+                                if (i == kick.length) {
+                                    continue;
+                                }
+                                nx += kick[i];
+                                ny += kick[i + 1];
+                            } else {
+                                t.setX(sx);
+                                t.setY(sy);
+                                t.setRotation(sr);
+                                if (left) {
+                                    spins.rotateLeft(t, board);
+                                } else {
+                                    spins.rotateRight(t, board);
+                                }
+                                nx = t.getX();
+                                ny = t.getY();
+                                nr = t.getRotation();
+                                if (nr == sr) {
+                                    continue;
+                                }
+                            }
+                        }
+                        rotated = true;
+                        break;
+                    case SONIC_DROP:
+                        if (twentyG || drop == 0) {
+                            continue;
+                        }
+                        ny += drop;
+                        break;
+                    case SOFT_DROP:
+                        if (twentyG || drop == 0) {
+                            continue;
+                        }
+                        ny += sy < openAir ? Math.min(openAir - sy, drop) : 1;
+                        break;
+                    default:
+                        continue;
+                }
+
+                int[] nextMasks = masksOf[nr];
+                if (twentyG) {
+                    ny += board.dropDistance(nextMasks, nx, ny);
+                }
+                int next = stateOf(nx, ny, nr);
+                if (rotated && spinMatters
+                        && board.intersects(nextMasks, nx, ny + 1)) {
+                    if (targetSpin && next + same[nr] == target) {
+                        // the rotation has to be the last move of the path,
+                        // even if the state it gets to was reached before
+                        finalMove = m;
+                        finalState = next;
+                        return s;
+                    }
+                    record(next, same[nr], true);
+                }
+                if (visited[next] != search) {
+                    visited[next] = search;
+                    parent[next] = s;
+                    parentMove[next] = (byte) m;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Learns the kicks a SpinSystem tries when a rotation is blocked, by
+     * letting it rotate a tetromino on a playfield where nothing fits and
+     * writing down where it tries to put it. They can only be tried straight
+     * on the board if the SpinSystem only ever asks whether the tetromino
+     * fits, always in the new rotation state, and gives up where it started.
+     *
+     * @param spins the SpinSystem
+     * @param t the tetromino to rotate
+     * @param rotated the row bitmasks of the new rotation state
+     * @param rotation the rotation state to rotate from
+     * @param left whether to rotate left
+     * @return the x and y offsets of the kicks in the order they are tried,
+     * or {@link #ASK_SPIN_SYSTEM}
+     */
+    private int[] learnKicks(SpinSystem<Tetromino> spins, Tetromino t,
+            int[] rotated, int rotation, boolean left) {
+        probe.start(rotated);
+        t.setX(0);
+        t.setY(0);
+        t.setRotation(rotation);
+        if (left) {
+            spins.rotateLeft(t, probe);
+        } else {
+            spins.rotateRight(t, probe);
+        }
+        if (probe.unsure || t.getX() != 0 || t.getY() != 0
+                || t.getRotation() != rotation) {
+            return ASK_SPIN_SYSTEM;
+        }
+        // the first place it tries is without a kick, which is blocked
+        int first = probe.count > 0 && probe.offsets[0] == 0
+                && probe.offsets[1] == 0 ? 2 : 0;
+        return Arrays.copyOfRange(probe.offsets, first, probe.count * 2);
+    }
+
+    /**
+     * Records a placement if it has not been found yet in this search.
+     *
+     * @param state the state of the placement
+     * @param sameBlocks what to add to the state to get the state in the
+     * first rotation state that fills in the same blocks
+     * @param spin whether the tetromino gets there by rotating last
+     */
+    private void record(int state, int sameBlocks, boolean spin) {
+        int[] stamps = spin ? foundSpin : found;
+        int canonical = state + sameBlocks;
+        if (stamps[canonical] == search) {
+            return;
+        }
+        stamps[canonical] = search;
+
+        placementX[count] = xOf(state);
+        placementY[count] = yOf(state);
+        placementRotation[count] = rotationOf(state);
+        placementSpin[count] = spin;
+        count++;
+    }
+
+    /**
+     * Starts a new search, forgetting every state reached in the last one.
+     */
+    private void nextSearch() {
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            Arrays.fill(landed, 0);
+            Arrays.fill(found, 0);
+            Arrays.fill(foundSpin, 0);
+            search = 1;
+        }
+    }
+
+    /**
+     * Returns the state of a position and rotation.
+     *
+     * @param x the x-value
+     * @param y the y-value
+     * @param rotation the rotation state
+     * @return the state
+     */
+    private static int stateOf(int x, int y, int rotation) {
+        return (rotation * ROWS + y - MIN_Y) * COLUMNS + x - MIN_X;
+    }
+
+    /**
+     * Returns the x-value of a state.
+     *
+     * @param state the state
+     * @return the x-value
+     */
+    private static int xOf(int state) {
+        return state % COLUMNS + MIN_X;
+    }
+
+    /**
+     * Returns the y-value of a state.
+     *
+     * @param state the state
+     * @return the y-value
+     */
+    private static int yOf(int state) {
+        return state / COLUMNS % ROWS + MIN_Y;
+    }
+
+    /**
+     * Returns the rotation state of a state.
+     *
+     * @param state the state
+     * @return the rotation state
+     */
+    private static int rotationOf(int state) {
+        return state / (COLUMNS * ROWS);
+    }
+
+    /**
+     * Returns the id of the type of a tetromino.
+     *
+     * @param t the tetromino
+     * @return the id of its type
+     * @see Randomizer#getId(char)
+     */
+    public static int typeOf(Tetromino t) {
+        return Randomizer.getId(t.getType().charAt(0));
+    }
+
+    /**
+     * Returns a tetromino of the given type to move around while searching.
+     *
+     * @param factory the factory of the tetrominos of the game
+     * @param type the id of the type of the tetromino
+     * @return a tetromino of the type
+     */
+    private Tetromino getScratch(TetrominoFactory<?> factory, int type) {
+        if (factory != scratchFactory) {
+            Arrays.fill(scratch, null);
+            scratchFactory = factory;
+        }
+        if (scratch[type] == null) {
+            Tetromino t = factory.createTetrominoOf(type);
+            Arrays.fill(kicks[type], null);
+            for (int r = 0; r < 4; r++) {
+                shapes[type][r] = t.getMask(r);
+            }
+            for (int r = 0; r < 4; r++) {
+                sameBlocks[type][r] = findSameBlocks(shapes[type], r);
+            }
+            scratch[type] = t;
+        }
+        return scratch[type];
+    }
+
+    /**
+     * Finds the first rotation state that fills in the same blocks as the
+     * given one, once it is moved: the S, Z and I only have two shapes, and
+     * the O only one.
+     *
+     * @param masks the row bitmasks of every rotation state
+     * @param rotation the rotation state
+     * @return what to add to a state in the given rotation state to get the
+     * state that fills in the same blocks in the first rotation state that
+     * does
+     */
+    private static int findSameBlocks(int[][] masks, int rotation) {
+        for (int r = 0; r < rotation; r++) {
+            int row = firstRow(masks[rotation]), otherRow = firstRow(masks[r]),
+                    column = firstColumn(masks[rotation]),
+                    otherColumn = firstColumn(masks[r]);
+            boolean same = true;
+            for (int j = 0; j < 4 && same; j++) {
+                same = rowOf(masks[rotation], row + j, column)
+                        == rowOf(masks[r], otherRow + j, otherColumn);
+            }
+            int dy = row - otherRow, dx = column - otherColumn;
+            if (same) {
+                return ((r - rotation) * ROWS + dy) * COLUMNS + dx;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the first row of a tetromino with a block in it.
+     *
+     * @param masks the row bitmasks of the tetromino
+     * @return the first row with a block
+     */
+    private static int firstRow(int[] masks) {
+        int j = 0;
+        while (j < masks.length - 1 && masks[j] == 0) {
+            j++;
+        }
+        return j;
+    }
+
+    /**
+     * Returns the first column of a tetromino with a block in it.
+     *
+     * @param masks the row bitmasks of the tetromino
+     * @return the first column with a block
+     */
+    private static int firstColumn(int[] masks) {
+        int all = 0;
+        for (int mask : masks) {
+            all |= mask;
+        }
+        return all == 0 ? 0 : Integer.numberOfTrailingZeros(all);
+    }
+
+    /**
+     * Returns a row of a tetromino, moved to the left.
+     *
+     * @param masks the row bitmasks of the tetromino
+     * @param j the row, which may be outside of the tetromino
+     * @param left how many columns to move it left
+     * @return the row bitmask, empty outside of the tetromino
+     */
+    private static int rowOf(int[] masks, int j, int left) {
+        return j < 0 || j >= masks.length ? 0 : masks[j] >>> left;
+    }
+
+    /**
+     * Returns how many placements the last search found
+     *
+     * @return how many placements were found
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the x-value of a placement from the last search
+     *
+     * @param index the index of the placement
+     * @return the x-value of the placement
+     */
+    public int getX(int index) {
+        return placementX[index];
+    }
+
+    /**
+     * Returns the y-value of a placement from the last search
+     *
+     * @param index the index of the placement
+     * @return the y-value of the placement
+     */
+    public int getY(int index) {
+        return placementY[index];
+    }
+
+    /**
+     * Returns the rotation state of a placement from the last search
+     *
+     * @param index the index of the placement
+     * @return the rotation state of the placement
+     */
+    public int getRotation(int index) {
+        return placementRotation[index];
+    }
+
+    /**
+     * Returns whether a placement from the last search gets there by
+     * rotating last
+     *
+     * @param index the index of the placement
+     * @return whether the last move is a rotation
+     */
+    public boolean isSpin(int index) {
+        return placementSpin[index];
+    }
+
+    /**
+     * Returns the row bitmasks of a placement from the last search
+     *
+     * @param index the index of the placement
+     * @return the row bitmasks of the tetromino in the placement
+     */
+    public int[] getMask(int index) {
+        return shapes[type][placementRotation[index]];
+    }
+
+    /**
+     * Determines whether a placement from the last search is a T-spin that
+     * is not a mini: a T that rotated into place with at least three of the
+     * corners around its center filled in, and both of the ones its point
+     * faces.
+     *
+     * @param board the board the tetromino is placed on, before it locks
+     * @param index the index of the placement
+     * @return whether the placement is a T-spin
+     * @see TetrisEngine#countCorners(TetT, Playfield)
+     */
+    public boolean isTSpin(Board board, int index) {
+        if (type != Randomizer.T || !placementSpin[index]) {
+            return false;
+        }
+        TetT tee = (TetT) scratch[type];
+        tee.setX(placementX[index]);
+        tee.setY(placementY[index]);
+        tee.setRotation(placementRotation[index]);
+        return TetrisEngine.countCorners(tee, board) >= 3
+                && tee.filledFaceCorners(board) == 2;
+    }
+
+    /**
+     * Returns a move of the last path found
+     *
+     * @param index the index of the move
+     * @return the move
+     */
+    public GameAction getPathMove(int index) {
+        return path[index];
+    }
+
+    /**
+     * Returns the x-value the tetromino should have after a move of the last
+     * path found
+     *
+     * @param index the index of the move
+     * @return the x-value after the move
+     */
+    public int getPathX(int index) {
+        return xOf(pathStates[index]);
+    }
+
+    /**
+     * Returns the y-value the tetromino should have after a move of the last
+     * path found, if gravity has not pulled it down
+     *
+     * @param index the index of the move
+     * @return the y-value after the move
+     */
+    public int getPathY(int index) {
+        return yOf(pathStates[index]);
+    }
+
+    /**
+     * Returns the rotation state the tetromino should have after a move of
+     * the last path found
+     *
+     * @param index the index of the move
+     * @return the rotation state after the move
+     */
+    public int getPathRotation(int index) {
+        return rotationOf(pathStates[index]);
+    }
+
+    /**
+     * A playfield where nothing fits, which writes down everywhere a
+     * SpinSystem tries to put a tetromino.
+     */
+    private static final class KickProbe implements Playfield {
+
+        /**
+         * The x and y offsets of every place tried, in order
+         */
+        private int[] offsets;
+
+        /**
+         * How many places have been tried
+         */
+        private int count;
+
+        /**
+         * The row bitmasks every place should be tried with
+         */
+        private int[] rotated;
+
+        /**
+         * Whether the SpinSystem did something that makes its kicks depend
+         * on more than whether the tetromino fits
+         */
+        private boolean unsure;
+
+        /**
+         * Creates a new KickProbe.
+         */
+        KickProbe() {
+            offsets = new int[16];
+            count = 0;
+            rotated = null;
+            unsure = false;
+        }
+
+        /**
+         * Starts writing down the places tried for a new rotation.
+         *
+         * @param rotated the row bitmasks of the new rotation state
+         */
+        void start(int[] rotated) {
+            this.rotated = rotated;
+            count = 0;
+            unsure = false;
+        }
+
+        @Override
+        public int getBlock(int r, int c) {
+            unsure = true;
+            return 1;
+        }
+
+        @Override
+        public boolean intersects(int[] masks, int x, int y) {
+            if (!Arrays.equals(masks, rotated)) {
+                unsure = true;
+            }
+            if (count * 2 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count * 2] = x;
+            offsets[count * 2 + 1] = y;
+            count++;
+            return true;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.github.leftisttachyon.tetris.tetrominos;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 
 /**
  * An implementing class of Tetromino that has more utility methods.
@@ -122,23 +122,13 @@ public abstract class AbstractTetromino implements Tetromino {
     }
 
     @Override
-    public boolean intersects(TetrisMatrix m) {
+    public boolean intersects(Playfield m) {
         return intersects(m, 0, 0);
     }
 
     @Override
-    public boolean intersects(TetrisMatrix m, int x_offset, int y_offset) {
-        int[][] myMat = getState();
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                if (myMat[j][i] > 0
-                        && m.getBlock(y + j + y_offset, x + i + x_offset) > 0) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+    public boolean intersects(Playfield m, int x_offset, int y_offset) {
+        return m.intersects(getMask(), x + x_offset, y + y_offset);
     }
 
     @Override
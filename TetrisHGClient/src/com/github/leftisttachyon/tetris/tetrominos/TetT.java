@@ -1,6 +1,6 @@
 package com.github.leftisttachyon.tetris.tetrominos;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 import java.awt.Point;
 
 /**
@@ -27,9 +27,9 @@ public interface TetT extends Tetromino {
      * Determines how many corners are filled in on the "face" side; aka the one
      * opposite of the flat side
      *
-     * @param m the TetrisMatrix that contains the information about the playing
+     * @param m the Playfield that contains the information about the playing
      * field
      * @return how many corners are filled in on the "face" side
      */
-    int filledFaceCorners(TetrisMatrix m);
+    int filledFaceCorners(Playfield m);
 }
@@ -1,6 +1,7 @@
 package com.github.leftisttachyon.tetris.tetrominos;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
+import com.github.leftisttachyon.util.TetrisUtils;
 
 /**
  * An interface that represents a Tetris piece. (aka a tetromino)
@@ -143,6 +144,41 @@ public interface Tetromino {
         }
     }
 
+    /**
+     * Returns the given rotation state of this tetromino as one bitmask per
+     * row: bit {@code i} of row {@code j} is set if the mino at row {@code j}
+     * and column {@code i} of the 4x4 state is filled in. Implementing classes
+     * should precompute these once instead of relying on this default, which
+     * builds them on every call.
+     *
+     * @param rotation the rotation state to get the bitmasks of
+     * @return the row bitmasks of the given rotation state
+     */
+    default int[] getMask(int rotation) {
+        switch (rotation) {
+            case UP:
+                return TetrisUtils.toRowMask(getUpState());
+            case DOWN:
+                return TetrisUtils.toRowMask(getDownState());
+            case LEFT:
+                return TetrisUtils.toRowMask(getLeftState());
+            case RIGHT:
+                return TetrisUtils.toRowMask(getRightState());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the current rotation state of this tetromino as row bitmasks.
+     *
+     * @return the row bitmasks of the current rotation state
+     * @see #getMask(int)
+     */
+    default int[] getMask() {
+        return getMask(getRotation());
+    }
+
     /**
      * The default, unrotated state of a tetromino.
      */
@@ -213,28 +249,44 @@ public interface Tetromino {
     }
 
     /**
-     * Determines whether this tetromino intersects with the given TetrisMatrix with
+     * Determines whether this tetromino intersects with the given Playfield with
  the internally stored position.
      *
-     * @param m the TetrisMatrix to compare with
-     * @return whether this tetromino intersects with the given TetrisMatrix with the
+     * @param m the Playfield to compare with
+     * @return whether this tetromino intersects with the given Playfield with the
  internally stored position
      * @see #intersects(int[][])
      */
-    boolean intersects(TetrisMatrix m);
+    boolean intersects(Playfield m);
 
     /**
-     * Determines whether this tetromino intersects with the given TetrisMatrix with
+     * Determines whether this tetromino intersects with the given Playfield with
  the internally stored position with the offset factored in.
      *
-     * @param m the TetrisMatrix to compare with
+     * @param m the Playfield to compare with
      * @param x_offset the offset in the x direction
      * @param y_offset the offset in the y direction
-     * @return whether this tetromino intersects with the given TetrisMatrix with the
+     * @return whether this tetromino intersects with the given Playfield with the
  internally stored position with the offset factored in
      * @see #intersects(int[][])
      */
-    boolean intersects(TetrisMatrix m, int x_offset, int y_offset);
+    boolean intersects(Playfield m, int x_offset, int y_offset);
+
+    /**
+     * Determines whether this tetromino would intersect with the given
+     * Playfield if it were placed at the given position and rotation state,
+     * without moving or rotating this tetromino.
+     *
+     * @param m the Playfield to compare with
+     * @param x the x-value to test
+     * @param y the y-value to test
+     * @param rotation the rotation state to test
+     * @return whether this tetromino would intersect with the given
+     * Playfield at the given position and rotation state
+     */
+    default boolean intersectsAt(Playfield m, int x, int y, int rotation) {
+        return m.intersects(getMask(rotation), x, y);
+    }
 
     /**
      * Sets the current x value of this tetromino to the given integer.
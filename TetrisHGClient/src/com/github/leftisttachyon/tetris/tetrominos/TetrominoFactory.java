@@ -1,8 +1,10 @@
 package com.github.leftisttachyon.tetris.tetrominos;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import com.github.leftisttachyon.tetris.tetrominos.random.BagRandomizer;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * An abstract class that can be implemented to create a Tetromino factory.
@@ -13,6 +15,14 @@ import java.util.List;
  */
 public abstract class TetrominoFactory<T extends Tetromino> {
 
+    /**
+     * The type of each tetromino, by its id
+     *
+     * @see Randomizer#TYPES
+     */
+    private static final String[] TYPE_NAMES = {"I", "J", "L", "O", "S", "T",
+        "Z"};
+
     /**
      * Creates a new Tetromino of the given type
      *
@@ -21,6 +31,31 @@ public abstract class TetrominoFactory<T extends Tetromino> {
      */
     public abstract T createTetrominoOf(String type);
 
+    /**
+     * Creates a new Tetromino with the given id
+     *
+     * @param id the id of the Tetromino to create, as given by a Randomizer
+     * @return the new Tetromino, or null if there is no such Tetromino
+     * @see Randomizer#TYPES
+     */
+    public T createTetrominoOf(int id) {
+        if (id < 0 || id >= TYPE_NAMES.length) {
+            return null;
+        }
+        return createTetrominoOf(TYPE_NAMES[id]);
+    }
+
+    /**
+     * Creates the Randomizer that decides the order of the tetrominos of this
+     * factory. By default, this is a 7-bag.
+     *
+     * @param random where the randomness comes from
+     * @return a new Randomizer
+     */
+    public Randomizer createRandomizer(Random random) {
+        return new BagRandomizer(random);
+    }
+
     /**
      * Creates a bag from the given String. The String should contain all 7
      * tetrominos in a random order. They all need to be in uppercase.
@@ -29,9 +64,10 @@ public abstract class TetrominoFactory<T extends Tetromino> {
      * @return the generated bag
      */
     public List<T> createBagOf(String tetrominos) {
-        List<T> output = new LinkedList<>();
-        for (String s : tetrominos.split("")) {
-            output.add(createTetrominoOf(s));
+        List<T> output = new ArrayList<>(tetrominos.length());
+        for (int i = 0; i < tetrominos.length(); i++) {
+            output.add(createTetrominoOf(
+                    Randomizer.getId(tetrominos.charAt(i))));
         }
         return output;
     }
@@ -43,18 +79,22 @@ public abstract class TetrominoFactory<T extends Tetromino> {
      * @return a random bag of tetrominos
      */
     public List<T> createRandomBag() {
-        List<T> output = new LinkedList<>();
-
-        output.add(createTetrominoOf("I"));
-        output.add(createTetrominoOf("J"));
-        output.add(createTetrominoOf("L"));
-        output.add(createTetrominoOf("O"));
-        output.add(createTetrominoOf("S"));
-        output.add(createTetrominoOf("T"));
-        output.add(createTetrominoOf("Z"));
-
-        Collections.shuffle(output);
+        return createRandomBag(new Random());
+    }
 
+    /**
+     * Creates a random bag of tetrominos, shuffled with the given Random.
+     * Inside the list is all 7 tetrominos, in a random order.
+     *
+     * @param random the Random to shuffle the bag with
+     * @return a random bag of tetrominos
+     */
+    public List<T> createRandomBag(Random random) {
+        Randomizer bag = new BagRandomizer(random);
+        List<T> output = new ArrayList<>(Randomizer.PIECES);
+        for (int i = 0; i < Randomizer.PIECES; i++) {
+            output.add(createTetrominoOf(bag.next()));
+        }
         return output;
     }
 }
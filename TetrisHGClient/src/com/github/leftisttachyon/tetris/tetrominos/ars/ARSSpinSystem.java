@@ -1,6 +1,6 @@
 package com.github.leftisttachyon.tetris.tetrominos.ars;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 import com.github.leftisttachyon.tetris.SpinSystem;
 import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
 
@@ -33,7 +33,7 @@ public class ARSSpinSystem extends SpinSystem<ARSTet> {
     }
 
     @Override
-    public void rotateRight(ARSTet t, TetrisMatrix m) {
+    public void rotateRight(ARSTet t, Playfield m) {
         if (t == null) {
             throw new IllegalArgumentException("Tried to rotate a null piece using ARS.");
         }
@@ -75,7 +75,7 @@ public class ARSSpinSystem extends SpinSystem<ARSTet> {
     }
 
     @Override
-    public void rotateLeft(ARSTet t, TetrisMatrix m) {
+    public void rotateLeft(ARSTet t, Playfield m) {
         if (t == null) {
             throw new IllegalArgumentException("Tried to rotate a null piece using ARS.");
         }
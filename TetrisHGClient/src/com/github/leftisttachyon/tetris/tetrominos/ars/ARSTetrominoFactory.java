@@ -1,9 +1,13 @@
 package com.github.leftisttachyon.tetris.tetrominos.ars;
 
 import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
+import com.github.leftisttachyon.tetris.tetrominos.random.HistoryRandomizer;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
+import java.util.Random;
 
 /**
- * A Tetromino factory that manufactures ARS tetrominos.
+ * A Tetromino factory that manufactures ARS tetrominos. Like The Grand Master,
+ * their order is decided by a {@link HistoryRandomizer}.
  *
  * @author Jed Wang
  * @since 0.9.0
@@ -53,4 +57,9 @@ public class ARSTetrominoFactory extends TetrominoFactory<ARSTet> {
         }
     }
 
+    @Override
+    public Randomizer createRandomizer(Random random) {
+        return new HistoryRandomizer(random);
+    }
+
 }
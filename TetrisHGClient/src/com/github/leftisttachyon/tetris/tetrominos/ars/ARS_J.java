@@ -2,6 +2,7 @@ package com.github.leftisttachyon.tetris.tetrominos.ars;
 
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetJ;
+import com.github.leftisttachyon.util.TetrisUtils;
 
 /**
  * A class that represents the J tetromino in the Arika Rotation System.
@@ -52,6 +53,17 @@ public final class ARS_J extends AbstractTetromino implements TetJ, ARSTet {
         {0, 0, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            UP_STATE, RIGHT_STATE, DOWN_STATE, LEFT_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return UP_STATE;
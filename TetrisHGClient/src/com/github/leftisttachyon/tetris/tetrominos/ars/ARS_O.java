@@ -2,6 +2,7 @@ package com.github.leftisttachyon.tetris.tetrominos.ars;
 
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetO;
+import com.github.leftisttachyon.util.TetrisUtils;
 
 /**
  * A class that represents the O tetromino in the Arika Rotation System.
@@ -24,6 +25,17 @@ public final class ARS_O extends AbstractTetromino implements TetO, ARSTet {
         {0, 0, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            ONLY_STATE, ONLY_STATE, ONLY_STATE, ONLY_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return ONLY_STATE;
@@ -2,6 +2,7 @@ package com.github.leftisttachyon.tetris.tetrominos.ars;
 
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetS;
+import com.github.leftisttachyon.util.TetrisUtils;
 
 /**
  * A class that represents the S tetromino in the Arika Rotation System.
@@ -32,6 +33,17 @@ public final class ARS_S extends AbstractTetromino implements TetS, ARSTet {
         {0, 0, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            VERTICAL_STATE, HORIZONTAL_STATE, VERTICAL_STATE, HORIZONTAL_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return VERTICAL_STATE;
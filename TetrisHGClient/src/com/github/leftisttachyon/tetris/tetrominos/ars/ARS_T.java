@@ -1,8 +1,9 @@
 package com.github.leftisttachyon.tetris.tetrominos.ars;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetT;
+import com.github.leftisttachyon.util.TetrisUtils;
 import java.awt.Point;
 
 /**
@@ -55,6 +56,17 @@ public final class ARS_T extends AbstractTetromino implements TetT, ARSTet {
     };
     
     
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            UP_STATE, RIGHT_STATE, DOWN_STATE, LEFT_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return UP_STATE;
@@ -96,7 +108,7 @@ public final class ARS_T extends AbstractTetromino implements TetT, ARSTet {
     }
 
     @Override
-    public int filledFaceCorners(TetrisMatrix m) {
+    public int filledFaceCorners(Playfield m) {
         Point center = getCenter();
         int cx = center.x + x, cy = center.y + y;
         
@@ -1,7 +1,7 @@
 package com.github.leftisttachyon.tetris.tetrominos.nes;
 
 import com.github.leftisttachyon.tetris.SpinSystem;
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 
 /**
  * The SpinSystem for the Nintendo Spin System
@@ -32,7 +32,7 @@ public class NESSpinSystem extends SpinSystem<NESTet> {
     }
 
     @Override
-    public void rotateRight(NESTet t, TetrisMatrix m) {
+    public void rotateRight(NESTet t, Playfield m) {
         if (t == null) {
             throw new IllegalArgumentException("Tried to rotate a null piece using NES.");
         }
@@ -44,7 +44,7 @@ public class NESSpinSystem extends SpinSystem<NESTet> {
     }
 
     @Override
-    public void rotateLeft(NESTet t, TetrisMatrix m) {
+    public void rotateLeft(NESTet t, Playfield m) {
         if (t == null) {
             throw new IllegalArgumentException("Tried to rotate a null piece using NES.");
         }
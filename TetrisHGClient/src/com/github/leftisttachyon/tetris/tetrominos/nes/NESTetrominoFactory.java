@@ -2,9 +2,13 @@ package com.github.leftisttachyon.tetris.tetrominos.nes;
 
 import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
 import com.github.leftisttachyon.tetris.tetrominos.ars.ARSTetrominoFactory;
+import com.github.leftisttachyon.tetris.tetrominos.random.NESRandomizer;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
+import java.util.Random;
 
 /**
- * A Tetromino factory that manufactures NES tetrominos.
+ * A Tetromino factory that manufactures NES tetrominos. Like the NES, their
+ * order is decided by a {@link NESRandomizer}.
  *
  * @author Jed Wang
  * @since 1.0.0
@@ -53,4 +57,8 @@ public class NESTetrominoFactory extends TetrominoFactory<NESTet> {
         }
     }
 
+    @Override
+    public Randomizer createRandomizer(Random random) {
+        return new NESRandomizer(random);
+    }
 }
@@ -2,6 +2,7 @@ package com.github.leftisttachyon.tetris.tetrominos.nes;
 
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetL;
+import com.github.leftisttachyon.util.TetrisUtils;
 
 /**
  * A class that represents the L tetromino in the Nintendo Rotation System.
@@ -39,6 +40,17 @@ public class NES_L extends AbstractTetromino implements TetL, NESTet{
         {0, 0, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            UP_STATE, RIGHT_STATE, DOWN_STATE, LEFT_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return UP_STATE;
@@ -2,6 +2,7 @@ package com.github.leftisttachyon.tetris.tetrominos.nes;
 
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetS;
+import com.github.leftisttachyon.util.TetrisUtils;
 
 /**
  * A class that represents the S tetromino in the Nintendo Rotation System.
@@ -25,6 +26,17 @@ public class NES_S extends AbstractTetromino implements TetS, NESTet {
         {0, 0, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            UP_DOWN, LEFT_RIGHT, UP_DOWN, LEFT_RIGHT);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return UP_DOWN;
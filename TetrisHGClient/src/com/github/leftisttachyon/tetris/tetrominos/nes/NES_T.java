@@ -1,8 +1,9 @@
 package com.github.leftisttachyon.tetris.tetrominos.nes;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetT;
+import com.github.leftisttachyon.util.TetrisUtils;
 import java.awt.Point;
 
 /**
@@ -41,6 +42,17 @@ public class NES_T extends AbstractTetromino implements TetT, NESTet{
         {0, 0, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            UP_STATE, RIGHT_STATE, DOWN_STATE, LEFT_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return UP_STATE;
@@ -74,7 +86,7 @@ public class NES_T extends AbstractTetromino implements TetT, NESTet{
     }
 
     @Override
-    public int filledFaceCorners(TetrisMatrix m) {
+    public int filledFaceCorners(Playfield m) {
         int output = 0;
         if ((rotation == UP || rotation == RIGHT) && m.getBlock(x + 1, y + 2) != 0) {
             output++;
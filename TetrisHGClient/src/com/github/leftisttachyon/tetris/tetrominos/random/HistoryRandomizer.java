@@ -0,0 +1,114 @@
+package com.github.leftisttachyon.tetris.tetrominos.random;
+
+import java.util.Random;
+
+/**
+ * The randomizer of The Grand Master: it remembers the last four tetrominos,
+ * and rolls again, up to a number of times, when it rolls one of them. The
+ * history starts out as four Z's, and the first tetromino is never an S, Z or
+ * O, so a game never starts with an overhang.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class HistoryRandomizer extends Randomizer {
+
+    /**
+     * How many tetrominos are remembered
+     */
+    public static final int HISTORY = 4;
+
+    /**
+     * The tetrominos a game can start with
+     */
+    private static final int[] FIRST = {I, J, L, T};
+
+    /**
+     * How many times to roll before taking a tetromino in the history anyway
+     */
+    private final int rolls;
+
+    /**
+     * The last tetrominos, as a ring
+     */
+    private final int[] history;
+
+    /**
+     * Where the oldest tetromino in the history is
+     */
+    private int oldest;
+
+    /**
+     * Whether the first tetromino has been decided
+     */
+    private boolean started;
+
+    /**
+     * Creates a randomizer like that of the first Grand Master, which rolls
+     * up to four times.
+     *
+     * @param random where the randomness comes from
+     */
+    public HistoryRandomizer(Random random) {
+        this(random, 4);
+    }
+
+    /**
+     * Creates a new HistoryRandomizer.
+     *
+     * @param random where the randomness comes from
+     * @param rolls how many times to roll before taking a tetromino in the
+     * history anyway
+     */
+    public HistoryRandomizer(Random random, int rolls) {
+        super(random);
+        if (rolls <= 0) {
+            throw new IllegalArgumentException("There must be a roll");
+        }
+        this.rolls = rolls;
+        history = new int[HISTORY];
+        reset();
+    }
+
+    @Override
+    public int next() {
+        int piece;
+        if (!started) {
+            started = true;
+            piece = FIRST[random.nextInt(FIRST.length)];
+        } else {
+            piece = random.nextInt(PIECES);
+            for (int roll = 1; roll < rolls && inHistory(piece); roll++) {
+                piece = random.nextInt(PIECES);
+            }
+        }
+
+        history[oldest] = piece;
+        oldest = (oldest + 1) % HISTORY;
+        return piece;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < HISTORY; i++) {
+            history[i] = Z;
+        }
+        oldest = 0;
+        started = false;
+    }
+
+    /**
+     * Determines whether a tetromino is one of the last few
+     *
+     * @param piece the id of the tetromino
+     * @return whether it is in the history
+     */
+    private boolean inHistory(int piece) {
+        for (int i = 0; i < HISTORY; i++) {
+            if (history[i] == piece) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
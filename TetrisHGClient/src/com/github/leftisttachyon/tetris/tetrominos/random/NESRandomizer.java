@@ -0,0 +1,44 @@
+package com.github.leftisttachyon.tetris.tetrominos.random;
+
+import java.util.Random;
+
+/**
+ * The randomizer of NES Tetris: it rolls one of eight, and if the roll is the
+ * eighth or the same as the last tetromino, it rolls once more among the
+ * seven and takes whatever comes up. Repeats are rare, but not impossible.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class NESRandomizer extends Randomizer {
+
+    /**
+     * The last tetromino, or -1 if there has not been one
+     */
+    private int last;
+
+    /**
+     * Creates a new NESRandomizer.
+     *
+     * @param random where the randomness comes from
+     */
+    public NESRandomizer(Random random) {
+        super(random);
+        last = -1;
+    }
+
+    @Override
+    public int next() {
+        int piece = random.nextInt(PIECES + 1);
+        if (piece == PIECES || piece == last) {
+            piece = random.nextInt(PIECES);
+        }
+        last = piece;
+        return piece;
+    }
+
+    @Override
+    public void reset() {
+        last = -1;
+    }
+}
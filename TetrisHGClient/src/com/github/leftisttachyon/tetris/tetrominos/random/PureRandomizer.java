@@ -0,0 +1,31 @@
+package com.github.leftisttachyon.tetris.tetrominos.random;
+
+import java.util.Random;
+
+/**
+ * A randomizer with no memory: every tetromino is as likely as any other,
+ * every time.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class PureRandomizer extends Randomizer {
+
+    /**
+     * Creates a new PureRandomizer.
+     *
+     * @param random where the randomness comes from
+     */
+    public PureRandomizer(Random random) {
+        super(random);
+    }
+
+    @Override
+    public int next() {
+        return random.nextInt(PIECES);
+    }
+
+    @Override
+    public void reset() {
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.leftisttachyon.tetris.tetrominos.random;
+
+import java.util.Random;
+
+/**
+ * Decides the order tetrominos come in. Tetrominos are given as ids from 0 to
+ * 6, in the order of {@link #TYPES}, so that long sequences can be made into
+ * plain int arrays without creating any objects. All randomness comes from
+ * the Random a randomizer is given, so that two randomizers of the same kind
+ * given Randoms with the same seed make the same sequence.
+ * <p>
+ * Randomizers are not thread-safe.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public abstract class Randomizer {
+
+    /**
+     * The id of the I tetromino
+     */
+    public static final int I = 0;
+
+    /**
+     * The id of the J tetromino
+     */
+    public static final int J = 1;
+
+    /**
+     * The id of the L tetromino
+     */
+    public static final int L = 2;
+
+    /**
+     * The id of the O tetromino
+     */
+    public static final int O = 3;
+
+    /**
+     * The id of the S tetromino
+     */
+    public static final int S = 4;
+
+    /**
+     * The id of the T tetromino
+     */
+    public static final int T = 5;
+
+    /**
+     * The id of the Z tetromino
+     */
+    public static final int Z = 6;
+
+    /**
+     * The amount of different tetrominos
+     */
+    public static final int PIECES = 7;
+
+    /**
+     * The type of each tetromino, by its id
+     */
+    public static final String TYPES = "IJLOSTZ";
+
+    /**
+     * Where the randomness comes from
+     */
+    protected final Random random;
+
+    /**
+     * Creates a new Randomizer.
+     *
+     * @param random where the randomness comes from
+     */
+    protected Randomizer(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Decides the next tetromino.
+     *
+     * @return the id of the next tetromino
+     */
+    public abstract int next();
+
+    /**
+     * Forgets everything decided so far, as if this randomizer were new. The
+     * Random is not reseeded.
+     */
+    public abstract void reset();
+
+    /**
+     * Decides the next few tetrominos.
+     *
+     * @param ids where to put the ids of the tetrominos
+     * @param offset where in the array to start
+     * @param length how many tetrominos to decide
+     */
+    public void fill(int[] ids, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            ids[i] = next();
+        }
+    }
+
+    /**
+     * Decides the next few tetrominos.
+     *
+     * @param count how many tetrominos to decide
+     * @return the ids of the tetrominos
+     */
+    public int[] next(int count) {
+        int[] ids = new int[count];
+        fill(ids, 0, count);
+        return ids;
+    }
+
+    /**
+     * Returns the type of the tetromino with the given id
+     *
+     * @param id the id of a tetromino
+     * @return its type, like 'I'
+     */
+    public static char getType(int id) {
+        return TYPES.charAt(id);
+    }
+
+    /**
+     * Returns the id of the tetromino of the given type
+     *
+     * @param type the type of a tetromino, like 'I'
+     * @return its id, or -1 if there is no such tetromino
+     */
+    public static int getId(char type) {
+        return TYPES.indexOf(type);
+    }
+}
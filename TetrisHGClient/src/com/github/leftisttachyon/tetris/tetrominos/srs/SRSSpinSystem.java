@@ -1,6 +1,6 @@
 package com.github.leftisttachyon.tetris.tetrominos.srs;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 import com.github.leftisttachyon.tetris.SpinSystem;
 import static com.github.leftisttachyon.tetris.tetrominos.Tetromino.*;
 
@@ -33,7 +33,7 @@ public class SRSSpinSystem extends SpinSystem<SRSTet> {
     }
 
     @Override
-    public void rotateRight(SRSTet t, TetrisMatrix m) {
+    public void rotateRight(SRSTet t, Playfield m) {
         t.rotateRight();
         if (!t.intersects(m)) {
             return;
@@ -202,7 +202,7 @@ public class SRSSpinSystem extends SpinSystem<SRSTet> {
     }
 
     @Override
-    public void rotateLeft(SRSTet t, TetrisMatrix m) {
+    public void rotateLeft(SRSTet t, Playfield m) {
         t.rotateLeft();
         if (!t.intersects(m)) {
             return;
@@ -2,6 +2,7 @@ package com.github.leftisttachyon.tetris.tetrominos.srs;
 
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetI;
+import com.github.leftisttachyon.util.TetrisUtils;
 
 /**
  * A class that represents the I tetromino in the Super Rotation System.
@@ -52,6 +53,17 @@ public final class SRS_I extends AbstractTetromino implements TetI, SRSTet {
             {0, 1, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            UP_STATE, RIGHT_STATE, DOWN_STATE, LEFT_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return UP_STATE;
@@ -1,8 +1,9 @@
 package com.github.leftisttachyon.tetris.tetrominos.srs;
 
-import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.Playfield;
 import com.github.leftisttachyon.tetris.tetrominos.AbstractTetromino;
 import com.github.leftisttachyon.tetris.tetrominos.TetT;
+import com.github.leftisttachyon.util.TetrisUtils;
 import java.awt.Point;
 
 /**
@@ -54,6 +55,17 @@ public final class SRS_T extends AbstractTetromino implements TetT, SRSTet {
         {0, 6, 0, 0}
     };
 
+    /**
+     * The row bitmasks of each rotation state, indexed by rotation
+     */
+    private static final int[][] MASKS = TetrisUtils.toRowMasks(
+            UP_STATE, RIGHT_STATE, DOWN_STATE, LEFT_STATE);
+
+    @Override
+    public int[] getMask(int rotation) {
+        return MASKS[rotation];
+    }
+
     @Override
     public int[][] getUpState() {
         return UP_STATE;
@@ -90,7 +102,7 @@ public final class SRS_T extends AbstractTetromino implements TetT, SRSTet {
     }
 
     @Override
-    public int filledFaceCorners(TetrisMatrix m) {
+    public int filledFaceCorners(Playfield m) {
         int output = 0;
         if ((rotation == UP || rotation == RIGHT) && m.getBlock(x, y + 1) != 0) {
             output++;
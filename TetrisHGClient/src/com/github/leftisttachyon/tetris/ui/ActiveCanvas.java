@@ -0,0 +1,237 @@
+package com.github.leftisttachyon.tetris.ui;
+
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.DisplayMode;
+import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A Canvas that draws a TetrisPanel by itself on a thread of its own, instead
+ * of waiting for Swing to repaint. Frames are drawn into a BufferStrategy
+ * (flipping pages if the graphics card can) at the refresh rate of the screen,
+ * and how long each one takes is measured.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class ActiveCanvas extends Canvas {
+
+    /**
+     * The version of this class, for serialization
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The frame rate to use if the screen does not say its refresh rate
+     */
+    private static final int DEFAULT_RATE = 60;
+
+    /**
+     * How much each new render time counts in the average
+     */
+    private static final double SMOOTHING = 0.05;
+
+    /**
+     * The panel that is drawn
+     */
+    private final TetrisPanel panel;
+
+    /**
+     * The thread drawing frames, or null if stopped
+     */
+    private Thread thread;
+
+    /**
+     * Whether frames should keep being drawn
+     */
+    private volatile boolean running;
+
+    /**
+     * How long drawing the last frame took, in milliseconds
+     */
+    private volatile double lastRenderTime;
+
+    /**
+     * A moving average of how long drawing a frame takes, in milliseconds
+     */
+    private volatile double averageRenderTime;
+
+    /**
+     * The longest drawing a frame has taken, in milliseconds
+     */
+    private volatile double maxRenderTime;
+
+    /**
+     * Creates a new ActiveCanvas.
+     *
+     * @param panel the panel to draw
+     */
+    public ActiveCanvas(TetrisPanel panel) {
+        this.panel = panel;
+        thread = null;
+        running = false;
+
+        setPreferredSize(panel.getPreferredSize());
+        setIgnoreRepaint(true);
+        addKeyListener(panel.keyMapKeys);
+        addKeyListener(panel.handler);
+        addKeyListener(panel.statsKeys);
+    }
+
+    /**
+     * Starts drawing frames. The canvas has to be showing already. Starting a
+     * canvas that is drawing has no effect.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        createStrategy();
+        running = true;
+        thread = new Thread(this::run, "Renderer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops drawing frames once the current one is done.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread = null;
+        }
+    }
+
+    /**
+     * Creates the BufferStrategy, flipping pages if possible.
+     */
+    private void createStrategy() {
+        try {
+            createBufferStrategy(2, new BufferCapabilities(
+                    new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED));
+        } catch (AWTException ex) {
+            // no page flipping here; take whatever is avaliable
+            createBufferStrategy(2);
+        }
+    }
+
+    /**
+     * Determines how many frames to draw a second: the refresh rate of the
+     * screen this canvas is on, if known.
+     *
+     * @return the frames to draw a second
+     */
+    private int getFrameRate() {
+        GraphicsDevice device = getGraphicsConfiguration() == null
+                ? GraphicsEnvironment.getLocalGraphicsEnvironment()
+                        .getDefaultScreenDevice()
+                : getGraphicsConfiguration().getDevice();
+        int rate = device.getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_RATE : rate;
+    }
+
+    /**
+     * Draws frames until stopped.
+     */
+    private void run() {
+        long period = 1_000_000_000L / getFrameRate();
+        long next = System.nanoTime();
+        BufferStrategy strategy = getBufferStrategy();
+
+        while (running) {
+            long start = System.nanoTime();
+            try {
+                render(strategy);
+            } catch (IllegalStateException ex) {
+                // the buffers went away, for example while hiding
+                if (!running) {
+                    break;
+                }
+                createStrategy();
+                strategy = getBufferStrategy();
+            }
+            record((System.nanoTime() - start) / 1_000_000.0);
+
+            next += period;
+            long wait = next - System.nanoTime();
+            if (wait < -period) {
+                // far behind; do not rush out frames to catch up
+                next = System.nanoTime();
+            }
+            while (running && (wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**
+     * Draws one frame and shows it, drawing it again if the buffers were lost.
+     *
+     * @param strategy the strategy to draw with
+     */
+    private void render(BufferStrategy strategy) {
+        do {
+            do {
+                Graphics2D g2D = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    panel.render(g2D, getWidth(), getHeight());
+                } finally {
+                    g2D.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    /**
+     * Records how long drawing a frame took.
+     *
+     * @param time how long the frame took, in milliseconds
+     */
+    private void record(double time) {
+        lastRenderTime = time;
+        averageRenderTime = averageRenderTime == 0 ? time
+                : averageRenderTime + (time - averageRenderTime) * SMOOTHING;
+        maxRenderTime = Math.max(maxRenderTime, time);
+    }
+
+    /**
+     * Returns how long drawing the last frame took
+     *
+     * @return the last render time in milliseconds
+     */
+    public double getLastRenderTime() {
+        return lastRenderTime;
+    }
+
+    /**
+     * Returns a moving average of how long drawing a frame takes
+     *
+     * @return the average render time in milliseconds
+     */
+    public double getAverageRenderTime() {
+        return averageRenderTime;
+    }
+
+    /**
+     * Returns the longest drawing a frame has taken
+     *
+     * @return the longest render time in milliseconds
+     */
+    public double getMaxRenderTime() {
+        return maxRenderTime;
+    }
+}
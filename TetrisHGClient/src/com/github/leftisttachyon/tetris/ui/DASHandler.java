@@ -1,136 +1,362 @@
 package com.github.leftisttachyon.tetris.ui;
 
-import java.awt.Point;
+import com.github.leftisttachyon.tetris.GameAction;
+import com.github.leftisttachyon.tetris.InputState;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import static java.awt.event.KeyEvent.*;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 
 /**
- * A KeyListener that controls DAS.
+ * A KeyListener that controls DAS. Keys are turned into actions by a
+ * {@link KeyMap}, and key presses another listener has consumed are ignored.
+ * Key events are stamped with {@link System#nanoTime()} as they come in on the
+ * event dispatch thread and handed to the thread running the game through an
+ * {@link InputQueue}; every other method is only called by the thread running
+ * the game, which replays the events in order when it advances a frame. How
+ * long a key has been held is measured against those stamps rather than in
+ * frames, so a DAS or ARR that is not a whole number of frames works, a key
+ * tapped between two frames still counts, and an action can happen more than
+ * once in a frame.
+ * <p>
+ * The actions to perform each frame are returned as a bitmask, and how many
+ * times each was performed can be asked for afterwards; advancing a frame
+ * creates no objects.
  *
  * @author Jed Wang
  * @since 0.9.0
  */
-public class DASHandler extends KeyAdapter {
+public class DASHandler extends KeyAdapter implements InputState {
 
     /**
-     * A HashMap that stores the pressed keys
+     * How many times an action repeating with an ARR of 0 is performed: as
+     * many times as it can be
      */
-    private HashMap<Integer, int[]> pressed;
+    public static final int INSTANT = Integer.MAX_VALUE;
 
     /**
-     * A HashMap that stores the DAS settings for each key
+     * How long a frame is, in nanoseconds
      */
-    private HashMap<Integer, Point> keys;
+    public static final long FRAME_NANOS = 1_000_000_000L
+            / TetrisPanel.FRAME_RATE;
 
     /**
-     * Creates a new DASHandler.
+     * How many key events can wait for the next frame
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * Which key does each action
+     */
+    private final KeyMap keyMap;
+
+    /**
+     * The key events that have not been replayed yet. The code of an event is
+     * the ordinal of its action shifted left once, plus 1 if it was a press.
+     */
+    private final InputQueue events;
+
+    /**
+     * Whether each action is being paid attention to
+     */
+    private final boolean[] listened;
+
+    /**
+     * How long the key of each action has to be held before the action
+     * repeats, in nanoseconds, or -1 for no repeat
+     */
+    private final long[] das;
+
+    /**
+     * The time between repeats of each action, in nanoseconds; 0 repeats it
+     * as many times as it can be every frame
+     */
+    private final long[] arr;
+
+    /**
+     * Whether the key of each action is down
+     */
+    private final boolean[] held;
+
+    /**
+     * Whether each action is going to repeat; false once the opposite
+     * direction has been pressed
+     */
+    private final boolean[] repeating;
+
+    /**
+     * When each action next repeats, from {@link System#nanoTime()}
+     */
+    private final long[] nextRepeat;
+
+    /**
+     * How many times each action is performed in the frame being advanced
+     */
+    private final int[] counts;
+
+    /**
+     * How many times each action was performed in the last frame
+     */
+    private final int[] repeats;
+
+    /**
+     * Creates a new DASHandler with the keys of the player.
+     *
+     * @see KeyMap#getKeyMap()
      */
     public DASHandler() {
-        pressed = new HashMap<>();
-        keys = new HashMap<>();
+        this(KeyMap.getKeyMap());
+    }
+
+    /**
+     * Creates a new DASHandler.
+     *
+     * @param keyMap which key does each action
+     */
+    public DASHandler(KeyMap keyMap) {
+        this.keyMap = keyMap;
+        events = new InputQueue(QUEUE_CAPACITY);
+        listened = new boolean[GameAction.COUNT];
+        das = new long[GameAction.COUNT];
+        arr = new long[GameAction.COUNT];
+        held = new boolean[GameAction.COUNT];
+        repeating = new boolean[GameAction.COUNT];
+        nextRepeat = new long[GameAction.COUNT];
+        counts = new int[GameAction.COUNT];
+        repeats = new int[GameAction.COUNT];
     }
 
     @Override
     public void keyPressed(KeyEvent e) {
-        int keyCode = e.getKeyCode();
-        if (keys.containsKey(keyCode) && pressed.get(keyCode)[1] == -2) {
-            pressed.put(keyCode, new int[]{1, 0});
-            
-            if (keyCode == VK_LEFT && isPressed(VK_RIGHT)) {
-                pressed.put(VK_RIGHT, new int[]{2, -1});
-            }
-            if (keyCode == VK_RIGHT && isPressed(VK_LEFT)) {
-                pressed.put(VK_LEFT, new int[]{2, -1});
-            }
+        if (e.isConsumed()) {
+            return;
+        }
+        GameAction action = keyMap.getAction(e.getKeyCode());
+        if (action != null) {
+            press(action, System.nanoTime());
         }
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
-        int keyCode = e.getKeyCode();
-        if (keys.containsKey(keyCode)) {
-            pressed.put(keyCode, new int[]{0, -2});
+        GameAction action = keyMap.getAction(e.getKeyCode());
+        if (action != null) {
+            release(action, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records the key of an action being pressed. Only to be called by the
+     * thread key events come from.
+     *
+     * @param action the action
+     * @param time when the key was pressed, from {@link System#nanoTime()}
+     */
+    public void press(GameAction action, long time) {
+        offer(time, action.ordinal() << 1 | 1);
+    }
+
+    /**
+     * Records the key of an action being released. Only to be called by the
+     * thread key events come from.
+     *
+     * @param action the action
+     * @param time when the key was released, from {@link System#nanoTime()}
+     */
+    public void release(GameAction action, long time) {
+        offer(time, action.ordinal() << 1);
+    }
+
+    /**
+     * Hands a key event to the thread running the game.
+     *
+     * @param time when the event happened
+     * @param code the code of the event
+     */
+    private void offer(long time, int code) {
+        if (!events.offer(time, code)) {
+            System.err.println("Dropped a key event; the game is not "
+                    + "keeping up");
         }
     }
 
     /**
-     * "Adds" a "listener" to a certain key. In reality it just pays attention
-     * to them now that you care.
+     * "Adds" a "listener" to a certain action. In reality it just pays
+     * attention to it now that you care. The delays are in frames.
+     *
+     * @param action the action to listen to
+     * @param initialDelay how many frames after the first time the action is
+     * performed it is performed again, or -1 for no repeat
+     * @param repeatDelay how many frames until it repeats after that, or -1 for
+     * no repeat
+     */
+    public void setListener(GameAction action, int initialDelay,
+            int repeatDelay) {
+        setTiming(action, initialDelay == -1 ? -1 : toNanos(initialDelay),
+                repeatDelay == -1 ? -1 : toNanos(repeatDelay));
+    }
+
+    /**
+     * "Adds" a "listener" to a certain action, with the delays in
+     * nanoseconds. The key of the action counts as released until it is
+     * pressed again.
      *
-     * @param keycode the key to listen to
-     * @param preferences a Point object that stores the preferences for the DAS
-     * settings: the {@code x} portion represents the initial delay and the
-     * {@code y} portion represents how many frames until it repeats (a value of
-     * -1 means no repeat)
+     * @param action the action to listen to
+     * @param das how long the key has to be held before the action repeats,
+     * or -1 for no repeat
+     * @param arr the time between repeats, 0 to repeat it as many times as it
+     * can be every frame, or -1 to only repeat it once
      */
-    public void setListener(int keycode, Point preferences) {
-        keys.put(keycode, preferences);
-        pressed.put(keycode, new int[]{0, -2});
+    public void setTiming(GameAction action, long das, long arr) {
+        int i = action.ordinal();
+        listened[i] = true;
+        this.das[i] = das;
+        this.arr[i] = arr;
+        held[i] = false;
+        repeating[i] = false;
+        counts[i] = 0;
     }
 
     /**
-     * Advances a frame internally and determines which actions (conveyed by
-     * their respected keycodes) should be performed.
+     * Finds how long the given amount of frames of delay lasts: an action
+     * with a delay of {@code n} frames happens again on the {@code n + 1}th
+     * frame.
      *
-     * @return a HashSet of actions to perform
+     * @param frames the delay in frames
+     * @return the delay in nanoseconds
      */
-    public HashSet<Integer> advanceFrame() {
-        // System.out.println("FS: " + pressed);
+    public static long toNanos(int frames) {
+        return (frames + 1) * FRAME_NANOS;
+    }
+
+    /**
+     * Advances a frame at the current time.
+     *
+     * @return a bitmask of the actions to perform
+     * @see #advanceFrame(long)
+     */
+    public int advanceFrame() {
+        return advanceFrame(System.nanoTime());
+    }
 
-        HashSet<Integer> output = new HashSet<>();
-        for (Map.Entry<Integer, int[]> entry : pressed.entrySet()) {
-            int value0 = entry.getValue()[0], value1 = entry.getValue()[1];
-            // System.out.println(entry.getKey() + ": " + value0 + ", " + value1);
-            if (value1 > 0) {
-                value1--;
+    /**
+     * Replays every key event up to the given time and determines which
+     * actions should be performed in the frame.
+     *
+     * @param now when the frame is, from {@link System#nanoTime()}
+     * @return a bitmask of the actions to perform
+     * @see GameAction#getMask()
+     * @see #getRepeats(com.github.leftisttachyon.tetris.GameAction)
+     */
+    public int advanceFrame(long now) {
+        while (events.hasNext() && events.peekTime() - now <= 0) {
+            long time = events.peekTime();
+            int code = events.peekCode();
+            events.remove();
+
+            int i = code >> 1;
+            if (!listened[i]) {
+                continue;
             }
-            if (value1 == 0) {
-                int temp;
-                Point pref = keys.get(entry.getKey());
-                if (value0 == 1) {
-                    value0 = 2;
-                    if (pref.x == -1) {
-                        temp = -1;
-                    } else {
-                        temp = pref.x + 1;
-                    }
-                } else {
-                    // == 2
-                    if (pref.y == -1) {
-                        temp = -1;
-                    } else {
-                        temp = pref.y + 1;
-                    }
-                }
-                entry.setValue(new int[]{value0, temp});
-                output.add(entry.getKey());
-            } else {
-                entry.setValue(new int[]{value0, value1});
+            if ((code & 1) != 0) {
+                pressed(i, time);
+            } else if (held[i]) {
+                catchUp(i, time);
+                held[i] = false;
+                repeating[i] = false;
             }
         }
 
-        // if(!output.isEmpty()) System.out.println(output);
-        // System.out.println("FE: " + pressed);
+        int output = 0;
+        for (int i = 0; i < GameAction.COUNT; i++) {
+            if (held[i]) {
+                catchUp(i, now);
+            }
+            repeats[i] = counts[i];
+            if (counts[i] > 0) {
+                output |= 1 << i;
+            }
+            counts[i] = 0;
+        }
         return output;
     }
 
     /**
-     * Determines whether a key is being pressed or not.
+     * Replays the key of an action being pressed. Pressing a direction stops
+     * the opposite one from repeating, from the start of the frame, so that
+     * the newest direction wins.
      *
-     * @param keycode the keycode of the key that is being investigated
-     * @return whether the given key is being pressed
+     * @param i the ordinal of the action
+     * @param time when the key was pressed
      */
-    public boolean isPressed(int keycode) {
-        /*int[] array = pressed.get(keycode);
-        if (array != null) {
-            System.out.println(keycode + ": " + array[0] + ", " + array[1]);
+    private void pressed(int i, long time) {
+        if (held[i]) {
+            // the key repeating by itself
+            return;
+        }
+        held[i] = true;
+        add(i, 1);
+        repeating[i] = das[i] >= 0;
+        nextRepeat[i] = time + das[i];
+
+        int left = GameAction.MOVE_LEFT.ordinal(),
+                right = GameAction.MOVE_RIGHT.ordinal();
+        int opposite = i == left ? right : i == right ? left : -1;
+        if (opposite != -1 && held[opposite]) {
+            repeating[opposite] = false;
         }
-        System.out.println(pressed.containsKey(keycode) && pressed.get(keycode)[0] > 0);*/
+    }
 
-        return pressed.containsKey(keycode) && pressed.get(keycode)[0] > 0;
+    /**
+     * Counts the repeats of an action up to the given time.
+     *
+     * @param i the ordinal of the action
+     * @param until the time to count up to
+     */
+    private void catchUp(int i, long until) {
+        if (!repeating[i] || nextRepeat[i] - until > 0) {
+            return;
+        }
+        if (arr[i] < 0) {
+            add(i, 1);
+            repeating[i] = false;
+        } else if (arr[i] == 0) {
+            add(i, INSTANT);
+        } else {
+            long times = (until - nextRepeat[i]) / arr[i] + 1;
+            add(i, (int) Math.min(times, INSTANT));
+            nextRepeat[i] += times * arr[i];
+        }
+    }
+
+    /**
+     * Adds to how many times an action is performed this frame, stopping at
+     * {@link #INSTANT}.
+     *
+     * @param i the ordinal of the action
+     * @param times how many more times it is performed
+     */
+    private void add(int i, int times) {
+        counts[i] = (int) Math.min((long) counts[i] + times, INSTANT);
+    }
+
+    /**
+     * Returns how many times an action was performed in the last frame
+     *
+     * @param action the action
+     * @return how many times it was performed, or {@link #INSTANT} if as many
+     * times as it can be
+     */
+    public int getRepeats(GameAction action) {
+        return repeats[action.ordinal()];
+    }
+
+    /**
+     * Determines whether the key of an action is being pressed or not.
+     *
+     * @param action the action that is being investigated
+     * @return whether the key of the given action is being pressed
+     */
+    @Override
+    public boolean isPressed(GameAction action) {
+        return held[action.ordinal()];
     }
 }
@@ -0,0 +1,212 @@
+package com.github.leftisttachyon.tetris.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * How long the parts of each frame took: taking inputs, running the game,
+ * handling messages from the server, and painting. The last few seconds of
+ * each are kept in a {@link TimingHistogram}, and can be shown over the game
+ * or written to a CSV file, so that a hitch can be blamed on the right part.
+ * <p>
+ * FrameStats are not thread-safe; TetrisPanel only touches them while holding
+ * its frame lock.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class FrameStats {
+
+    /**
+     * The time taken to take the inputs of a frame
+     */
+    public static final int INPUT = 0;
+
+    /**
+     * The time taken to run a frame of both matrices
+     */
+    public static final int SIMULATION = 1;
+
+    /**
+     * The time taken to handle the messages from the server in a frame
+     */
+    public static final int NETWORK = 2;
+
+    /**
+     * The time taken to paint
+     */
+    public static final int PAINT = 3;
+
+    /**
+     * The names of the parts of a frame, by their number
+     */
+    private static final String[] NAMES = {"input", "sim", "network", "paint"};
+
+    /**
+     * How many paints the numbers of the overlay are kept for
+     */
+    private static final int OVERLAY_REFRESH = 30;
+
+    /**
+     * The font of the overlay
+     */
+    private static final Font OVERLAY_FONT
+            = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    /**
+     * The color behind the overlay
+     */
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 170);
+
+    /**
+     * The durations of each part of a frame
+     */
+    private final TimingHistogram[] timings;
+
+    /**
+     * Whether the overlay is shown
+     */
+    private boolean overlayVisible;
+
+    /**
+     * The lines of the overlay, made at most once every
+     * {@link #OVERLAY_REFRESH} paints
+     */
+    private final String[] overlayLines;
+
+    /**
+     * How many paints the lines of the overlay have been kept for
+     */
+    private int overlayAge;
+
+    /**
+     * Creates new, empty FrameStats.
+     *
+     * @param window how many of the last durations of each part to keep
+     */
+    public FrameStats(int window) {
+        timings = new TimingHistogram[NAMES.length];
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = new TimingHistogram(window);
+        }
+        overlayVisible = false;
+        overlayLines = new String[NAMES.length + 1];
+        overlayAge = OVERLAY_REFRESH;
+    }
+
+    /**
+     * Creates a copy of the given FrameStats, which can be looked at without
+     * holding up whatever is recording into the original.
+     *
+     * @param other the FrameStats to copy
+     */
+    public FrameStats(FrameStats other) {
+        timings = new TimingHistogram[other.timings.length];
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = new TimingHistogram(other.timings[i]);
+        }
+        overlayVisible = false;
+        overlayLines = new String[NAMES.length + 1];
+        overlayAge = OVERLAY_REFRESH;
+    }
+
+    /**
+     * Records how long a part of a frame took.
+     *
+     * @param part the part: {@link #INPUT}, {@link #SIMULATION},
+     * {@link #NETWORK} or {@link #PAINT}
+     * @param nanos how long it took, in nanoseconds
+     */
+    public void record(int part, long nanos) {
+        timings[part].record(nanos);
+    }
+
+    /**
+     * Returns the durations of a part of a frame
+     *
+     * @param part the part: {@link #INPUT}, {@link #SIMULATION},
+     * {@link #NETWORK} or {@link #PAINT}
+     * @return the durations of that part
+     */
+    public TimingHistogram getTimings(int part) {
+        return timings[part];
+    }
+
+    /**
+     * Determines whether the overlay is shown
+     *
+     * @return whether the overlay is shown
+     */
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    /**
+     * Sets whether the overlay is shown
+     *
+     * @param overlayVisible whether to show the overlay
+     */
+    public void setOverlayVisible(boolean overlayVisible) {
+        this.overlayVisible = overlayVisible;
+        overlayAge = OVERLAY_REFRESH;
+    }
+
+    /**
+     * Draws the median, 99th percentile and longest duration of every part of
+     * a frame, if the overlay is shown.
+     *
+     * @param g2D the Graphics2D to draw with
+     * @param x the x-coordinate of the top left corner of the overlay
+     * @param y the y-coordinate of the top left corner of the overlay
+     */
+    public void drawOverlay(Graphics2D g2D, int x, int y) {
+        if (!overlayVisible) {
+            return;
+        }
+
+        if (++overlayAge >= OVERLAY_REFRESH) {
+            overlayAge = 0;
+            overlayLines[0] = String.format("%-8s%9s%9s%9s",
+                    "(ms)", "p50", "p99", "max");
+            for (int i = 0; i < timings.length; i++) {
+                TimingHistogram timing = timings[i];
+                overlayLines[i + 1] = String.format("%-8s%9.3f%9.3f%9.3f",
+                        NAMES[i], timing.getPercentile(50) / 1e6,
+                        timing.getPercentile(99) / 1e6,
+                        timing.getMax() / 1e6);
+            }
+        }
+
+        g2D.setFont(OVERLAY_FONT);
+        int lineHeight = g2D.getFontMetrics().getHeight();
+        g2D.setColor(OVERLAY_BACKGROUND);
+        g2D.fillRect(x, y, 300, lineHeight * overlayLines.length + 8);
+        g2D.setColor(Color.WHITE);
+        for (int i = 0; i < overlayLines.length; i++) {
+            g2D.drawString(overlayLines[i], x + 6, y + 4 + lineHeight * (i + 1)
+                    - g2D.getFontMetrics().getDescent());
+        }
+    }
+
+    /**
+     * Writes every duration kept as CSV: a header, then one line for each
+     * duration with the part of the frame, its place in the window (oldest
+     * first) and the duration in microseconds.
+     *
+     * @param out where to write to
+     * @throws IOException if writing fails
+     */
+    public void writeCSV(Writer out) throws IOException {
+        out.write("part,sample,micros\n");
+        for (int i = 0; i < timings.length; i++) {
+            TimingHistogram timing = timings[i];
+            for (int j = 0; j < timing.getSize(); j++) {
+                out.write(NAMES[i] + "," + j + ","
+                        + timing.getSample(j) / 1000.0 + "\n");
+            }
+        }
+    }
+}
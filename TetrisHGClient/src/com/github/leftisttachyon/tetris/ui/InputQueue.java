@@ -0,0 +1,152 @@
+package com.github.leftisttachyon.tetris.ui;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size queue of timestamped input events, handed from exactly one
+ * thread to exactly one other without locks: the event dispatch thread
+ * offers, and the thread running the game polls. It works the same way as
+ * {@link com.github.leftisttachyon.comm.MessageRing}, but keeps each event as
+ * a time and an int code side by side in arrays, so that neither side ever
+ * creates an object.
+ * <p>
+ * Offering from more than one thread, or polling from more than one thread,
+ * breaks it.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class InputQueue {
+
+    /**
+     * When each event happened, from {@link System#nanoTime()}; the length is
+     * a power of two
+     */
+    private final long[] times;
+
+    /**
+     * What each event was
+     */
+    private final int[] codes;
+
+    /**
+     * What to mask a counter with to find its slot
+     */
+    private final int mask;
+
+    /**
+     * How many events have been polled; only the polling thread writes it
+     */
+    private final AtomicLong head;
+
+    /**
+     * How many events have been offered; only the offering thread writes it
+     */
+    private final AtomicLong tail;
+
+    /**
+     * The last head seen by the offering thread
+     */
+    private long cachedHead;
+
+    /**
+     * The last tail seen by the polling thread
+     */
+    private long cachedTail;
+
+    /**
+     * Creates a new, empty InputQueue.
+     *
+     * @param capacity the least amount of events the queue should hold; it is
+     * rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        times = new long[size];
+        codes = new int[size];
+        mask = size - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+        cachedHead = 0;
+        cachedTail = 0;
+    }
+
+    /**
+     * Adds an event to the queue. Only to be called by the offering thread.
+     *
+     * @param time when the event happened, from {@link System#nanoTime()}
+     * @param code what the event was
+     * @return whether the event was added; false if the queue is full
+     */
+    public boolean offer(long time, int code) {
+        long t = tail.get();
+        if (t - cachedHead >= times.length) {
+            cachedHead = head.get();
+            if (t - cachedHead >= times.length) {
+                return false;
+            }
+        }
+        int slot = (int) t & mask;
+        times[slot] = time;
+        codes[slot] = code;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Determines whether there is an event to poll. Only to be called by the
+     * polling thread.
+     *
+     * @return whether there is an event at the front of the queue
+     */
+    public boolean hasNext() {
+        long h = head.get();
+        if (h >= cachedTail) {
+            cachedTail = tail.get();
+        }
+        return h < cachedTail;
+    }
+
+    /**
+     * Returns when the event at the front of the queue happened. Only to be
+     * called by the polling thread, after {@link #hasNext()} returned true.
+     *
+     * @return when the event happened, from {@link System#nanoTime()}
+     */
+    public long peekTime() {
+        return times[(int) head.get() & mask];
+    }
+
+    /**
+     * Returns what the event at the front of the queue was. Only to be called
+     * by the polling thread, after {@link #hasNext()} returned true.
+     *
+     * @return what the event was
+     */
+    public int peekCode() {
+        return codes[(int) head.get() & mask];
+    }
+
+    /**
+     * Removes the event at the front of the queue. Only to be called by the
+     * polling thread, after {@link #hasNext()} returned true.
+     */
+    public void remove() {
+        head.lazySet(head.get() + 1);
+    }
+
+    /**
+     * Returns how many events the queue can hold
+     *
+     * @return the capacity of the queue
+     */
+    public int getCapacity() {
+        return times.length;
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.leftisttachyon.tetris.ui;
+
+import com.github.leftisttachyon.tetris.GameAction;
+import java.util.Arrays;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import static java.awt.event.KeyEvent.*;
+
+/**
+ * Which key does each {@link GameAction}. Every action has exactly one key and
+ * no two actions share one; binding a key that another action has swaps the
+ * keys of the two. The keys are kept in the user's {@link Preferences}, so
+ * they are the same the next time the game is started.
+ * <p>
+ * A KeyMap is only used on the event dispatch thread, so it is not
+ * thread-safe.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class KeyMap {
+
+    /**
+     * The key each action has always been done with, by id
+     */
+    private static final int[] DEFAULT_KEYS = {VK_SPACE, VK_UP, VK_DOWN, VK_C,
+        VK_Z, VK_X, VK_LEFT, VK_RIGHT};
+
+    /**
+     * The one KeyMap of the player, loaded from their preferences
+     */
+    private static KeyMap keyMap = null;
+
+    /**
+     * The keycode of the key of each action, by id
+     */
+    private final int[] keys;
+
+    /**
+     * Creates a new KeyMap with the default keys.
+     */
+    public KeyMap() {
+        keys = DEFAULT_KEYS.clone();
+    }
+
+    /**
+     * Returns the KeyMap of the player, loading it from their preferences the
+     * first time.
+     *
+     * @return the KeyMap of the player
+     */
+    public static KeyMap getKeyMap() {
+        if (keyMap == null) {
+            keyMap = new KeyMap();
+            keyMap.load();
+        }
+        return keyMap;
+    }
+
+    /**
+     * Returns the keycode of the key that does the given action
+     *
+     * @param action the action
+     * @return the keycode of its key
+     */
+    public int getKeyCode(GameAction action) {
+        return keys[action.getId()];
+    }
+
+    /**
+     * Finds the action the given key does.
+     *
+     * @param keyCode the keycode of the key
+     * @return the action, or null if the key does nothing
+     */
+    public GameAction getAction(int keyCode) {
+        for (int id = 0; id < keys.length; id++) {
+            if (keys[id] == keyCode) {
+                return GameAction.get(id);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes the given key do the given action. If the key did another action,
+     * that action gets the old key of this one.
+     *
+     * @param action the action
+     * @param keyCode the keycode of the key
+     */
+    public void bind(GameAction action, int keyCode) {
+        if (keyCode == VK_UNDEFINED) {
+            throw new IllegalArgumentException("Cannot bind an unknown key");
+        }
+        GameAction other = getAction(keyCode);
+        if (other != null) {
+            keys[other.getId()] = keys[action.getId()];
+        }
+        keys[action.getId()] = keyCode;
+    }
+
+    /**
+     * Goes back to the default keys.
+     */
+    public void reset() {
+        System.arraycopy(DEFAULT_KEYS, 0, keys, 0, keys.length);
+    }
+
+    /**
+     * Reads the keys from the user's preferences. If any are missing or two
+     * actions would share a key, the default keys are used instead.
+     */
+    public void load() {
+        int[] loaded = new int[keys.length];
+        try {
+            Preferences prefs = getPreferences();
+            for (int id = 0; id < loaded.length; id++) {
+                loaded[id] = prefs.getInt(GameAction.get(id).name(),
+                        DEFAULT_KEYS[id]);
+            }
+        } catch (SecurityException e) {
+            System.err.println("Could not read the keys");
+            e.printStackTrace();
+            return;
+        }
+
+        int[] sorted = loaded.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] == VK_UNDEFINED
+                    || i > 0 && sorted[i] == sorted[i - 1]) {
+                System.err.println("Bad keys in preferences: "
+                        + Arrays.toString(loaded));
+                reset();
+                return;
+            }
+        }
+        System.arraycopy(loaded, 0, keys, 0, keys.length);
+    }
+
+    /**
+     * Writes the keys to the user's preferences.
+     */
+    public void save() {
+        try {
+            Preferences prefs = getPreferences();
+            for (int id = 0; id < keys.length; id++) {
+                prefs.putInt(GameAction.get(id).name(), keys[id]);
+            }
+            prefs.flush();
+        } catch (BackingStoreException | SecurityException e) {
+            System.err.println("Could not save the keys");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns where the keys are kept
+     *
+     * @return the preferences node of the keys
+     */
+    private static Preferences getPreferences() {
+        return Preferences.userNodeForPackage(KeyMap.class).node("keys");
+    }
+}
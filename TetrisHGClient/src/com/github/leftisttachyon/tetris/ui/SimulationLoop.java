@@ -0,0 +1,166 @@
+package com.github.leftisttachyon.tetris.ui;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread that runs the game at a fixed rate, no matter how long painting
+ * takes. Every tick is one frame of the game; if the thread falls behind, it
+ * catches up by running several ticks in a row, up to a limit, and after the
+ * ticks it asks for a repaint. Painting happens elsewhere and can use
+ * {@link #getAlpha()} to draw in between two ticks.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class SimulationLoop {
+
+    /**
+     * The most ticks run in a row to catch up; anything further behind is
+     * dropped
+     */
+    private static final int MAX_CATCH_UP = 5;
+
+    /**
+     * What runs every tick
+     */
+    private final Runnable tick;
+
+    /**
+     * What is asked to repaint after ticks have run
+     */
+    private final Runnable render;
+
+    /**
+     * The length of a tick, in nanoseconds
+     */
+    private final long period;
+
+    /**
+     * The thread running the ticks, or null if stopped
+     */
+    private Thread thread;
+
+    /**
+     * Whether the loop should keep running
+     */
+    private volatile boolean running;
+
+    /**
+     * When the last tick was due, in nanoseconds
+     */
+    private volatile long lastTick;
+
+    /**
+     * How many ticks have been dropped because the loop fell too far behind
+     */
+    private volatile long dropped;
+
+    /**
+     * Creates a new SimulationLoop.
+     *
+     * @param tick what to run every tick
+     * @param render what to ask to repaint after ticks have run
+     * @param rate how many ticks to run every second
+     */
+    public SimulationLoop(Runnable tick, Runnable render, int rate) {
+        this.tick = tick;
+        this.render = render;
+        period = 1_000_000_000L / rate;
+        thread = null;
+        running = false;
+        dropped = 0;
+    }
+
+    /**
+     * Starts running ticks. Starting a loop that is running has no effect.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "Simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops running ticks once the current one is done.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread = null;
+        }
+    }
+
+    /**
+     * Runs ticks until stopped.
+     */
+    private void run() {
+        long next = System.nanoTime();
+        while (running) {
+            int ticks = 0;
+            while (System.nanoTime() - next >= 0 && ticks < MAX_CATCH_UP
+                    && running) {
+                try {
+                    tick.run();
+                } catch (Exception e) {
+                    System.err.println("Exception occured while executing frame");
+                    e.printStackTrace();
+                }
+                lastTick = next;
+                next += period;
+                ticks++;
+            }
+
+            long behind = System.nanoTime() - next;
+            if (ticks == MAX_CATCH_UP && behind >= 0) {
+                // too far behind to catch up; forget about those ticks
+                long skipped = behind / period + 1;
+                dropped += skipped;
+                next += skipped * period;
+            }
+
+            if (ticks > 0) {
+                render.run();
+            }
+
+            long wait;
+            while (running && (wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**
+     * Returns how far the time is between the last tick and the next one: 0
+     * right at the last tick and nearly 1 right before the next.
+     *
+     * @return how far between two ticks it is, from 0 to 1
+     */
+    public double getAlpha() {
+        double alpha = (double) (System.nanoTime() - lastTick) / period;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    /**
+     * Returns how many ticks have been dropped because the loop fell too far
+     * behind
+     *
+     * @return the amount of dropped ticks
+     */
+    public long getDroppedTicks() {
+        return dropped;
+    }
+
+    /**
+     * Determines whether this loop is running
+     *
+     * @return whether this loop is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -1,44 +1,167 @@
 package com.github.leftisttachyon.tetris.ui;
 
+import com.github.leftisttachyon.tetris.bot.BotPlayer;
+import com.github.leftisttachyon.tetris.bot.GreedyBot;
 import java.awt.HeadlessException;
+import java.util.Random;
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 /**
- * A JFrame that contains everything.
+ * A JFrame that contains everything. Normally the TetrisPanel is repainted by
+ * Swing; in active rendering mode an ActiveCanvas draws it instead, and the
+ * time frames take to draw is shown in the title.
  *
  * @author Jed Wang
  * @since 0.9.0
  */
 public final class TetrisFrame extends JFrame {
+
+    /**
+     * The title of every TetrisFrame
+     */
+    private static final String TITLE = "Tetris HG";
+
+    /**
+     * Whether new TetrisFrames draw actively
+     */
+    private static boolean activeRendering
+            = Boolean.getBoolean("tetrishg.activeRendering");
     
     /**
      * The internal TetrisPanel
      */
     private TetrisPanel panel;
 
+    /**
+     * The canvas drawing the panel in active rendering mode, or null
+     */
+    private ActiveCanvas canvas;
+
+    /**
+     * The frames of the game run since the title was last updated
+     */
+    private int framesSinceTitle;
+
     /**
      * Creates a new TetrisFrame
      *
      * @throws HeadlessException the exception thrown from the super constructor
      */
     public TetrisFrame() throws HeadlessException {
-        panel = new TetrisPanel();
+        this(activeRendering);
+    }
+
+    /**
+     * Creates a new TetrisFrame for a match with the given seed
+     *
+     * @param seed the seed of the tetrominos, as given by the server
+     * @throws HeadlessException the exception thrown from the super constructor
+     */
+    public TetrisFrame(long seed) throws HeadlessException {
+        this(activeRendering, seed);
+    }
+
+    /**
+     * Creates a new TetrisFrame for a game against a bot, without the server
+     *
+     * @param bot the bot to play against
+     * @throws HeadlessException the exception thrown from the super constructor
+     */
+    public TetrisFrame(BotPlayer bot) throws HeadlessException {
+        this(activeRendering, new Random().nextLong(), bot);
+    }
+
+    /**
+     * Creates a new TetrisFrame
+     *
+     * @param active whether to draw actively with a BufferStrategy instead of
+     * having Swing repaint
+     * @throws HeadlessException the exception thrown from the super constructor
+     */
+    public TetrisFrame(boolean active) throws HeadlessException {
+        this(active, new Random().nextLong());
+    }
+
+    /**
+     * Creates a new TetrisFrame
+     *
+     * @param active whether to draw actively with a BufferStrategy instead of
+     * having Swing repaint
+     * @param seed the seed of the tetrominos, as given by the server
+     * @throws HeadlessException the exception thrown from the super constructor
+     */
+    public TetrisFrame(boolean active, long seed) throws HeadlessException {
+        this(active, seed, null);
+    }
+
+    /**
+     * Creates a new TetrisFrame
+     *
+     * @param active whether to draw actively with a BufferStrategy instead of
+     * having Swing repaint
+     * @param seed the seed of the tetrominos
+     * @param bot the bot to play against, or null to play through the server
+     * @throws HeadlessException the exception thrown from the super constructor
+     */
+    public TetrisFrame(boolean active, long seed, BotPlayer bot)
+            throws HeadlessException {
+        panel = new TetrisPanel(seed, bot);
         
-        add(panel);
+        if (active) {
+            canvas = new ActiveCanvas(panel);
+            add(canvas);
+        } else {
+            canvas = null;
+            add(panel);
+        }
         pack();
         
-        setTitle("Tetris HG");
+        setTitle(TITLE);
+        addKeyListener(panel.keyMapKeys);
         addKeyListener(panel.handler);
+        addKeyListener(panel.statsKeys);
         setResizable(false);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
     }
+
+    /**
+     * Sets whether TetrisFrames created from now on draw actively
+     *
+     * @param active whether to draw actively
+     */
+    public static void setActiveRendering(boolean active) {
+        activeRendering = active;
+    }
     
     /**
      * Starts the application.
      */
     public void start() {
         setVisible(true);
-        panel.startFrames();
+        if (canvas == null) {
+            panel.startFrames();
+        } else {
+            canvas.start();
+            canvas.requestFocus();
+            framesSinceTitle = 0;
+            panel.startFrames(this::updateTitle);
+        }
+    }
+
+    /**
+     * Shows the render times of the canvas in the title, about once a second.
+     */
+    private void updateTitle() {
+        if (++framesSinceTitle < TetrisPanel.FRAME_RATE) {
+            return;
+        }
+        framesSinceTitle = 0;
+
+        String title = String.format("%s (render %.2f ms, max %.2f ms)",
+                TITLE, canvas.getAverageRenderTime(),
+                canvas.getMaxRenderTime());
+        SwingUtilities.invokeLater(() -> setTitle(title));
     }
     
     /**
@@ -46,15 +169,18 @@ public final class TetrisFrame extends JFrame {
      */
     public void stop() {
         panel.stopFrames();
+        if (canvas != null) {
+            canvas.stop();
+        }
         setVisible(false);
     }
     
     /**
-     * Just a test
+     * Just a test: a game against a bot
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        TetrisFrame frame = new TetrisFrame();
+        TetrisFrame frame = new TetrisFrame(new BotPlayer(new GreedyBot()));
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.start();
     }
@@ -1,26 +1,35 @@
 package com.github.leftisttachyon.tetris.ui;
 
 import com.github.leftisttachyon.comm.ClientSocket;
+import com.github.leftisttachyon.comm.GameMessage;
+import com.github.leftisttachyon.comm.MessageRing;
+import com.github.leftisttachyon.tetris.GameAction;
 import com.github.leftisttachyon.tetris.MinoStyle;
+import com.github.leftisttachyon.tetris.TetrisEngine;
 import com.github.leftisttachyon.tetris.TetrisMatrix;
-import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
-import com.github.leftisttachyon.tetris.tetrominos.TetrominoFactory;
+import com.github.leftisttachyon.tetris.bot.BotPlayer;
+import com.github.leftisttachyon.util.TextCache;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.geom.NoninvertibleTransformException;
-import java.util.HashSet;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 import static com.github.leftisttachyon.tetris.MinoStyle.MINO_SIZE;
 import static java.awt.event.KeyEvent.*;
 
 /**
- * A class that draws everything and takes in key events.
+ * A class that draws everything and takes in key events. The game itself runs
+ * on a SimulationLoop at a fixed 60 frames a second; painting only draws, and
+ * may happen more or less often.
  *
  * @author Jed Wang
  * @since 0.9.0
@@ -45,6 +54,41 @@ public final class TetrisPanel extends JPanel {
         };
     }
 
+    /**
+     * The color behind the matrices
+     */
+    private static final Color BACKGROUND = new Color(127, 127, 127);
+
+    /**
+     * The font of the countdown before a game
+     */
+    private static final Font COUNTDOWN_FONT
+            = new Font("Arial Black", Font.PLAIN, 40);
+
+    /**
+     * The font of the choices of rotation system
+     */
+    private static final Font MENU_FONT
+            = new Font("Arial Black", Font.PLAIN, 15);
+
+    /**
+     * The stroke of the box around the current choice
+     */
+    private static final BasicStroke SELECTION_STROKE = new BasicStroke(3.0f,
+            BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER);
+
+    /**
+     * The names of the actions, by id, as shown when choosing keys
+     */
+    private static final String[] ACTION_NAMES = {"Hard drop", "Sonic drop",
+        "Soft drop", "Hold", "Rotate left", "Rotate right", "Move left",
+        "Move right"};
+
+    /**
+     * The text of the menu and the countdown, drawn ahead of time
+     */
+    private final TextCache textCache = new TextCache(32);
+
     /**
      * The matrix being drawn
      */
@@ -55,6 +99,23 @@ public final class TetrisPanel extends JPanel {
      */
     private TetrisMatrix theirMatrix;
 
+    /**
+     * The bot that plays their matrix, or null if the opponent is on the
+     * other end of the server
+     */
+    private final BotPlayer bot;
+
+    /**
+     * Which key does each action
+     */
+    private final KeyMap keyMap = KeyMap.getKeyMap();
+
+    /**
+     * The id of the action whose key is being chosen, or -1 if keys are not
+     * being chosen
+     */
+    private volatile int rebinding = -1;
+
     /**
      * The KeyAdapter for this JPanel
      */
@@ -86,9 +147,119 @@ public final class TetrisPanel extends JPanel {
     private int theirSelection = 0;
 
     /**
-     * A service for a stable (?) framerate
+     * How many frames of the game run every second
+     */
+    public static final int FRAME_RATE = 60;
+
+    /**
+     * The time between repeats of held movement keys, in nanoseconds. It can
+     * be set in milliseconds with the {@code tetrishg.arr} property; 0 moves
+     * the tetromino to the wall at once. By default, every other frame.
+     */
+    private static final long ARR = readARR();
+
+    /**
+     * The loop that runs the frames of the game
+     */
+    private SimulationLoop loop;
+
+    /**
+     * The lock held while a frame runs or is drawn, so that painting never
+     * sees a frame half done
+     */
+    private final Object frameLock = new Object();
+
+    /**
+     * How many messages from the server can wait for the next frame
+     */
+    private static final int INBOX_CAPACITY = 1024;
+
+    /**
+     * How long to wait for the game to make room in a full inbox, in
+     * nanoseconds
      */
-    private ScheduledExecutorService service;
+    private static final long INBOX_WAIT = 1_000_000;
+
+    /**
+     * The messages from the server waiting for the next frame. The thread
+     * reading from the server offers; the game polls.
+     */
+    private final MessageRing<GameMessage> inbox;
+
+    /**
+     * The listener that hands lines from the server to the inbox
+     */
+    private final Consumer<String> lineListener;
+
+    /**
+     * The listener that hands typed messages from the server to the inbox
+     */
+    private final Consumer<GameMessage> messageListener;
+
+    /**
+     * How long the parts of the last few frames took
+     */
+    private final FrameStats stats = new FrameStats(10 * FRAME_RATE);
+
+    /**
+     * The KeyAdapter that shows the frame times (F3) and writes them to a file
+     * (F4)
+     */
+    final KeyAdapter statsKeys = new KeyAdapter() {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            if (e.getKeyCode() == VK_F3) {
+                synchronized (frameLock) {
+                    stats.setOverlayVisible(!stats.isOverlayVisible());
+                }
+            } else if (e.getKeyCode() == VK_F4) {
+                File file = new File("tetrishg-frames-"
+                        + System.currentTimeMillis() + ".csv");
+                try {
+                    writeStats(file);
+                    System.out.println("Wrote frame times to "
+                            + file.getAbsolutePath());
+                } catch (IOException ex) {
+                    System.err.println("Could not write frame times");
+                    ex.printStackTrace();
+                }
+            }
+        }
+    };
+
+    /**
+     * The KeyAdapter that lets the player choose the key of every action, one
+     * after another, in the menu (F2). Escape stops without saving anything.
+     * It consumes the keys it uses, so it has to be added before the
+     * {@link DASHandler}.
+     */
+    final KeyAdapter keyMapKeys = new KeyAdapter() {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            int keyCode = e.getKeyCode();
+            if (rebinding == -1) {
+                if (keyCode == VK_F2 && !meSelected) {
+                    rebinding = 0;
+                    e.consume();
+                }
+                return;
+            }
+
+            e.consume();
+            if (keyCode == VK_ESCAPE) {
+                keyMap.load();
+                rebinding = -1;
+            } else if (keyCode != VK_UNDEFINED) {
+                keyMap.bind(GameAction.get(rebinding), keyCode);
+                if (rebinding + 1 == GameAction.COUNT) {
+                    keyMap.save();
+                    rebinding = -1;
+                } else {
+                    rebinding++;
+                }
+            }
+        }
+    };
 
     /**
      * Can I start yet?
@@ -116,26 +287,51 @@ public final class TetrisPanel extends JPanel {
     private int delayRow = -1;
 
     /**
-     * Creates a new, default TetrisPanel.
+     * Creates a new, default TetrisPanel, with tetrominos from an
+     * unpredictable seed.
      */
     public TetrisPanel() {
+        this(new Random().nextLong());
+    }
+
+    /**
+     * Creates a new TetrisPanel.
+     *
+     * @param seed the seed of the tetrominos of both players, as given by the
+     * server
+     */
+    public TetrisPanel(long seed) {
+        this(seed, null);
+    }
+
+    /**
+     * Creates a new TetrisPanel. If a bot is given, it is the opponent: it
+     * plays their matrix right here, and nothing goes through the server.
+     *
+     * @param seed the seed of the tetrominos of both players
+     * @param bot the bot to play against, or null to play whoever the server
+     * matched
+     */
+    public TetrisPanel(long seed, BotPlayer bot) {
         super();
 
-        handler = new DASHandler();
-        // handler.setListener(VK_DOWN, new Point(8, 1));
-        final Point pressOnly = new Point(-1, -1), das = new Point(8, 1);
+        this.bot = bot;
 
-        handler.setListener(VK_Z, pressOnly);
-        handler.setListener(VK_X, pressOnly);
-        handler.setListener(VK_C, pressOnly);
-        handler.setListener(VK_SPACE, pressOnly);
-        handler.setListener(VK_UP, pressOnly);
+        handler = new DASHandler(keyMap);
 
-        handler.setListener(VK_DOWN, pressOnly);
-        handler.setListener(VK_LEFT, das);
-        handler.setListener(VK_RIGHT, das);
+        handler.setListener(GameAction.ROTATE_LEFT, -1, -1);
+        handler.setListener(GameAction.ROTATE_RIGHT, -1, -1);
+        handler.setListener(GameAction.HOLD, -1, -1);
+        handler.setListener(GameAction.HARD_DROP, -1, -1);
+        handler.setListener(GameAction.SONIC_DROP, -1, -1);
 
+        handler.setListener(GameAction.SOFT_DROP, -1, -1);
+        setRepeating(GameAction.MOVE_LEFT, 8);
+        setRepeating(GameAction.MOVE_RIGHT, 8);
+
+        addKeyListener(keyMapKeys);
         addKeyListener(handler);
+        addKeyListener(statsKeys);
 
         setPreferredSize(new Dimension(20 * MinoStyle.MINO_SIZE + 440,
                 21 * MinoStyle.MINO_SIZE + 20));
@@ -144,14 +340,27 @@ public final class TetrisPanel extends JPanel {
         theySelected = false;
 
         myMatrix = new TetrisMatrix(true);
-        theirMatrix = new TetrisMatrix(false);
+        theirMatrix = new TetrisMatrix(false, bot != null);
+        myMatrix.setPieceSeed(seed);
+        theirMatrix.setPieceSeed(seed);
+
+        if (bot != null) {
+            // the bot is always ready, and always plays SRS
+            theySelected = true;
+            theirSelection = 0;
+            TetrisMatrix.setMatrixAs(theirMatrix, theirSelection);
+        }
 
-        service = null;
+        loop = null;
 
         countdown = -1;
 
-        if (ClientSocket.isConnected()) {
-            ClientSocket.getConnection().addServerListener(getListener());
+        inbox = new MessageRing<>(INBOX_CAPACITY);
+        lineListener = (line) -> handOver(GameMessage.text(line));
+        messageListener = this::handOver;
+        if (bot == null && ClientSocket.isConnected()) {
+            ClientSocket.getConnection().addServerListener(lineListener);
+            ClientSocket.getConnection().addMessageListener(messageListener);
         }
     }
 
@@ -159,26 +368,45 @@ public final class TetrisPanel extends JPanel {
      * Starts rendering frames, accepting inputs, and running code.
      */
     public void startFrames() {
-        service = Executors.newSingleThreadScheduledExecutor();
-        service.scheduleAtFixedRate(() -> {
-            try {
-                // double start = System.nanoTime();
-                repaint();
-                /*double total = System.nanoTime() - start;
-                total /= 1_000_000;
-                System.out.printf("Frame: %.2f ms%n", total);*/
-            } catch (Exception e) {
-                System.err.println("Exception occured while executing frame");
-                e.printStackTrace();
-            }
-        }, 0, 16, TimeUnit.MILLISECONDS);
+        startFrames(this::repaint);
     }
 
     /**
-     * Starts rendering frames, accepting inputs, and running code.
+     * Starts accepting inputs and running code. Rendering is left to whatever
+     * is given.
+     *
+     * @param render what to run after frames of the game have run
+     */
+    public void startFrames(Runnable render) {
+        loop = new SimulationLoop(this::tick, render, FRAME_RATE);
+        loop.start();
+    }
+
+    /**
+     * Stops rendering frames, accepting inputs, and running code.
      */
     public void stopFrames() {
-        service.shutdown();
+        if (loop != null) {
+            loop.stop();
+        }
+        if (bot != null) {
+            bot.shutdown();
+        }
+        if (bot == null && ClientSocket.isConnected()) {
+            ClientSocket.getConnection().removeServerListener(lineListener);
+            ClientSocket.getConnection().removeMessageListener(messageListener);
+        }
+    }
+
+    /**
+     * Sends a line to the server, if the opponent is on the other end of it.
+     *
+     * @param line the line to send
+     */
+    private void send(String line) {
+        if (bot == null && ClientSocket.isConnected()) {
+            ClientSocket.getConnection().send(line);
+        }
     }
 
     /**
@@ -201,12 +429,31 @@ public final class TetrisPanel extends JPanel {
         downCnt = 1800;
     }
 
-    @Override
-    public void paint(Graphics g) {
-        Graphics2D g2D = (Graphics2D) g;
+    /**
+     * Runs one frame of the game: takes inputs and makes updates.
+     */
+    private void tick() {
+        synchronized (frameLock) {
+            runFrame();
+        }
+    }
+
+    /**
+     * Runs one frame of the game. Must hold the frame lock.
+     */
+    private void runFrame() {
+        // everything this frame sends goes out together
+        if (ClientSocket.isConnected()) {
+            ClientSocket.getConnection().startBatch();
+        }
+
+        // first what the server has sent since the last frame
+        drainInbox();
 
-        // first take inputs
-        HashSet<Integer> actions = handler.advanceFrame();
+        // then take inputs
+        long start = System.nanoTime();
+        int actions = handler.advanceFrame();
+        stats.record(FrameStats.INPUT, System.nanoTime() - start);
 
         // then make updates
         if (meSelected && theySelected) {
@@ -222,7 +469,7 @@ public final class TetrisPanel extends JPanel {
                 if (downCnt == 0) {
                     // execute stuff
 
-                    if (both20) {
+                    if (both20 && bot == null) {
                         if (toExecute != null && toExecute.equals("NXTDELAY")) {
                             toExecute = null;
 
@@ -234,18 +481,34 @@ public final class TetrisPanel extends JPanel {
                             toExecute = "NXTDELAY";
                         }
 
-                        ClientSocket.getConnection().send("NXTDELAY");
+                        send("NXTDELAY");
                     }
 
                     downCnt = -1;
+
+                    if (both20 && bot != null && ++delayRow < DELAYS.length) {
+                        // the bot does not need to agree to the next delays
+                        updateDelays();
+                    }
                 } else if (downCnt > 0) {
                     downCnt--;
                 }
 
+                start = System.nanoTime();
                 myMatrix.executeActions(actions);
+                if (!GameAction.HARD_DROP.isIn(actions)
+                        && !GameAction.SONIC_DROP.isIn(actions)) {
+                    executeRepeats(GameAction.SOFT_DROP);
+                }
+                executeRepeats(GameAction.MOVE_LEFT);
+                executeRepeats(GameAction.MOVE_RIGHT);
                 myMatrix.advanceFrame(handler);
 
-                theirMatrix.advanceFrame(null);
+                if (bot != null) {
+                    theirMatrix.executeActions(bot.nextActions(theirMatrix));
+                }
+                theirMatrix.advanceFrame(bot);
+                stats.record(FrameStats.SIMULATION, System.nanoTime() - start);
 
                 if (!theirMatrix.isInGame()) {
                     myMatrix.endGame();
@@ -256,8 +519,12 @@ public final class TetrisPanel extends JPanel {
                 }
 
                 if (countdown == 0) {
-                    ClientSocket.getConnection().send("COUNT0");
+                    send("COUNT0");
 
+                    if (bot != null) {
+                        // the bot counted down too
+                        canStart++;
+                    }
                     if (++canStart == 4) {
                         startGame();
                         countdown = -1;
@@ -265,19 +532,19 @@ public final class TetrisPanel extends JPanel {
                 }
             }
         } else if (meSelected) {
-            if (actions.remove(VK_Z)) {
-                handler.setListener(VK_DOWN, new Point(-1, -1));
+            if (GameAction.ROTATE_LEFT.isIn(actions)) {
+                handler.setListener(GameAction.SOFT_DROP, -1, -1);
                 meSelected = false;
                 canStart--;
-                ClientSocket.getConnection().send("DESELECT");
+                send("DESELECT");
             }
         } else {
             int temp = mySelection;
 
-            if (actions.remove(VK_DOWN)) {
+            if (GameAction.SOFT_DROP.isIn(actions)) {
                 mySelection = (mySelection + 1) % selections;
             }
-            if (actions.remove(VK_UP)) {
+            if (GameAction.SONIC_DROP.isIn(actions)) {
                 mySelection--;
                 if (mySelection < 0) {
                     mySelection += selections;
@@ -285,49 +552,107 @@ public final class TetrisPanel extends JPanel {
             }
 
             if (mySelection != temp) {
-                ClientSocket.getConnection().send("SELECT" + mySelection);
+                send("SELECT" + mySelection);
             }
 
-            if (actions.contains(VK_X) || actions.contains(VK_C)
-                    || actions.contains(VK_SPACE)) {
+            if ((actions & (GameAction.ROTATE_RIGHT.getMask()
+                    | GameAction.HOLD.getMask()
+                    | GameAction.HARD_DROP.getMask())) != 0) {
                 TetrisMatrix.setMatrixAs(myMatrix, mySelection);
 
-                handler.setListener(VK_DOWN, new Point(8, 1));
+                setRepeating(GameAction.SOFT_DROP, 8);
 
                 meSelected = true;
 
-                ClientSocket.getConnection().send("CHOOSE" + mySelection);
+                send("CHOOSE" + mySelection);
 
                 if (theySelected) {
-                    generateStartBag();
-
-                    if (++canStart == 2) {
-                        startCountdown();
-                    }
+                    canStart = 2;
+                    startCountdown();
                 }
             }
         }
 
-        // lastly draw
-        g2D.setColor(new Color(127, 127, 127));
-        g2D.fillRect(0, 0, getWidth(), getHeight());
+        if (ClientSocket.isConnected()) {
+            ClientSocket.getConnection().flushBatch();
+        }
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        render((Graphics2D) g, getWidth(), getHeight());
+    }
+
+    /**
+     * Draws everything: the matrices as they are in between the last frame of
+     * the game and the next, and the text. The graphics do not have to come
+     * from this panel.
+     *
+     * @param g2D the Graphics2D object to draw with
+     * @param width the width of the area to draw
+     * @param height the height of the area to draw
+     */
+    public void render(Graphics2D g2D, int width, int height) {
+        synchronized (frameLock) {
+            long start = System.nanoTime();
+
+            // draw in between the last frame and the next one
+            double alpha = loop == null ? 1 : loop.getAlpha();
+            myMatrix.setRenderAlpha(alpha);
+            theirMatrix.setRenderAlpha(alpha);
+
+            g2D.setColor(BACKGROUND);
+            g2D.fillRect(0, 0, width, height);
 
-        try {
             myMatrix.paint(g2D, 10, 10);
-        } catch (NoninvertibleTransformException ex) {
-            ex.printStackTrace();
-        }
 
-        drawText(110, mySelection, meSelected, g2D);
+            drawText(110, mySelection, meSelected, g2D);
+            drawKeyPrompt(110, g2D);
 
-        try {
             theirMatrix.paint(g2D, 10 * MinoStyle.MINO_SIZE + 220, 10);
-        } catch (NoninvertibleTransformException ex) {
-            ex.printStackTrace();
+
+            drawText(10 * MINO_SIZE + 320, theirSelection, theySelected, g2D);
+
+            stats.record(FrameStats.PAINT, System.nanoTime() - start);
+            stats.drawOverlay(g2D, 10, 10);
         }
+    }
 
-        drawText(10 * MINO_SIZE + 320, theirSelection, theySelected, g2D);
+    /**
+     * Writes how long the parts of the last few frames took to a CSV file.
+     *
+     * @param file the file to write to
+     * @throws IOException if writing fails
+     * @see FrameStats#writeCSV(java.io.Writer)
+     */
+    public void writeStats(File file) throws IOException {
+        FrameStats copy;
+        synchronized (frameLock) {
+            copy = new FrameStats(stats);
+        }
+        try (Writer out = new BufferedWriter(new FileWriter(file))) {
+            copy.writeCSV(out);
+        }
+    }
 
+    /**
+     * Draws which action a key is being chosen for, or how to start choosing
+     * keys while in the menu.
+     *
+     * @param x the x-value to start at
+     * @param g2D the Graphics2D object to use
+     */
+    private void drawKeyPrompt(int x, Graphics2D g2D) {
+        int action = rebinding;
+        if (action != -1) {
+            textCache.drawCenteredString(g2D, "Press the key for", MENU_FONT,
+                    Color.WHITE, x + 5 * MINO_SIZE, 430);
+            textCache.drawCenteredString(g2D, ACTION_NAMES[action], MENU_FONT,
+                    Color.RED, x + 5 * MINO_SIZE, 455);
+        } else if (!meSelected) {
+            textCache.drawCenteredString(g2D, "F2: change keys", MENU_FONT,
+                    Color.WHITE, x + 5 * MINO_SIZE, 455);
+        }
     }
 
     /**
@@ -342,54 +667,33 @@ public final class TetrisPanel extends JPanel {
             Graphics2D g2D) {
         if (meSelected && theySelected) {
             if (countdown != -1) {
-                g2D.setFont(new Font("Arial Black", Font.PLAIN, 40));
-                FontMetrics metrics = g2D.getFontMetrics();
-
+                FontMetrics metrics = textCache.getFontMetrics(COUNTDOWN_FONT);
                 String toDraw = countdown >= 60 ? "Ready?" : "GO!";
-                int width = metrics.stringWidth(toDraw);
 
-                g2D.setColor(Color.WHITE);
-
-                g2D.drawString(toDraw, x + 5 * MINO_SIZE - width / 2,
+                textCache.drawCenteredString(g2D, toDraw, COUNTDOWN_FONT,
+                        Color.WHITE, x + 5 * MINO_SIZE,
                         10 * MINO_SIZE + metrics.getHeight() / 2);
             }
         } else {
-            g2D.setFont(new Font("Arial Black", Font.PLAIN, 15));
-            FontMetrics metrics = g2D.getFontMetrics();
-
-            String toDraw;
+            FontMetrics metrics = textCache.getFontMetrics(MENU_FONT);
 
-            if (selected && selection == 0) {
-                g2D.setColor(Color.RED);
-            } else {
-                g2D.setColor(Color.WHITE);
-            }
-            toDraw = "SRS (normal garbage)";
-            g2D.drawString(toDraw, x
-                    + 5 * MINO_SIZE - metrics.stringWidth(toDraw) / 2, 150);
+            textCache.drawCenteredString(g2D, "SRS (normal garbage)", MENU_FONT,
+                    selected && selection == 0 ? Color.RED : Color.WHITE,
+                    x + 5 * MINO_SIZE, 150);
 
-            if (selected && selection == 1) {
-                g2D.setColor(Color.RED);
-            } else {
-                g2D.setColor(Color.WHITE);
-            }
-            toDraw = "ARS/TGM (1.25x garbage)";
-            g2D.drawString(toDraw, x
-                    + 5 * MINO_SIZE - metrics.stringWidth(toDraw) / 2, 250);
+            textCache.drawCenteredString(g2D, "ARS/TGM (1.25x garbage)",
+                    MENU_FONT,
+                    selected && selection == 1 ? Color.RED : Color.WHITE,
+                    x + 5 * MINO_SIZE, 250);
 
-            if (selected && selection == 2) {
-                g2D.setColor(Color.RED);
-            } else {
-                g2D.setColor(Color.WHITE);
-            }
-            toDraw = "Nintendo (1.5x garbage)";
-            g2D.drawString(toDraw, x
-                    + 5 * MINO_SIZE - metrics.stringWidth(toDraw) / 2, 350);
+            textCache.drawCenteredString(g2D, "Nintendo (1.5x garbage)",
+                    MENU_FONT,
+                    selected && selection == 2 ? Color.RED : Color.WHITE,
+                    x + 5 * MINO_SIZE, 350);
 
             if (!selected) {
                 g2D.setColor(Color.RED);
-                g2D.setStroke(new BasicStroke(3.0f, BasicStroke.CAP_SQUARE,
-                        BasicStroke.JOIN_MITER));
+                g2D.setStroke(SELECTION_STROKE);
 
                 int height = metrics.getHeight();
                 switch (selection) {
@@ -418,10 +722,53 @@ public final class TetrisPanel extends JPanel {
      * @param das the new DAS value
      */
     public void setDAS(int das) {
-        Point dasSettings = new Point(das, 1);
-        handler.setListener(VK_DOWN, dasSettings);
-        handler.setListener(VK_LEFT, dasSettings);
-        handler.setListener(VK_RIGHT, dasSettings);
+        setRepeating(GameAction.SOFT_DROP, das);
+        setRepeating(GameAction.MOVE_LEFT, das);
+        setRepeating(GameAction.MOVE_RIGHT, das);
+    }
+
+    /**
+     * Makes an action repeat with the given DAS and the ARR of the player.
+     *
+     * @param action the action
+     * @param das the DAS in frames
+     */
+    private void setRepeating(GameAction action, int das) {
+        handler.setTiming(action, DASHandler.toNanos(das), ARR);
+    }
+
+    /**
+     * Performs the times an action was repeated in the last frame beyond the
+     * first, which {@link TetrisMatrix#executeActions(int)} already did.
+     *
+     * @param action the action
+     */
+    private void executeRepeats(GameAction action) {
+        int times = handler.getRepeats(action);
+        if (times > 1) {
+            myMatrix.shift(action,
+                    times == DASHandler.INSTANT ? times : times - 1);
+        }
+    }
+
+    /**
+     * Reads the ARR of the player from the {@code tetrishg.arr} property.
+     *
+     * @return the ARR in nanoseconds
+     */
+    private static long readARR() {
+        String arr = System.getProperty("tetrishg.arr");
+        if (arr != null) {
+            try {
+                double millis = Double.parseDouble(arr);
+                if (millis >= 0) {
+                    return (long) (millis * 1_000_000);
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("Bad ARR: " + arr);
+            }
+        }
+        return DASHandler.toNanos(1);
     }
 
     /**
@@ -453,7 +800,7 @@ public final class TetrisPanel extends JPanel {
                 if (lines == -1) {
                     myMatrix.endGame();
                 } else {
-                    int toSend = (int) (lines * getMultiplier(theirSelection));
+                    int toSend = (int) (lines * TetrisEngine.getGarbageMultiplier(theirSelection));
                     // myMatrix.addGarbage(0);
                     System.out.println("yeeted " + toSend + " to myself");
                     myMatrix.queueGarbage(toSend);
@@ -467,7 +814,7 @@ public final class TetrisPanel extends JPanel {
                 if (lines == -1) {
                     theirMatrix.endGame();
                 } else {
-                    int toSend = (int) (lines * getMultiplier(mySelection));
+                    int toSend = (int) (lines * TetrisEngine.getGarbageMultiplier(mySelection));
                     System.out.println("yeeted " + toSend + " to them");
                     theirMatrix.queueGarbage(toSend);
                 }
@@ -478,118 +825,112 @@ public final class TetrisPanel extends JPanel {
     }
 
     /**
-     * Generates a starting bag.
+     * Hands a message from the server over to the thread running the game.
+     * Called by the thread reading from the server, and only by it. If the
+     * inbox is full, this waits for the game to empty it, unless the game has
+     * stopped, in which case the message is dropped.
+     *
+     * @param message the message from the server
      */
-    private void generateStartBag() {
-        TetrominoFactory<Tetromino> factory = myMatrix.getTetrominoFactory();
-        List<Tetromino> bag = factory.createRandomBag();
-        StringBuilder message = new StringBuilder();
-        for (Tetromino t : bag) {
-            message.append(t.getType());
+    private void handOver(GameMessage message) {
+        while (!inbox.offer(message)) {
+            SimulationLoop current = loop;
+            if (current != null && !current.isRunning()) {
+                System.err.println("Dropped message for a stopped game: "
+                        + message);
+                return;
+            }
+            LockSupport.parkNanos(INBOX_WAIT);
         }
-
-        ClientSocket.getConnection().send("NB" + message);
-        myMatrix.addBag(message.toString());
     }
 
     /**
-     * Finds the garbage multiplier depending on the given choice of spin
-     * system.
-     *
-     * @param spinSelection the spin system to query
-     * @return the damage multiplier
-     */
-    private double getMultiplier(int spinSelection) {
-        switch (spinSelection) {
-            case 0:
-                return 1;
-            case 1:
-                return 1.25;
-            case 2:
-                return 1.5;
-            default:
-                assert false : "Invalid selection";
-                return 0;
+     * Handles every message the server has sent since the last frame, in the
+     * order they came in. Must hold the frame lock.
+     */
+    private void drainInbox() {
+        long start = System.nanoTime();
+        int handled = 0;
+        GameMessage message;
+        while ((message = inbox.poll()) != null) {
+            if (message.getType() == GameMessage.TEXT) {
+                String line = message.getText();
+                myMatrix.handleLine(line);
+                handleLine(line);
+            } else {
+                theirMatrix.handleMessage(message);
+                handleMessage(message);
+            }
+            handled++;
+        }
+        if (handled > 0) {
+            stats.record(FrameStats.NETWORK, System.nanoTime() - start);
         }
     }
 
     /**
-     * Creates a new Consumer that acts like a listener for incoming messages
+     * Handles a line from the server. Must hold the frame lock.
      *
-     * @return a Consumer/Listener
+     * @param line the line from the server
      */
-    private Consumer<String> getListener() {
-        return (line) -> {
-            if (!theySelected) {
-                if (line.startsWith("SELECT")) {
-                    theirSelection = Integer.parseInt(line.substring(6));
-                } else if (line.startsWith("CHOOSE")) {
-                    theirSelection = Integer.parseInt(line.substring(6));
-                    theySelected = true;
-
-                    TetrisMatrix.setMatrixAs(theirMatrix, theirSelection);
+    private void handleLine(String line) {
+        if (!theySelected) {
+            if (line.startsWith("SELECT")) {
+                theirSelection = Integer.parseInt(line.substring(6));
+            } else if (line.startsWith("CHOOSE")) {
+                theirSelection = Integer.parseInt(line.substring(6));
+                theySelected = true;
 
-                    if (meSelected) {
-                        generateStartBag();
+                TetrisMatrix.setMatrixAs(theirMatrix, theirSelection);
 
-                        if (++canStart == 2) {
-                            startCountdown();
-                        }
-                    }
-                }
-            } else {
-                if (line.equals("DESELECT")) {
-                    theySelected = false;
-                    canStart--;
-                    return;
-                }
                 if (meSelected) {
-                    switch (line) {
-                        case "COUNT0":
-                            if (++canStart == 4) {
-                                countdown = -1;
-                                startGame();
-                            }
-                            return;
-                        case "NXTDELAY":
-                            if (toExecute != null && toExecute.equals("NXTDELAY")) {
-                                toExecute = null;
-
-                                if (++delayRow < DELAYS.length) {
-                                    // dew it
-                                    updateDelays();
-
-                                    downCnt = 1800;
-                                }
-                            } else {
-                                toExecute = "NXTDELAY";
-                            }
-                            return;
-                        default:
-                            if (line.startsWith("ACTIONS")) {
-                                HashSet<Integer> actions = new HashSet<>();
-                                String[] data = line.substring(7).split(" ");
-                                for (String s : data) {
-                                    actions.add(Integer.parseInt(s));
-                                }
-
-                                theirMatrix.executeActions(actions);
-                            } else if (line.startsWith("NB")) {
-                                theirMatrix.addBag(line.substring(2));
-                                if (!myMatrix.isInGame() && ++canStart == 2) {
-                                    startCountdown();
-                                }
-                                // System.out.println("Added a bag of " + line.substring(2));
-                            } else if (line.startsWith("LOCK")) {
-//                                System.out.println("Their garbageHandler: "
-//                                        + theirMatrix.getGarbageManager().toString());
-//                                System.out.println("My garbageHandler   : "
-//                                        + myMatrix.getGarbageManager().toString());
+                    canStart = 2;
+                    startCountdown();
+                }
+            }
+        } else {
+            if (line.equals("DESELECT")) {
+                theySelected = false;
+                canStart--;
+                return;
+            }
+            if (meSelected) {
+                switch (line) {
+                    case "COUNT0":
+                        if (++canStart == 4) {
+                            countdown = -1;
+                            startGame();
+                        }
+                        return;
+                    case "NXTDELAY":
+                        if (toExecute != null && toExecute.equals("NXTDELAY")) {
+                            toExecute = null;
+
+                            if (++delayRow < DELAYS.length) {
+                                // dew it
+                                updateDelays();
+
+                                downCnt = 1800;
                             }
-                            break;
-                    }
+                        } else {
+                            toExecute = "NXTDELAY";
+                        }
+                        return;
                 }
             }
-        };
+        }
+    }
+
+    /**
+     * Handles a typed message from the server: the opponent's actions are
+     * executed here. Must hold the frame lock.
+     *
+     * @param message the message from the server
+     */
+    private void handleMessage(GameMessage message) {
+        if (theySelected && meSelected
+                && message.getType() == GameMessage.ACTIONS) {
+            theirMatrix.executeActions(message.getActions());
+        }
     }
 }
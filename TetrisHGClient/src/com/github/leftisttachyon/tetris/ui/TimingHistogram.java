@@ -0,0 +1,222 @@
+package com.github.leftisttachyon.tetris.ui;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of the last few durations recorded, in nanoseconds. Durations
+ * are counted in buckets that get wider as durations get longer, so that every
+ * bucket is within about 3% of the durations in it, the way an HdrHistogram
+ * does; a ring of the durations themselves is kept so that the oldest one can
+ * be taken out of its bucket when a new one comes in. Recording creates no
+ * objects.
+ * <p>
+ * A TimingHistogram is not thread-safe.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class TimingHistogram {
+
+    /**
+     * How many bits of each duration are kept exactly
+     */
+    private static final int SUB_BITS = 6;
+
+    /**
+     * The amount of durations short enough to have a bucket each
+     */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /**
+     * The amount of buckets for each power of two after the first ones
+     */
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+
+    /**
+     * The amount of buckets needed to count any positive long
+     */
+    private static final int BUCKETS = SUB_COUNT
+            + (63 - SUB_BITS) * HALF_COUNT;
+
+    /**
+     * The last durations recorded, oldest first from {@link #next}
+     */
+    private final long[] samples;
+
+    /**
+     * The amount of recorded durations in each bucket
+     */
+    private final int[] counts;
+
+    /**
+     * Where the next duration goes in the ring
+     */
+    private int next;
+
+    /**
+     * How many durations are in the ring
+     */
+    private int size;
+
+    /**
+     * How many durations have ever been recorded
+     */
+    private long total;
+
+    /**
+     * Creates a new, empty TimingHistogram.
+     *
+     * @param window how many of the last durations to keep
+     */
+    public TimingHistogram(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The window must be positive");
+        }
+        samples = new long[window];
+        counts = new int[BUCKETS];
+        next = 0;
+        size = 0;
+        total = 0;
+    }
+
+    /**
+     * Creates a copy of the given TimingHistogram.
+     *
+     * @param other the TimingHistogram to copy
+     */
+    public TimingHistogram(TimingHistogram other) {
+        samples = other.samples.clone();
+        counts = other.counts.clone();
+        next = other.next;
+        size = other.size;
+        total = other.total;
+    }
+
+    /**
+     * Records a duration, forgetting the oldest one if the window is full.
+     *
+     * @param nanos the duration in nanoseconds; negative durations count as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        if (size == samples.length) {
+            counts[bucketOf(samples[next])]--;
+        } else {
+            size++;
+        }
+        samples[next] = nanos;
+        counts[bucketOf(nanos)]++;
+        next = (next + 1) % samples.length;
+        total++;
+    }
+
+    /**
+     * Forgets every duration.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        next = 0;
+        size = 0;
+        total = 0;
+    }
+
+    /**
+     * Returns how many durations are in the window
+     *
+     * @return how many durations are in the window
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns how many durations have ever been recorded
+     *
+     * @return how many durations have ever been recorded
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns a duration in the window, oldest first.
+     *
+     * @param index the index of the duration, from 0 to {@link #getSize()}
+     * @return the duration in nanoseconds
+     */
+    public long getSample(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                    + ", size: " + size);
+        }
+        int start = size == samples.length ? next : 0;
+        return samples[(start + index) % samples.length];
+    }
+
+    /**
+     * Determines the duration that the given percent of the durations in the
+     * window are at most, to within the width of a bucket.
+     *
+     * @param percentile the percent, from 0 to 100
+     * @return the duration in nanoseconds, or 0 if there are none
+     */
+    public long getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * size));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestIn(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the longest duration in the window.
+     *
+     * @return the longest duration in nanoseconds, or 0 if there are none
+     */
+    public long getMax() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Determines which bucket counts the given duration.
+     *
+     * @param nanos the duration, at least 0
+     * @return the bucket of the duration
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_COUNT) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF_COUNT
+                + (int) ((nanos >> shift) - HALF_COUNT);
+    }
+
+    /**
+     * Determines the longest duration the given bucket counts.
+     *
+     * @param bucket the bucket
+     * @return the longest duration in the bucket
+     */
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_COUNT) / HALF_COUNT + 1;
+        long sub = (bucket - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -2,6 +2,7 @@ package com.github.leftisttachyon.ui;
 
 import com.github.leftisttachyon.comm.ClientSocket;
 import com.github.leftisttachyon.tetris.ui.TetrisFrame;
+import com.github.leftisttachyon.util.TextCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -274,9 +275,10 @@ public class LobbyWindow extends JFrame {
                 lw.addLobbyMessage(line.substring(3));
             } else {
                 if (lw.inGame) {
-                    if (line.equals("ST")) {
+                    if (line.startsWith("ST")) {
+                        long seed = Long.parseLong(line.substring(2));
                         new Thread(() -> {
-                            lw.tFrame = new TetrisFrame();
+                            lw.tFrame = new TetrisFrame(seed);
                             Dimension geg = lw.getSize();
                             lw.tFrame.setLocation(
                                     lw.getX() + (geg.width - lw.tFrame.getWidth()) / 2,
@@ -371,6 +373,34 @@ public class LobbyWindow extends JFrame {
      */
     private final class InfoPanel extends JPanel implements Runnable {
 
+        /**
+         * The stroke of the status light
+         */
+        private final BasicStroke lightStroke = new BasicStroke(1,
+                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+        /**
+         * The stroke of the challenge button
+         */
+        private final BasicStroke buttonStroke = new BasicStroke(2.5f,
+                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+        /**
+         * The text of this panel, drawn ahead of time
+         */
+        private final TextCache textCache = new TextCache(32);
+
+        /**
+         * The font of the name of the selected player, or null if not made
+         * yet
+         */
+        private Font nameFont = null;
+
+        /**
+         * The font of the challenge button, or null if not made yet
+         */
+        private Font buttonFont = null;
+
         /**
          * Creates a new InfoPanel.
          */
@@ -379,6 +409,22 @@ public class LobbyWindow extends JFrame {
             addMouseListener(iml);
         }
 
+        /**
+         * Makes the fonts again if the size of this panel has changed since
+         * they were made.
+         *
+         * @param nameSize the size of the font of the player name
+         * @param buttonSize the size of the font of the challenge button
+         */
+        private void updateFonts(int nameSize, int buttonSize) {
+            if (nameFont == null || nameFont.getSize() != nameSize) {
+                nameFont = new Font("Consolas", Font.PLAIN, nameSize);
+            }
+            if (buttonFont == null || buttonFont.getSize() != buttonSize) {
+                buttonFont = new Font("Consolas", Font.PLAIN, buttonSize);
+            }
+        }
+
         @Override
         public void run() {
             while (true) {
@@ -400,12 +446,12 @@ public class LobbyWindow extends JFrame {
                 Graphics2D g2D = (Graphics2D) g;
                 g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                         RenderingHints.VALUE_ANTIALIAS_ON);
-                int cbh = challengeButtonHeight();
-                g2D.setStroke(new BasicStroke(1, BasicStroke.CAP_ROUND,
-                        BasicStroke.JOIN_ROUND));
-                g2D.setFont(new Font("Consolas", Font.PLAIN, cbh));
-                g2D.setColor(Color.black);
-                g2D.drawString(selectedPlayer, 5, cbh + 5);
+                int cbh = challengeButtonHeight(),
+                        cbw = challengeButtonWidth();
+                updateFonts(cbh, Math.min(cbh - 10, cbw / 5));
+                g2D.setStroke(lightStroke);
+                textCache.drawString(g2D, selectedPlayer, nameFont,
+                        Color.black, 5, cbh + 5);
 
                 boolean isBusy = busy.get(selectedPlayer);
                 if (isBusy) {
@@ -418,10 +464,8 @@ public class LobbyWindow extends JFrame {
                 g2D.setColor(Color.black);
                 g2D.drawOval(x, cbh, 10, 10);
 
-                g2D.setStroke(new BasicStroke(2.5f, BasicStroke.CAP_ROUND,
-                        BasicStroke.JOIN_ROUND));
-                int cbx = challengeButtonX(), cby = challengeButtonY(),
-                        cbw = challengeButtonWidth();
+                g2D.setStroke(buttonStroke);
+                int cbx = challengeButtonX(), cby = challengeButtonY();
                 if (isBusy || challenging != null || busy.get(name[0])) {
                     g2D.setColor(Color.lightGray);
                     g2D.fillRect(cbx, cby, cbw, cbh);
@@ -432,9 +476,8 @@ public class LobbyWindow extends JFrame {
                     g2D.setColor(Color.darkGray);
                 }
                 g2D.drawRect(cbx, cby, cbw, cbh);
-                g2D.setFont(new Font("Consolas", Font.PLAIN,
-                        Math.min(cbh - 10, cbw / 5)));
-                g2D.drawString("CHALLENGE", cbx + 5, cby + cbh - 10);
+                textCache.drawString(g2D, "CHALLENGE", buttonFont,
+                        g2D.getColor(), cbx + 5, cby + cbh - 10);
             }
         }
 
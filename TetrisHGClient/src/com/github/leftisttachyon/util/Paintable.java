@@ -4,7 +4,6 @@ import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.NoninvertibleTransformException;
 
 /**
  * An interface that represents something that can be painted with a
@@ -37,22 +36,21 @@ public interface Paintable {
 
     /**
      * Paints this Paintable object with the given {@code Graphics2D} object.
-     * The painted output's top left corner is (x, y).
+     * The painted output's top left corner is (x, y). The Graphics2D object is
+     * moved there and back again, without creating any objects, so this is
+     * cheap enough to call for every frame.
      *
      * @param g2D the Graphics2D object to use to paint this component
      * @param x the x-coordinate of the top left corner
      * @param y the y-coordinate of the top left corner
-     * @throws NoninvertibleTransformException thrown when the translation from
-     * (0, 0) to (x, y) is noninvertible
      */
-    default void paint(Graphics2D g2D, int x, int y)
-            throws NoninvertibleTransformException {
-        AffineTransform at = AffineTransform.getTranslateInstance(x, y);
-        g2D.transform(at);
-
-        paint(g2D);
-
-        g2D.transform(at.createInverse());
+    default void paint(Graphics2D g2D, int x, int y) {
+        g2D.translate(x, y);
+        try {
+            paint(g2D);
+        } finally {
+            g2D.translate(-x, -y);
+        }
     }
 
     /**
@@ -62,11 +60,55 @@ public interface Paintable {
      * @param g the Graphics object to use to paint this component
      * @param x the x-coordinate of the top left corner
      * @param y the y-coordinate of the top left corner
-     * @throws NoninvertibleTransformException thrown when the translation from
-     * (0, 0) to (x, y) is noninvertible
      */
-    default void paint(Graphics g, int x, int y)
-            throws NoninvertibleTransformException {
+    default void paint(Graphics g, int x, int y) {
         paint((Graphics2D) g, x, y);
     }
+
+    /**
+     * Paints this Paintable object with the given {@code Graphics2D} object,
+     * transformed by the given transform. Afterwards, the transform of the
+     * Graphics2D object is put back the way it was, even if the given
+     * transform cannot be undone.
+     *
+     * @param g2D the Graphics2D object to use to paint this component
+     * @param transform the transform to paint with
+     * @see #saveTransform(java.awt.Graphics2D)
+     * @see #restoreTransform(java.awt.Graphics2D,
+     * java.awt.geom.AffineTransform)
+     */
+    default void paint(Graphics2D g2D, AffineTransform transform) {
+        AffineTransform saved = saveTransform(g2D);
+        try {
+            g2D.transform(transform);
+            paint(g2D);
+        } finally {
+            restoreTransform(g2D, saved);
+        }
+    }
+
+    /**
+     * Returns a copy of the current transform of the given Graphics2D object,
+     * to be put back later with
+     * {@link #restoreTransform(java.awt.Graphics2D, java.awt.geom.AffineTransform)}.
+     * This creates an object, so plain moves are better done with
+     * {@link #paint(java.awt.Graphics2D, int, int)}.
+     *
+     * @param g2D the Graphics2D object whose transform to save
+     * @return a copy of its current transform
+     */
+    static AffineTransform saveTransform(Graphics2D g2D) {
+        return g2D.getTransform();
+    }
+
+    /**
+     * Puts back a transform saved with
+     * {@link #saveTransform(java.awt.Graphics2D)}.
+     *
+     * @param g2D the Graphics2D object whose transform to restore
+     * @param saved the saved transform
+     */
+    static void restoreTransform(Graphics2D g2D, AffineTransform saved) {
+        g2D.setTransform(saved);
+    }
 }
@@ -110,4 +110,40 @@ public final class TetrisUtils {
 
         return -1;
     }
+
+    /**
+     * Converts a matrix of integers into one bitmask per row: bit {@code i} of
+     * a row's bitmask is set if column {@code i} of that row is nonzero.
+     *
+     * @param mat the matrix of integers to convert
+     * @return the bitmasks of each row of the matrix
+     */
+    public static int[] toRowMask(int[][] mat) {
+        int[] output = new int[mat.length];
+        for (int j = 0; j < mat.length; j++) {
+            for (int i = 0; i < mat[j].length; i++) {
+                if (mat[j][i] != 0) {
+                    output[j] |= 1 << i;
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Converts each of the given matrices into row bitmasks.
+     *
+     * @param mats the matrices of integers to convert
+     * @return the row bitmasks of each matrix, in the order given
+     * @see #toRowMask(int[][])
+     */
+    public static int[][] toRowMasks(int[][]... mats) {
+        int[][] output = new int[mats.length][];
+        for (int i = 0; i < mats.length; i++) {
+            output[i] = toRowMask(mats[i]);
+        }
+
+        return output;
+    }
 }
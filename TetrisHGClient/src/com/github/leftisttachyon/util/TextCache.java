@@ -0,0 +1,302 @@
+package com.github.leftisttachyon.util;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of text drawn into images, so that text drawn every frame is laid
+ * out and drawn only once. Each image is kept by its text, font and color;
+ * once the cache is full, the text drawn the longest time ago is forgotten.
+ * Text is drawn antialiased.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public final class TextCache {
+
+    /**
+     * How text is laid out: antialiased, without fractional metrics
+     */
+    private static final FontRenderContext FRC
+            = new FontRenderContext(null, true, false);
+
+    /**
+     * The images of the text drawn so far, least recently drawn first
+     */
+    private final LinkedHashMap<Key, RenderedText> texts;
+
+    /**
+     * The metrics of the fonts used so far
+     */
+    private final HashMap<Font, FontMetrics> metrics;
+
+    /**
+     * The key used to look text up, so that looking up creates no objects
+     */
+    private final Key probe;
+
+    /**
+     * An image to get font metrics from
+     */
+    private final Graphics2D scratch;
+
+    /**
+     * Creates a new TextCache.
+     *
+     * @param capacity the most images of text to keep
+     */
+    public TextCache(int capacity) {
+        texts = new LinkedHashMap<Key, RenderedText>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Key, RenderedText> eldest) {
+                return size() > capacity;
+            }
+        };
+        metrics = new HashMap<>();
+        probe = new Key();
+        scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB)
+                .createGraphics();
+        scratch.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+
+    /**
+     * Returns the metrics of the given font.
+     *
+     * @param font the font to get the metrics of
+     * @return the metrics of the given font
+     */
+    public synchronized FontMetrics getFontMetrics(Font font) {
+        FontMetrics fm = metrics.get(font);
+        if (fm == null) {
+            fm = scratch.getFontMetrics(font);
+            metrics.put(font, fm);
+        }
+        return fm;
+    }
+
+    /**
+     * Returns the width of the given text.
+     *
+     * @param text the text to measure
+     * @param font the font of the text
+     * @return how far the text advances
+     */
+    public synchronized int stringWidth(String text, Font font) {
+        return get(text, font, Color.BLACK).advance;
+    }
+
+    /**
+     * Draws text with its baseline starting at the given point.
+     *
+     * @param g2D the Graphics2D to draw with
+     * @param text the text to draw
+     * @param font the font of the text
+     * @param color the color of the text
+     * @param x the x-coordinate of the start of the text
+     * @param y the y-coordinate of the baseline of the text
+     */
+    public synchronized void drawString(Graphics2D g2D, String text, Font font,
+            Color color, int x, int y) {
+        RenderedText rendered = get(text, font, color);
+        if (rendered.image != null) {
+            g2D.drawImage(rendered.image, x + rendered.offsetX,
+                    y + rendered.offsetY, null);
+        }
+    }
+
+    /**
+     * Draws text centered on the given x-coordinate, with its baseline at the
+     * given y-coordinate.
+     *
+     * @param g2D the Graphics2D to draw with
+     * @param text the text to draw
+     * @param font the font of the text
+     * @param color the color of the text
+     * @param x the x-coordinate of the center of the text
+     * @param y the y-coordinate of the baseline of the text
+     */
+    public synchronized void drawCenteredString(Graphics2D g2D, String text,
+            Font font, Color color, int x, int y) {
+        drawString(g2D, text, font, color,
+                x - get(text, font, color).advance / 2, y);
+    }
+
+    /**
+     * Forgets every image of text.
+     */
+    public synchronized void clear() {
+        texts.clear();
+    }
+
+    /**
+     * Finds the image of the given text, drawing it if it has not been yet.
+     *
+     * @param text the text to find
+     * @param font the font of the text
+     * @param color the color of the text
+     * @return the image of the text
+     */
+    private RenderedText get(String text, Font font, Color color) {
+        probe.set(text, font, color.getRGB());
+        RenderedText rendered = texts.get(probe);
+        if (rendered == null) {
+            rendered = render(text, font, color);
+            Key key = new Key();
+            key.set(text, font, color.getRGB());
+            texts.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Draws text into an image.
+     *
+     * @param text the text to draw
+     * @param font the font of the text
+     * @param color the color of the text
+     * @return the image of the text
+     */
+    private RenderedText render(String text, Font font, Color color) {
+        GlyphVector glyphs = font.createGlyphVector(FRC, text);
+        Rectangle bounds = glyphs.getPixelBounds(FRC, 0, 0);
+        int advance = getFontMetrics(font).stringWidth(text);
+        if (bounds.isEmpty()) {
+            return new RenderedText(null, 0, 0, advance);
+        }
+
+        BufferedImage image;
+        if (GraphicsEnvironment.isHeadless()) {
+            image = new BufferedImage(bounds.width, bounds.height,
+                    BufferedImage.TYPE_INT_ARGB_PRE);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            image = gc.createCompatibleImage(bounds.width, bounds.height,
+                    Transparency.TRANSLUCENT);
+        }
+
+        Graphics2D g2D = image.createGraphics();
+        try {
+            g2D.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2D.setColor(color);
+            g2D.drawGlyphVector(glyphs, -bounds.x, -bounds.y);
+        } finally {
+            g2D.dispose();
+        }
+        return new RenderedText(image, bounds.x, bounds.y, advance);
+    }
+
+    /**
+     * What an image of text is kept by.
+     */
+    private static final class Key {
+
+        /**
+         * The text
+         */
+        private String text;
+
+        /**
+         * The font of the text
+         */
+        private Font font;
+
+        /**
+         * The color of the text, as an ARGB value
+         */
+        private int rgb;
+
+        /**
+         * The hash code of this key
+         */
+        private int hash;
+
+        /**
+         * Changes what this key is for.
+         *
+         * @param text the text
+         * @param font the font of the text
+         * @param rgb the color of the text, as an ARGB value
+         */
+        private void set(String text, Font font, int rgb) {
+            this.text = text;
+            this.font = font;
+            this.rgb = rgb;
+            hash = (text.hashCode() * 31 + font.hashCode()) * 31 + rgb;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return rgb == other.rgb && text.equals(other.text)
+                    && font.equals(other.font);
+        }
+    }
+
+    /**
+     * An image of text.
+     */
+    private static final class RenderedText {
+
+        /**
+         * The image, or null if the text shows nothing
+         */
+        private final BufferedImage image;
+
+        /**
+         * Where the image starts, from the start of the text
+         */
+        private final int offsetX;
+
+        /**
+         * Where the image starts, from the baseline of the text
+         */
+        private final int offsetY;
+
+        /**
+         * How far the text advances
+         */
+        private final int advance;
+
+        /**
+         * Creates a new RenderedText.
+         *
+         * @param image the image, or null if the text shows nothing
+         * @param offsetX where the image starts, from the start of the text
+         * @param offsetY where the image starts, from the baseline
+         * @param advance how far the text advances
+         */
+        private RenderedText(BufferedImage image, int offsetX, int offsetY,
+                int advance) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.advance = advance;
+        }
+    }
+}
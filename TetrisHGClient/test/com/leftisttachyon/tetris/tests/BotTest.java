@@ -0,0 +1,459 @@
+package com.github.leftisttachyon.tetris.tests;
+
+import com.github.leftisttachyon.tetris.GameAction;
+import com.github.leftisttachyon.tetris.SpinSystem;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.bot.BeamSearchBot;
+import com.github.leftisttachyon.tetris.bot.Board;
+import com.github.leftisttachyon.tetris.bot.Bot;
+import com.github.leftisttachyon.tetris.bot.BotPlayer;
+import com.github.leftisttachyon.tetris.bot.GreedyBot;
+import com.github.leftisttachyon.tetris.bot.HeuristicEvaluator;
+import com.github.leftisttachyon.tetris.bot.Placement;
+import com.github.leftisttachyon.tetris.bot.PlacementFinder;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
+
+/**
+ * A test of the bot API: counts the placements of every tetromino on an empty
+ * board, checks that the path to each one really gets there when it is played
+ * on an engine, checks that a tetromino can be soft dropped partway down a
+ * well and tucked under an overhang, measures how fast placements are found,
+ * checks that a
+ * {@link BeamSearchBot} chooses the same on one thread as on many and the
+ * same off the thread running the game as on it, and plays
+ * headless games with a {@link GreedyBot} and a BeamSearchBot.
+ *
+ * @author Jed Wang
+ */
+public class BotTest {
+
+    /**
+     * How many different places each tetromino can land on an empty board,
+     * by id
+     */
+    private static final int[] EMPTY_BOARD_PLACEMENTS = {17, 34, 34, 9, 17,
+        34, 17};
+
+    /**
+     * How many checks have failed
+     */
+    private static int failures = 0;
+
+    /**
+     * The main method; where to run the tests.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        TetrisEngine engine = createEngine(0);
+        PlacementFinder finder = new PlacementFinder();
+        Board board = new Board();
+        for (int type = 0; type < Randomizer.PIECES; type++) {
+            finder.find(board, engine.getTetrominoFactory(),
+                    engine.getSpinSystem(), type, false);
+            int distinct = 0;
+            for (int i = 0; i < finder.getCount(); i++) {
+                if (!finder.isSpin(i)) {
+                    distinct++;
+                }
+            }
+            if (distinct != EMPTY_BOARD_PLACEMENTS[type]) {
+                System.out.println("Type " + type + ": expected "
+                        + EMPTY_BOARD_PLACEMENTS[type] + " placements, got "
+                        + distinct);
+                failures++;
+            }
+        }
+
+        for (int seed = 0; seed < 50; seed++) {
+            checkPaths(seed, false);
+            checkPaths(seed, true);
+        }
+
+        checkTSlot();
+        checkTuck();
+        checkParallel();
+        checkLater();
+
+        measure(new Board(), "an empty board");
+        measure(playGame(new GreedyBot(), "Greedy", 2000),
+                "the end of a bot game");
+
+        BeamSearchBot beam = new BeamSearchBot();
+        playGame(beam, "Beam search", 200);
+        System.out.println("Boards made by the beam search: "
+                + beam.getBoardsCreated());
+        beam.shutdown();
+
+        System.out.println(failures + " failures");
+    }
+
+    /**
+     * Plays every placement of the first tetromino of a game by following its
+     * path on an engine, and checks that it lands where it was found.
+     *
+     * @param seed the seed of the game
+     * @param twentyG whether to search as if the tetromino drops to the floor
+     * after every move
+     */
+    private static void checkPaths(long seed, boolean twentyG) {
+        TetrisEngine engine = createEngine(seed);
+        Board board = new Board();
+        board.copyFrom(engine);
+        PlacementFinder finder = new PlacementFinder(),
+                pathFinder = new PlacementFinder();
+        Tetromino first = engine.getCurrentTetromino();
+        int type = PlacementFinder.typeOf(first);
+        int count = finder.find(board, engine.getTetrominoFactory(),
+                engine.getSpinSystem(), first, twentyG);
+
+        for (int i = 0; i < count; i++) {
+            Placement target = new Placement(type, finder.getX(i),
+                    finder.getY(i), finder.getRotation(i), finder.isSpin(i),
+                    false, 0, 0);
+            TetrisEngine played = createEngine(seed);
+            Tetromino t = played.getCurrentTetromino();
+            if (twentyG) {
+                played.executeActions(GameAction.SONIC_DROP.getMask());
+            }
+            int length = pathFinder.findPath(board,
+                    played.getTetrominoFactory(), played.getSpinSystem(), t,
+                    twentyG, target);
+            if (length < 0) {
+                System.out.println("No path to " + target + " with seed "
+                        + seed);
+                failures++;
+                continue;
+            }
+
+            for (int step = 0; step < length; step++) {
+                played.executeActions(pathFinder.getPathMove(step).getMask());
+                if (twentyG) {
+                    played.executeActions(GameAction.SONIC_DROP.getMask());
+                }
+            }
+            played.executeActions(GameAction.SONIC_DROP.getMask());
+
+            Board expected = new Board(board), actual = new Board(board);
+            expected.place(finder.getMask(i), target.getX(), target.getY());
+            actual.place(t.getMask(t.getRotation()), t.getX(), t.getY());
+            if (!sameBoard(expected, actual)) {
+                System.out.println("Path to " + target + " with seed " + seed
+                        + " landed at (" + t.getX() + ", " + t.getY()
+                        + ", " + t.getRotation() + ")");
+                failures++;
+            }
+        }
+    }
+
+    /**
+     * Measures how many placements are found every millisecond on a board.
+     *
+     * @param board the board
+     * @param name what the board is
+     */
+    private static void measure(Board board, String name) {
+        TetrisEngine engine = createEngine(0);
+        PlacementFinder finder = new PlacementFinder();
+        long placements = 0;
+        for (int i = 0; i < 20_000; i++) {
+            placements += finder.find(board, engine.getTetrominoFactory(),
+                    engine.getSpinSystem(), i % Randomizer.PIECES, false);
+        }
+
+        placements = 0;
+        final int searches = 100_000;
+        double start = System.nanoTime();
+        for (int i = 0; i < searches; i++) {
+            placements += finder.find(board, engine.getTetrominoFactory(),
+                    engine.getSpinSystem(), i % Randomizer.PIECES, false);
+        }
+        double total = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%s: %d searches, %d placements in %.3f ms "
+                + "(%.0f placements/ms)%n", name, searches, placements, total,
+                placements / total);
+    }
+
+    /**
+     * Checks that a T-spin double slot is found, and that filling it in with
+     * a T is seen as a T-spin.
+     */
+    private static void checkTSlot() {
+        // rows from the floor up: full but for column 4, full but for 3 to
+        // 5, and a block over column 3
+        Board board = new Board();
+        int full = (1 << TetrisEngine.MATRIX_WIDTH) - 1;
+        int bottom = TetrisEngine.MATRIX_HEIGHT - 1;
+        int[] rows = {full & ~(1 << 4), full & ~(7 << 3), 1 << 3};
+        for (int i = 0; i < rows.length; i++) {
+            board.place(new int[]{rows[i]}, 0, bottom - i);
+        }
+        int slots = HeuristicEvaluator.countTSlots(board);
+        if (slots != 1) {
+            System.out.println("Expected 1 T-spin slot, found " + slots);
+            failures++;
+        }
+
+        TetrisEngine engine = createEngine(0);
+        PlacementFinder finder = new PlacementFinder();
+        finder.find(board, engine.getTetrominoFactory(),
+                engine.getSpinSystem(), Randomizer.T, false);
+        boolean found = false;
+        for (int i = 0; i < finder.getCount(); i++) {
+            if (finder.isTSpin(board, i)) {
+                Board after = new Board(board);
+                found |= after.place(finder.getMask(i), finder.getX(i),
+                        finder.getY(i)) == 2;
+            }
+        }
+        if (!found) {
+            System.out.println("No T-spin double into the slot");
+            failures++;
+        }
+    }
+
+    /**
+     * Checks that an O can be soft dropped halfway down a well and moved
+     * into a cave to the side of it, and that the path there gets there when
+     * it is played one move at a time.
+     */
+    @SuppressWarnings("unchecked")
+    private static void checkTuck() {
+        // columns 0 and 1 are a well to the floor; columns 2 and 3 are open
+        // for two rows halfway down it, under a roof
+        Board board = new Board();
+        int full = (1 << TetrisEngine.MATRIX_WIDTH) - 1;
+        int bottom = TetrisEngine.MATRIX_HEIGHT - 1;
+        for (int i = 0; i < 10; i++) {
+            int row = i == 4 || i == 5 ? full & ~15 : full & ~3;
+            board.place(new int[]{row}, 0, bottom - i);
+        }
+        Board expected = new Board(board);
+        expected.place(new int[]{12, 12}, 0, bottom - 5);
+
+        TetrisEngine engine = createEngine(0);
+        PlacementFinder finder = new PlacementFinder();
+        int count = finder.find(board, engine.getTetrominoFactory(),
+                engine.getSpinSystem(), Randomizer.O, false);
+        Placement target = null;
+        for (int i = 0; i < count && target == null; i++) {
+            Board after = new Board(board);
+            after.place(finder.getMask(i), finder.getX(i), finder.getY(i));
+            if (sameBoard(expected, after)) {
+                target = new Placement(Randomizer.O, finder.getX(i),
+                        finder.getY(i), finder.getRotation(i), false, false,
+                        0, 0);
+            }
+        }
+        if (target == null) {
+            System.out.println("No placement in the cave beside the well");
+            failures++;
+            return;
+        }
+
+        Tetromino t = engine.getTetrominoFactory()
+                .createTetrominoOf(Randomizer.O);
+        int length = finder.findPath(board, engine.getTetrominoFactory(),
+                engine.getSpinSystem(), t, false, target);
+        if (length < 0) {
+            System.out.println("No path to " + target);
+            failures++;
+            return;
+        }
+
+        SpinSystem<Tetromino> spins
+                = (SpinSystem<Tetromino>) engine.getSpinSystem();
+        boolean softDropped = false;
+        for (int step = 0; step < length; step++) {
+            GameAction move = finder.getPathMove(step);
+            switch (move) {
+                case MOVE_LEFT:
+                case MOVE_RIGHT:
+                    int dx = move == GameAction.MOVE_LEFT ? -1 : 1;
+                    if (!t.intersects(board, dx, 0)) {
+                        t.transform(dx, 0);
+                    }
+                    break;
+                case ROTATE_RIGHT:
+                    spins.rotateRight(t, board);
+                    break;
+                case ROTATE_LEFT:
+                    spins.rotateLeft(t, board);
+                    break;
+                case SONIC_DROP:
+                    t.transform(0, board.dropDistance(
+                            t.getMask(t.getRotation()), t.getX(), t.getY()));
+                    break;
+                case SOFT_DROP:
+                    softDropped = true;
+                    if (!t.intersects(board, 0, 1)) {
+                        t.transform(0, 1);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (t.getX() != finder.getPathX(step)
+                    || t.getY() != finder.getPathY(step)
+                    || t.getRotation() != finder.getPathRotation(step)) {
+                System.out.println("Step " + step + " of the path to "
+                        + target + " got to (" + t.getX() + ", " + t.getY()
+                        + ", " + t.getRotation() + ")");
+                failures++;
+                return;
+            }
+        }
+        t.transform(0, board.dropDistance(t.getMask(t.getRotation()),
+                t.getX(), t.getY()));
+
+        Board actual = new Board(board);
+        actual.place(t.getMask(t.getRotation()), t.getX(), t.getY());
+        if (!softDropped || !sameBoard(expected, actual)) {
+            System.out.println("Path to " + target + " landed at ("
+                    + t.getX() + ", " + t.getY() + ", " + t.getRotation()
+                    + ")" + (softDropped ? "" : " without a soft drop"));
+            failures++;
+        }
+    }
+
+    /**
+     * Checks that a BeamSearchBot chooses the same placements on one thread
+     * as on several.
+     */
+    private static void checkParallel() {
+        BeamSearchBot one = new BeamSearchBot(3, 32, 1),
+                many = new BeamSearchBot(3, 32, 4);
+        for (int seed = 0; seed < 10; seed++) {
+            TetrisEngine engine = createEngine(seed);
+            Placement a = one.choose(engine), b = many.choose(engine);
+            if (!String.valueOf(a).equals(String.valueOf(b))) {
+                System.out.println("Seed " + seed + ": " + a + " on one "
+                        + "thread but " + b + " on four");
+                failures++;
+            }
+        }
+        one.shutdown();
+        many.shutdown();
+    }
+
+    /**
+     * Checks that a BotPlayer does not wait for a BeamSearchBot on the thread
+     * running the game, and that once the bot is done it moves toward the
+     * same placement the bot chooses when it is waited for.
+     */
+    private static void checkLater() {
+        BeamSearchBot bot = new BeamSearchBot();
+        for (int seed = 0; seed < 5; seed++) {
+            TetrisEngine engine = createEngine(seed);
+            Placement expected = bot.choose(engine);
+
+            BotPlayer player = new BotPlayer(bot);
+            player.setActionDelay(0);
+            long start = System.nanoTime();
+            int actions = player.nextActions(engine);
+            double first = (System.nanoTime() - start) / 1_000_000.0;
+            int calls = 1;
+            while (actions == 0 && calls < 100_000) {
+                Thread.yield();
+                actions = player.nextActions(engine);
+                calls++;
+            }
+
+            BotPlayer waiting = new BotPlayer(bot);
+            waiting.setActionDelay(0);
+            waiting.setBlocking(true);
+            int waited = waiting.nextActions(engine);
+            if (calls == 1 || actions != waited) {
+                System.out.println("Seed " + seed + ": chose " + expected
+                        + " but did " + actions + " after " + calls
+                        + " calls instead of " + waited);
+                failures++;
+            }
+            System.out.printf("Seed %d: first call took %.3f ms, moved "
+                    + "after %d calls%n", seed, first, calls);
+        }
+        bot.shutdown();
+    }
+
+    /**
+     * Plays a headless game with a bot until it tops out or has placed
+     * enough tetrominos.
+     *
+     * @param bot the bot
+     * @param name what to call the bot
+     * @param maxPieces how many tetrominos to stop after
+     * @return the matrix at the end of the game
+     */
+    private static Board playGame(Bot bot, String name, int maxPieces) {
+        TetrisEngine engine = createEngine(1);
+        BotPlayer player = new BotPlayer(bot);
+        player.setActionDelay(0);
+        // frames are not run in real time, so the bot is waited for
+        player.setBlocking(true);
+
+        int frames = 0, pieces = 0, lines = 0;
+        long lastCleared = 0;
+        boolean inPlay = true;
+        double start = System.nanoTime();
+        while (engine.isInGame() && pieces < maxPieces) {
+            engine.executeActions(player.nextActions(engine));
+            engine.advanceFrame(player);
+            long cleared = engine.getLinesToClear();
+            if (cleared != lastCleared) {
+                lines += Long.bitCount(cleared);
+                lastCleared = cleared;
+            }
+            // a tetromino that locks leaves nothing in play for a frame
+            boolean nowInPlay = engine.getCurrentTetromino() != null;
+            if (inPlay && !nowInPlay) {
+                pieces++;
+            }
+            inPlay = nowInPlay;
+            frames++;
+        }
+        double total = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%s game: %d pieces, %d lines, %d frames in "
+                + "%.3f ms, gravity %.1f%n", name, pieces, lines, frames,
+                total, engine.getGravity());
+        Board board = new Board();
+        board.copyFrom(engine);
+        return board;
+    }
+
+    /**
+     * Creates an authoritative SRS engine with the given seed and runs it
+     * until the first tetromino comes in.
+     *
+     * @param seed the seed of the engine
+     * @return a new engine with a tetromino in play
+     */
+    private static TetrisEngine createEngine(long seed) {
+        TetrisEngine engine = new TetrisEngine(true, seed);
+        TetrisEngine.setEngineAs(engine, 0);
+        engine.setPieceSeed(seed);
+        engine.startGame();
+        while (engine.getCurrentTetromino() == null) {
+            engine.advanceFrame(action -> false);
+        }
+        return engine;
+    }
+
+    /**
+     * Determines whether two boards have the same blocks filled in.
+     *
+     * @param a a board
+     * @param b another board
+     * @return whether they are the same
+     */
+    private static boolean sameBoard(Board a, Board b) {
+        for (int r = 0; r < TetrisEngine.MATRIX_HEIGHT; r++) {
+            if (a.getRow(r) != b.getRow(r)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.leftisttachyon.tetris.tests;
+
+import com.github.leftisttachyon.tetris.GameAction;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import com.github.leftisttachyon.tetris.ui.DASHandler;
+import com.github.leftisttachyon.tetris.ui.KeyMap;
+
+/**
+ * A test that feeds a DASHandler key events with made up timestamps and checks
+ * how many times each action repeats: taps shorter than a frame, DAS and ARR
+ * measured from when the key was pressed, and instant ARR. Also checks that
+ * shifting a tetromino to the wall lands it where moving it one column at a
+ * time would.
+ *
+ * @author Jed Wang
+ */
+public class DASTimingTest {
+
+    /**
+     * How long a frame is
+     */
+    private static final long FRAME = DASHandler.FRAME_NANOS;
+
+    /**
+     * How many checks have failed
+     */
+    private static int failures = 0;
+
+    /**
+     * The main method; where to run the tests.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        GameAction left = GameAction.MOVE_LEFT;
+
+        DASHandler handler = new DASHandler(new KeyMap());
+        handler.setTiming(left, DASHandler.toNanos(8), DASHandler.toNanos(1));
+        handler.press(left, 10 * FRAME + FRAME / 4);
+        handler.release(left, 10 * FRAME + FRAME / 2);
+        check("tap between frames", 1, advance(handler, 11 * FRAME, left));
+        check("after the tap", 0, advance(handler, 12 * FRAME, left));
+
+        handler.press(left, 20 * FRAME + FRAME / 2);
+        check("first frame held", 1, advance(handler, 21 * FRAME, left));
+        int total = 1;
+        for (int frame = 22; frame <= 49; frame++) {
+            total += advance(handler, frame * FRAME, left);
+        }
+        // repeats at 29.5, 31.5, ..., 47.5 frames
+        check("held for 29 frames", 11, total);
+        handler.release(left, 49 * FRAME + FRAME / 4);
+        check("after release", 0, advance(handler, 50 * FRAME, left));
+
+        handler.setTiming(left, DASHandler.toNanos(8), 0);
+        handler.setTiming(GameAction.MOVE_RIGHT, DASHandler.toNanos(8), 0);
+        handler.press(left, 60 * FRAME);
+        check("instant, before DAS", 1, advance(handler, 61 * FRAME, left));
+        for (int frame = 62; frame < 69; frame++) {
+            advance(handler, frame * FRAME, left);
+        }
+        check("instant, after DAS", DASHandler.INSTANT,
+                advance(handler, 69 * FRAME, left));
+        check("instant, still held", DASHandler.INSTANT,
+                advance(handler, 70 * FRAME, left));
+
+        handler.press(GameAction.MOVE_RIGHT, 70 * FRAME + FRAME / 2);
+        handler.advanceFrame(71 * FRAME);
+        check("instant, stopped by the other way", 0,
+                handler.getRepeats(left));
+
+        for (int seed = 0; seed < 20; seed++) {
+            checkShift(seed, GameAction.MOVE_LEFT);
+            checkShift(seed, GameAction.MOVE_RIGHT);
+            checkShift(seed, GameAction.SOFT_DROP);
+        }
+
+        System.out.println(failures + " failures");
+    }
+
+    /**
+     * Advances a DASHandler to the given time.
+     *
+     * @param handler the DASHandler
+     * @param now when the frame is
+     * @param action the action to count
+     * @return how many times the action happened in the frame
+     */
+    private static int advance(DASHandler handler, long now,
+            GameAction action) {
+        handler.advanceFrame(now);
+        return handler.getRepeats(action);
+    }
+
+    /**
+     * Checks that shifting the first tetromino of a game as far as it can go
+     * lands it where moving it one step at a time would.
+     *
+     * @param seed the seed of the game
+     * @param action which way to shift
+     */
+    private static void checkShift(long seed, GameAction action) {
+        TetrisEngine instant = createEngine(seed),
+                stepped = createEngine(seed);
+        int distance = instant.shift(action, Integer.MAX_VALUE), steps = 0;
+        while (stepped.shift(action, 1) == 1) {
+            steps++;
+        }
+
+        Tetromino a = instant.getCurrentTetromino(),
+                b = stepped.getCurrentTetromino();
+        check("shift " + action + " with seed " + seed, steps, distance);
+        if (a.getX() != b.getX() || a.getY() != b.getY()) {
+            System.out.println("Shift " + action + " with seed " + seed
+                    + " landed at (" + a.getX() + ", " + a.getY()
+                    + ") instead of (" + b.getX() + ", " + b.getY() + ")");
+            failures++;
+        }
+    }
+
+    /**
+     * Creates an engine with the given seed and runs it until the first
+     * tetromino comes in.
+     *
+     * @param seed the seed of the engine
+     * @return a new engine with a tetromino in play
+     */
+    private static TetrisEngine createEngine(long seed) {
+        TetrisEngine engine = new TetrisEngine(true, seed);
+        TetrisEngine.setEngineAs(engine, 0);
+        engine.setPieceSeed(seed);
+        engine.startGame();
+        while (engine.getCurrentTetromino() == null) {
+            engine.advanceFrame(action -> false);
+        }
+        return engine;
+    }
+
+    /**
+     * Prints a message if a value is not what was expected.
+     *
+     * @param name what was checked
+     * @param expected the expected value
+     * @param actual the actual value
+     */
+    private static void check(String name, int expected, int actual) {
+        if (expected != actual) {
+            System.out.println(name + ": expected " + expected + ", got "
+                    + actual);
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.leftisttachyon.tetris.tests;
+
+import com.github.leftisttachyon.comm.GameMessage;
+import com.github.leftisttachyon.tetris.EngineListener;
+import com.github.leftisttachyon.tetris.GameAction;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import java.util.Random;
+
+/**
+ * A test that plays headless games with random input and checks that two
+ * engines with the same seed, and a mirror fed the events of one of them, all
+ * end up with the same matrix. One engine is given its actions as a bitmask
+ * and the other as they are read back from a line of the protocol. Also
+ * measures how fast the engine runs.
+ *
+ * @author Jed Wang
+ */
+public class EngineDeterminismTest {
+
+    /**
+     * The main method; where to run the tests.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        final int games = 200;
+        int frames = 0, mismatches = 0;
+
+        double start = System.nanoTime();
+        for (int seed = 0; seed < games; seed++) {
+            TetrisEngine first = createEngine(seed),
+                    second = createEngine(seed);
+            TetrisEngine mirror = new TetrisEngine(false);
+            TetrisEngine.setEngineAs(mirror, 0);
+            mirror.setPieceSeed(seed);
+            first.setEngineListener(new MirrorListener(mirror));
+
+            first.startGame();
+            second.startGame();
+            mirror.startGame();
+
+            Random input = new Random(seed);
+            while (first.isInGame() && frames < 100_000_000) {
+                int actions = 0;
+                for (int i = 0; i < GameAction.COUNT; i++) {
+                    if (input.nextInt(12) == 0) {
+                        actions |= 1 << i;
+                    }
+                }
+                first.executeActions(actions);
+                second.executeActions(GameMessage.parse(
+                        GameMessage.actions(actions).toString()).getActions());
+                first.advanceFrame(action -> false);
+                second.advanceFrame(action -> false);
+                mirror.advanceFrame(null);
+                frames++;
+            }
+
+            if (!sameMatrix(first, second) || !sameMatrix(first, mirror)) {
+                System.out.println("Mismatch with seed " + seed);
+                mismatches++;
+            }
+        }
+        double total = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%d games, %d frames in %.3f ms (%.0f frames/s)%n",
+                games, frames, total, frames / total * 1000);
+        System.out.println(mismatches + " mismatches");
+    }
+
+    /**
+     * Creates an authoritative SRS engine with the given seed.
+     *
+     * @param seed the seed of the engine
+     * @return a new engine
+     */
+    private static TetrisEngine createEngine(long seed) {
+        TetrisEngine output = new TetrisEngine(true, seed);
+        TetrisEngine.setEngineAs(output, 0);
+        output.setPieceSeed(seed);
+        return output;
+    }
+
+    /**
+     * Determines whether the two engines have exactly the same matrix.
+     *
+     * @param a the first engine
+     * @param b the second engine
+     * @return whether the matrices are the same
+     */
+    private static boolean sameMatrix(TetrisEngine a, TetrisEngine b) {
+        for (int r = 0; r < TetrisEngine.MATRIX_HEIGHT; r++) {
+            for (int c = 0; c < TetrisEngine.MATRIX_WIDTH; c++) {
+                if (a.getBlock(r, c) != b.getBlock(r, c)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Feeds the events of an authoritative engine straight into a mirror, the
+     * way the server would.
+     */
+    private static class MirrorListener implements EngineListener {
+
+        /**
+         * The mirror being fed
+         */
+        private final TetrisEngine mirror;
+
+        /**
+         * Creates a new MirrorListener.
+         *
+         * @param mirror the mirror to feed
+         */
+        public MirrorListener(TetrisEngine mirror) {
+            this.mirror = mirror;
+        }
+
+        @Override
+        public void actionsExecuted(int actions) {
+            mirror.executeActions(actions);
+        }
+
+        @Override
+        public void pauseEnded() {
+            mirror.applyPauseEnded();
+        }
+
+        @Override
+        public void locked(int x, int y, int rotation) {
+            mirror.applyLock(x, y, rotation);
+        }
+
+        @Override
+        public void garbagePlaced(int[] holes, int count) {
+            for (int i = 0; i < count; i++) {
+                mirror.applyGarbage(holes[i]);
+            }
+        }
+
+        @Override
+        public void entered(boolean left, boolean right, boolean hold) {
+            mirror.applyEnter(left, right, hold);
+        }
+
+        @Override
+        public void gravityApplied(int rows) {
+            mirror.applyGravity(rows);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.leftisttachyon.tetris.tests;
+
+import com.github.leftisttachyon.comm.GameMessage;
+import com.github.leftisttachyon.comm.MessageReader;
+import com.github.leftisttachyon.tetris.GameAction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A test that sends typed messages as lines and as binary frames, mixed in one
+ * stream, and checks that every one of them reads back the same. Also compares
+ * how many bytes each takes.
+ *
+ * @author Jed Wang
+ */
+public class GameMessageTest {
+
+    /**
+     * The main method; where to run the tests.
+     *
+     * @param args the command line arguments
+     * @throws IOException if a stream fails
+     */
+    public static void main(String[] args) throws IOException {
+        GameMessage[] messages = {
+            GameMessage.actions(GameAction.MOVE_LEFT.getMask()
+                    | GameAction.SOFT_DROP.getMask()
+                    | GameAction.HARD_DROP.getMask()),
+            GameMessage.lock(-1, 38, 3),
+            GameMessage.gravity(1),
+            GameMessage.gravity(20),
+            GameMessage.garbage(new int[]{3, 9, 0, 4}, 3),
+            GameMessage.enter(true, false, true),
+            GameMessage.pauseEnded(),
+            GameMessage.text("NLMhello there"),
+            GameMessage.lock(Integer.MIN_VALUE, Integer.MAX_VALUE, 0)
+        };
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int textBytes = 0, failures = 0;
+        for (int i = 0; i < messages.length; i++) {
+            GameMessage message = messages[i];
+            textBytes += message.toString().length() + 1;
+            if (message.isBinary() && i % 2 == 0) {
+                byte[] frame = new byte[message.getEncodedLength()];
+                int end = message.encode(frame, 0);
+                if (end != frame.length
+                        || GameMessage.frameLength(frame, 0, end) != end
+                        || GameMessage.frameLength(frame, 0, end - 1) != -1) {
+                    System.out.println("Bad frame length for " + message);
+                    failures++;
+                }
+                if (!GameMessage.decode(frame, 0).toString()
+                        .equals(message.toString())) {
+                    System.out.println("Bad decode of " + message);
+                    failures++;
+                }
+                message.write(stream);
+            } else {
+                stream.write((message + "\r\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        MessageReader reader = new MessageReader(
+                new ByteArrayInputStream(stream.toByteArray()));
+        for (GameMessage expected : messages) {
+            GameMessage read = reader.read();
+            if (!read.isBinary()) {
+                read = GameMessage.parse(read.getText());
+            }
+            if (read.getType() != expected.getType()
+                    || !read.toString().equals(expected.toString())) {
+                System.out.println("Expected " + expected + " but read " + read);
+                failures++;
+            }
+        }
+        if (reader.read() != null) {
+            System.out.println("The stream did not end");
+            failures++;
+        }
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        for (GameMessage message : messages) {
+            if (message.isBinary()) {
+                message.write(binary);
+            } else {
+                binary.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        System.out.println("Failures: " + failures);
+        System.out.println("Text bytes: " + textBytes + ", binary bytes: "
+                + binary.size());
+    }
+}
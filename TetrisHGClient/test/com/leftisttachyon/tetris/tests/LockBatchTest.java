@@ -0,0 +1,112 @@
+package com.github.leftisttachyon.tetris.tests;
+
+import com.github.leftisttachyon.comm.ClientSocket;
+import com.github.leftisttachyon.comm.GameMessage;
+import com.github.leftisttachyon.comm.MessageReader;
+import com.github.leftisttachyon.tetris.GameAction;
+import com.github.leftisttachyon.tetris.TetrisMatrix;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * A test that moves a tetromino on the same frame that its lock delay runs
+ * out, batching the frame like the game does, and checks that the server
+ * gets the move before the lock, and a lock where the move put the
+ * tetromino. The server replays the moves before a lock, so a move that is
+ * dropped makes it place the tetromino somewhere else.
+ *
+ * @author Jed Wang
+ */
+public class LockBatchTest {
+
+    /**
+     * The main method; where to run the tests.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the sockets fail
+     */
+    public static void main(String[] args) throws IOException {
+        int failures = 0;
+        try (ServerSocket server = new ServerSocket(9001, 1,
+                InetAddress.getLoopbackAddress())) {
+            if (!ClientSocket.connectTo("localhost")) {
+                System.out.println("Could not connect");
+                System.out.println("1 failures");
+                return;
+            }
+            Socket accepted = server.accept();
+            accepted.setSoTimeout(5000);
+            MessageReader reader = new MessageReader(
+                    accepted.getInputStream());
+
+            TetrisMatrix matrix = new TetrisMatrix(true);
+            TetrisMatrix.setMatrixAs(matrix, 0);
+            matrix.setPieceSeed(0);
+            matrix.startGame();
+            while (matrix.getCurrentTetromino() == null) {
+                runFrame(matrix, 0);
+            }
+            runFrame(matrix, GameAction.SONIC_DROP.getMask());
+            Tetromino t = matrix.getCurrentTetromino();
+            while (matrix.getLockDelayCount() > 0) {
+                runFrame(matrix, 0);
+            }
+            int x = t.getX() - 1, y = t.getY(), rotation = t.getRotation();
+            runFrame(matrix, GameAction.MOVE_LEFT.getMask());
+
+            boolean moved = false;
+            GameMessage lock = null;
+            while (lock == null) {
+                GameMessage read = reader.read();
+                if (read == null) {
+                    break;
+                }
+                if (!read.isBinary()) {
+                    read = GameMessage.parse(read.getText());
+                }
+                if (read.getType() == GameMessage.ACTIONS
+                        && GameAction.MOVE_LEFT.isIn(read.getActions())) {
+                    moved = true;
+                } else if (read.getType() == GameMessage.LOCK) {
+                    lock = read;
+                }
+            }
+
+            if (!moved) {
+                System.out.println("The move on the frame of the lock was "
+                        + "not sent before the lock");
+                failures++;
+            }
+            if (lock == null || lock.getValue(0) != x
+                    || lock.getValue(1) != y || lock.getValue(2) != rotation) {
+                System.out.println("Expected LOCK" + x + " " + y + " "
+                        + rotation + " but got " + lock);
+                failures++;
+            }
+            accepted.close();
+        } finally {
+            if (ClientSocket.isConnected()) {
+                ClientSocket.closeCurrent();
+            }
+        }
+        System.out.println(failures + " failures");
+    }
+
+    /**
+     * Runs a frame of a matrix the way the game does: everything the frame
+     * sends is batched and flushed together.
+     *
+     * @param matrix the matrix
+     * @param actions the actions to take on the frame
+     */
+    private static void runFrame(TetrisMatrix matrix, int actions) {
+        ClientSocket connection = ClientSocket.getConnection();
+        connection.startBatch();
+        matrix.executeActions(actions);
+        matrix.advanceFrame(action -> false);
+        connection.flushBatch();
+    }
+}
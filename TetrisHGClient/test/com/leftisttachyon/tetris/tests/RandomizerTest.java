@@ -0,0 +1,167 @@
+package com.github.leftisttachyon.tetris.tests;
+
+import com.github.leftisttachyon.tetris.TetQueue;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.tetrominos.random.BagRandomizer;
+import com.github.leftisttachyon.tetris.tetrominos.random.HistoryRandomizer;
+import com.github.leftisttachyon.tetris.tetrominos.random.NESRandomizer;
+import com.github.leftisttachyon.tetris.tetrominos.random.PureRandomizer;
+import com.github.leftisttachyon.tetris.tetrominos.random.Randomizer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * A test that checks that randomizers with the same seed make the same
+ * sequence, that bags hold every tetromino the right amount of times, and
+ * that the history randomizer never starts with an S, Z or O, and that every
+ * kind of engine deals its tetrominos from the randomizer it should. Also
+ * measures how fast long sequences are made.
+ *
+ * @author Jed Wang
+ */
+public class RandomizerTest {
+
+    /**
+     * How many tetrominos to make with each randomizer
+     */
+    private static final int LENGTH = 1_400_000;
+
+    /**
+     * The main method; where to run the tests.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        for (int seed = 0; seed < 4; seed++) {
+            Randomizer[] first = createRandomizers(seed),
+                    second = createRandomizers(seed);
+            for (int i = 0; i < first.length; i++) {
+                String name = first[i].getClass().getSimpleName();
+
+                int[] ids = new int[LENGTH];
+                long start = System.nanoTime();
+                first[i].fill(ids, 0, LENGTH);
+                long time = System.nanoTime() - start;
+
+                boolean same = Arrays.equals(ids, second[i].next(LENGTH));
+                second[i].reset();
+                int[] again = second[i].next(LENGTH);
+
+                System.out.printf("%s (seed %d): %.1f ns each, same: %b, "
+                        + "counts: %s%n", name, seed, (double) time / LENGTH,
+                        same, Arrays.toString(count(ids)));
+                if (first[i] instanceof BagRandomizer) {
+                    checkBags(ids, ((BagRandomizer) first[i]).getBagSize());
+                }
+                if (first[i] instanceof HistoryRandomizer) {
+                    int firstId = createRandomizers(seed)[i].next();
+                    if (firstId == Randomizer.S || firstId == Randomizer.Z
+                            || firstId == Randomizer.O) {
+                        System.out.println("\tStarted with "
+                                + Randomizer.getType(firstId));
+                    }
+                }
+                if (again.length != LENGTH) {
+                    System.out.println("\tReset made the wrong length");
+                }
+            }
+
+            checkEngine(seed, 0, null, new BagRandomizer(new Random(seed)));
+            checkEngine(seed, 1, null,
+                    new HistoryRandomizer(new Random(seed)));
+            checkEngine(seed, 2, null, new NESRandomizer(new Random(seed)));
+            checkEngine(seed, 0, random -> new BagRandomizer(random, 2),
+                    new BagRandomizer(new Random(seed), 2));
+            checkEngine(seed, 1, PureRandomizer::new,
+                    new PureRandomizer(new Random(seed)));
+        }
+    }
+
+    /**
+     * Checks that an engine deals the same tetrominos as a randomizer with
+     * the same seed.
+     *
+     * @param seed the piece seed of the engine
+     * @param selection the kind of engine
+     * @param creator the randomizer to pick for the engine, or null for the
+     * one of its TetrominoFactory
+     * @param expected a randomizer that should make the same tetrominos
+     */
+    private static void checkEngine(long seed, int selection,
+            Function<Random, ? extends Randomizer> creator,
+            Randomizer expected) {
+        TetrisEngine engine = new TetrisEngine(true, seed);
+        TetrisEngine.setEngineAs(engine, selection);
+        engine.setPieceSeed(seed);
+        engine.setRandomizer(creator);
+        engine.startGame();
+
+        TetQueue<?> queue = engine.getQueue();
+        int[] dealt = new int[queue.size() + 1];
+        dealt[0] = Randomizer.getId(
+                engine.getCurrentTetromino().getType().charAt(0));
+        for (int i = 1; i < dealt.length; i++) {
+            dealt[i] = queue.peekId(i - 1);
+        }
+
+        if (!Arrays.equals(dealt, expected.next(dealt.length))) {
+            System.out.println("\tEngine " + selection + " (seed " + seed
+                    + ") did not deal from a "
+                    + expected.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Creates one randomizer of each kind.
+     *
+     * @param seed the seed of their Randoms
+     * @return the new randomizers
+     */
+    private static Randomizer[] createRandomizers(long seed) {
+        return new Randomizer[]{
+            new BagRandomizer(new Random(seed)),
+            new BagRandomizer(new Random(seed), 2),
+            new HistoryRandomizer(new Random(seed)),
+            new NESRandomizer(new Random(seed)),
+            new PureRandomizer(new Random(seed))
+        };
+    }
+
+    /**
+     * Counts how many times each tetromino comes up.
+     *
+     * @param ids the ids of the tetrominos
+     * @return how many times each tetromino comes up, by id
+     */
+    private static int[] count(int[] ids) {
+        int[] counts = new int[Randomizer.PIECES];
+        for (int id : ids) {
+            counts[id]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Checks that every bag holds every tetromino the same amount of times.
+     *
+     * @param ids the ids of the tetrominos
+     * @param bagSize the size of a bag
+     */
+    private static void checkBags(int[] ids, int bagSize) {
+        int[] counts = new int[Randomizer.PIECES];
+        for (int start = 0; start + bagSize <= ids.length; start += bagSize) {
+            Arrays.fill(counts, 0);
+            for (int i = start; i < start + bagSize; i++) {
+                counts[ids[i]]++;
+            }
+            for (int c : counts) {
+                if (c != bagSize / Randomizer.PIECES) {
+                    System.out.println("\tBad bag at " + start + ": "
+                            + Arrays.toString(counts));
+                    return;
+                }
+            }
+        }
+    }
+}
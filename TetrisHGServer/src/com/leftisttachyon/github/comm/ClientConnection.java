@@ -0,0 +1,35 @@
+package com.leftisttachyon.github.comm;
+
+import com.github.leftisttachyon.comm.GameMessage;
+
+/**
+ * A connection to a client that lines and binary frames of the protocol can be
+ * sent over.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public interface ClientConnection {
+
+    /**
+     * Sends a line to the client. The line should not contain a line break.
+     *
+     * @param line the line to send
+     */
+    void send(String line);
+
+    /**
+     * Sends the binary frame of a typed message to the client. Only clients
+     * that asked for binary frames can read them.
+     *
+     * @param message the typed message to send
+     * @see GameMessage#isBinary()
+     */
+    void sendBinary(GameMessage message);
+
+    /**
+     * Closes this connection. Closing a connection that is already closed has
+     * no effect.
+     */
+    void close();
+}
@@ -1,17 +1,28 @@
 package com.leftisttachyon.github.comm;
 
-import java.io.BufferedReader;
+import com.github.leftisttachyon.comm.GameMessage;
+import com.github.leftisttachyon.comm.MessageReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * A class that handles the client
+ * A class that handles the client. The protocol is driven one message at a
+ * time through {@link #handleMessage(GameMessage)}, so the same MiniServer
+ * works on a thread of its own ({@link #go()}) or on a shared selector thread.
+ * A client that sends {@link GameMessage#BINARY} is answered with
+ * {@link GameMessage#BINARY_OK} and is sent typed messages as binary frames
+ * from then on.
+ * <p>
+ * Nothing is sent while the lock of the names is held: everyone to send to
+ * is copied out first. Sending can block, and a virtual thread that blocks
+ * while holding a lock holds up everyone else waiting for it.
  *
  * @author Jed Wang
  * @since 0.9.1
@@ -29,24 +40,25 @@ public class MiniServer {
     private static final Set<MiniServer> BUSY = new HashSet<>();
 
     /**
-     * A reader coming from the user
+     * The lock that guards {@link #SERVERS} and {@link #BUSY}
      */
-    private final BufferedReader in;
+    private static final ReentrantLock NAMES_LOCK = new ReentrantLock();
 
     /**
-     * A writer going to the user
+     * A reader coming from the user; only used by {@link #go()}
      */
-    private final PrintWriter out;
+    private final MessageReader in;
 
     /**
-     * The internal socket
+     * The connection to the user
      */
-    public final Socket socket;
+    private final ClientConnection connection;
 
     /**
-     * Whether the user is currently in a game
+     * Whether the user is currently in a game. The opponent's thread can
+     * change this when it leaves the match.
      */
-    private boolean inGame;
+    private volatile boolean inGame;
 
     /**
      * The opponent, if any. If none, this is null.
@@ -54,10 +66,22 @@ public class MiniServer {
     private MiniServer opponent;
 
     /**
-     * This user's name
+     * The match this user is playing, if any. If none, this is null. The
+     * opponent's thread can set this to null when it leaves the match, so it
+     * should be read once into a local variable.
+     */
+    private volatile ServerMatch match;
+
+    /**
+     * This user's name, or null if a name has not been accepted yet
      */
     private String name;
 
+    /**
+     * Whether the user has asked for binary frames
+     */
+    private volatile boolean binary;
+
     /**
      * Creates a new MiniServer object with the given Socket
      *
@@ -65,139 +89,211 @@ public class MiniServer {
      * @throws IOException if the in and out streams cannot be created
      */
     public MiniServer(Socket s) throws IOException {
-        socket = s;
-        in = new BufferedReader(new InputStreamReader(
-                socket.getInputStream()));
-        out = new PrintWriter(socket.getOutputStream(), true);
+        this(new SocketConnection(s), new MessageReader(s.getInputStream()));
+    }
+
+    /**
+     * Creates a new MiniServer object that talks over the given connection.
+     * Messages from the user have to be passed to
+     * {@link #handleMessage(GameMessage)}.
+     *
+     * @param connection the connection to the user
+     */
+    public MiniServer(ClientConnection connection) {
+        this(connection, null);
+    }
+
+    /**
+     * Creates a new MiniServer object.
+     *
+     * @param connection the connection to the user
+     * @param in a reader coming from the user, or null
+     */
+    private MiniServer(ClientConnection connection, MessageReader in) {
+        this.connection = connection;
+        this.in = in;
         inGame = false;
         opponent = null;
+        match = null;
+        name = null;
+        binary = false;
     }
 
     /**
-     * Called to start interaction with the user
+     * Called to start interaction with the user. Blocks this thread, reading
+     * messages until the user disconnects.
      */
     public void go() {
-        try (PrintWriter out_ = out; 
-                BufferedReader in_ = in) {
+        if (in == null) {
+            throw new IllegalStateException("This MiniServer has no reader");
+        }
+
+        try (MessageReader in_ = in) {
+            connected();
+
+            GameMessage message;
+            while ((message = in_.read()) != null) {
+                handleMessage(message);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            println(e.toString());
+        } finally {
+            disconnected();
+        }
+    }
+
+    /**
+     * Called when the user connects. Requests a name from the user.
+     */
+    public void connected() {
+        send("SUBMITNAME");
+    }
+
+    /**
+     * Handles one message from the user, whether it came as a line or as a
+     * binary frame.
+     *
+     * @param message the message that the user sent
+     */
+    public void handleMessage(GameMessage message) {
+        if (!message.isBinary()) {
+            handleLine(message.getText());
+            return;
+        }
+
+        ServerMatch current = match;
+        if (inGame && current != null) {
+            current.handle(this, message);
+        } else {
+            println("sent a game message outside of a game");
+        }
+    }
+
+    /**
+     * Handles one line from the user.
+     *
+     * @param line the line that the user sent
+     */
+    public void handleLine(String line) {
+        if (name == null) {
             // Request a name from this client.  Keep requesting until
             // a name is submitted that is not already used.  Note that
             // checking for the existence of a name and adding the name
             // must be done while locking the set of names.
-            while (true) {
-                out_.println("SUBMITNAME");
-                // notify("SUBMITNAME", false);
-                // notify(name, true);
-                if ((name = in_.readLine()) == null) {
-                    return;
-                }
-                if ("".equals(name) || "null".equals(name)) {
-                    continue;
-                }
-                synchronized (SERVERS) {
-                    if (!SERVERS.containsKey(name)) {
-                        for (Map.Entry<String, MiniServer> entry : SERVERS.entrySet()) {
-                            entry.getValue().out.println("NEWCLIENTtrue " + name);
-                            out_.println("NEWCLIENTfalse " + entry.getKey());
-                        }
-                        SERVERS.put(name, this);
-                        break;
-                    }
+            if ("".equals(line) || "null".equals(line)) {
+                send("SUBMITNAME");
+                return;
+            }
+            List<MiniServer> others;
+            NAMES_LOCK.lock();
+            try {
+                others = SERVERS.containsKey(line) ? null
+                        : new ArrayList<>(SERVERS.values());
+                if (others != null) {
+                    name = line;
+                    SERVERS.put(name, this);
                 }
+            } finally {
+                NAMES_LOCK.unlock();
+            }
+            if (others == null) {
+                send("SUBMITNAME");
+                return;
             }
 
-            // Now that a successful name has been chosen, add the
-            // socket's print writer to the set of all writers so
-            // this client can receive broadcast messages.
-            out_.println("NAMEACCEPTED");
-            // notify("NAMEACCEPTED", false);
-
-            // Accept messages from this client and broadcast them.
-            // Ignore other clients that cannot be broadcasted to.
-            while (true) {
-                String line = in_.readLine();
-                // notify(line, true);
-                if (line == null) {
+            for (MiniServer other : others) {
+                other.send("NEWCLIENTtrue " + line);
+                send("NEWCLIENTfalse " + other.name);
+            }
+
+            // Now that a successful name has been chosen, this client
+            // can receive broadcast messages.
+            send("NAMEACCEPTED");
+            return;
+        }
+
+        // println("\"" + line + "\"");
+        // handle input
+        if (line.equals("PING")) {
+            send("PONG");
+        } else if (line.equals(GameMessage.BINARY)) {
+            send(GameMessage.BINARY_OK);
+            binary = true;
+        } else if (line.startsWith("NLM")) {
+            broadcast("NLM" + name + ": " + line.substring(3));
+        } else if (inGame) {
+            ServerMatch current = match;
+            if (line.startsWith("EXIT")) {
+                // exit the match
+                exit();
+            } else if (current != null) {
+                current.handle(this, line);
+            }
+        } else {
+            if (line.startsWith("CHALLENGE_C")) {
+                // Challenging for a match
+                String toChallenge = line.substring(11);
+                if (toChallenge.equals(name)) {
                     return;
                 }
 
-                // println("\"" + line + "\"");
-                // handle input
-                if (line.equals("PING")) {
-                    out_.println("PONG");
-                } else if (line.startsWith("NLM")) {
-                    String message = "NLM" + name + ": " + line.substring(3);
-                    for (MiniServer h : SERVERS.values()) {
-                        h.out.println(message);
-                    }
-                } else if (inGame) {
-                    if (line.startsWith("EXIT")) {
-                        // exit the match
-                        exit();
+                MiniServer challenged = find(toChallenge);
+                if (challenged != null) {
+                    challenged.send("CHALLENGE_C" + name);
+                } else {
+                    System.err.println("Opponent " + toChallenge
+                            + " not found (149)");
+                }
+            } else if (line.startsWith("CHALLENGE_R")) {
+                // Challenge response: accept or reject
+                // Scanner temp = new Scanner(line.substring(11));
+                String[] data = line.substring(11).split(" ");
+
+                // Accepted!
+                String other = data[0];
+                MiniServer otherH = find(other);
+                if (otherH != null) {
+                    if (Boolean.parseBoolean(data[1]) && !isBusy(otherH)) {
+                        startMatch(otherH);
                     } else {
-                        opponent.out.println(line);
+                        otherH.send("CHALLENGE_Rfalse");
                     }
                 } else {
-                    if (line.startsWith("CHALLENGE_C")) {
-                        // Challenging for a match
-                        String toChallenge = line.substring(11);
-                        if (toChallenge.equals(name)) {
-                            continue;
-                        }
-
-                        if (SERVERS.containsKey(toChallenge)) {
-                            SERVERS.get(toChallenge).out.println("CHALLENGE_C" + name);
-                        } else {
-                            System.err.println("Opponent " + toChallenge
-                                    + " not found (149)");
-                        }
-                    } else if (line.startsWith("CHALLENGE_R")) {
-                        // Challenge response: accept or reject
-                        // Scanner temp = new Scanner(line.substring(11));
-                        String[] data = line.substring(11).split(" ");
-
-                        // Accepted!
-                        String other = data[0];
-                        if (SERVERS.containsKey(other)) {
-                            MiniServer otherH = SERVERS.get(other);
-                            if (Boolean.parseBoolean(data[1])
-                                    && !BUSY.contains(otherH)) {
-                                startMatch(otherH);
-                            } else {
-                                otherH.out.println("CHALLENGE_Rfalse");
-                            }
-                        } else {
-                            System.err.println("Opponent " + other
-                                    + " not found (196)");
-                        }
-                    }
+                    System.err.println("Opponent " + other
+                            + " not found (196)");
                 }
             }
-        } catch (IOException e) {
-            println(e.toString());
-        } finally {
-            // This client is going down!  Remove its name and its print
-            // writer from the sets, and close its socket.
-            for (MiniServer h : SERVERS.values()) {
-                h.out.println("REMOVECLIENT" + name);
-            }
-            if (opponent != null) {
-                opponent.out.println("EXIT");
-                opponent.inGame = false;
-                for (MiniServer h : SERVERS.values()) {
-                    h.out.println("FREE" + opponent.name);
-                }
-                opponent = null;
-            }
-            if (SERVERS != null) {
+        }
+    }
+
+    /**
+     * Called when the user disconnects. Removes the user's name from the
+     * sets, notifies everyone else and closes the connection.
+     */
+    public void disconnected() {
+        if (name != null) {
+            broadcast("REMOVECLIENT" + name);
+        }
+        if (opponent != null) {
+            opponent.send("EXIT");
+            opponent.inGame = false;
+            opponent.match = null;
+            setBusy(opponent, false);
+            broadcast("FREE" + opponent.name);
+            opponent.opponent = null;
+            opponent = null;
+        }
+        NAMES_LOCK.lock();
+        try {
+            BUSY.remove(this);
+            if (name != null) {
                 SERVERS.remove(name);
             }
-            
-            try {
-                socket.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
+        } finally {
+            NAMES_LOCK.unlock();
         }
+
+        connection.close();
     }
 
     /**
@@ -205,17 +301,15 @@ public class MiniServer {
      */
     private void exit() {
         inGame = false;
-        BUSY.remove(this);
-        for (MiniServer h : SERVERS.values()) {
-            h.out.println("FREE" + name);
-        }
+        match = null;
+        setBusy(this, false);
+        broadcast("FREE" + name);
         if (opponent != null) {
-            opponent.out.println("EXIT");
+            opponent.send("EXIT");
             opponent.inGame = false;
-            BUSY.remove(opponent);
-            for (MiniServer h : SERVERS.values()) {
-                h.out.println("FREE" + opponent.name);
-            }
+            opponent.match = null;
+            setBusy(opponent, false);
+            broadcast("FREE" + opponent.name);
 
             opponent = null;
         }
@@ -224,24 +318,126 @@ public class MiniServer {
     /**
      * Starts a match between this client and the given one. Also takes care of
      * formalities like notifying other players that this server and the other
-     * one are now busy.
+     * one are now busy. Both players are sent the seed of their tetrominos.
      */
     private void startMatch(MiniServer other) {
         opponent = other;
         inGame = true;
-        opponent.out.println("CHALLENGE_Rtrue");
+        opponent.send("CHALLENGE_Rtrue");
         opponent.opponent = this;
         opponent.inGame = true;
-        for (MiniServer h : SERVERS.values()) {
-            h.out.println("BUSY" + name);
-            h.out.println("BUSY" + opponent.name);
+        for (MiniServer h : everyone()) {
+            h.send("BUSY" + name);
+            h.send("BUSY" + opponent.name);
+        }
+
+        setBusy(opponent, true);
+        setBusy(this, true);
+
+        long seed = ThreadLocalRandom.current().nextLong();
+        match = new ServerMatch(this, opponent, seed);
+        opponent.match = match;
+
+        send("ST" + seed);
+        opponent.send("ST" + seed);
+    }
+
+    /**
+     * Returns everyone who has a name, copied so that they can be sent to
+     * without holding the lock of the names.
+     *
+     * @return everyone who has a name
+     */
+    private static List<MiniServer> everyone() {
+        NAMES_LOCK.lock();
+        try {
+            return new ArrayList<>(SERVERS.values());
+        } finally {
+            NAMES_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Sends a line to everyone who has a name.
+     *
+     * @param line the line to send
+     */
+    private static void broadcast(String line) {
+        for (MiniServer h : everyone()) {
+            h.send(line);
         }
+    }
+
+    /**
+     * Finds the user with the given name.
+     *
+     * @param name the name
+     * @return the user, or null if nobody has that name
+     */
+    private static MiniServer find(String name) {
+        NAMES_LOCK.lock();
+        try {
+            return SERVERS.get(name);
+        } finally {
+            NAMES_LOCK.unlock();
+        }
+    }
 
-        BUSY.add(opponent);
-        BUSY.add(this);
+    /**
+     * Determines whether a user is in a match
+     *
+     * @param server the user
+     * @return whether the user is busy
+     */
+    private static boolean isBusy(MiniServer server) {
+        NAMES_LOCK.lock();
+        try {
+            return BUSY.contains(server);
+        } finally {
+            NAMES_LOCK.unlock();
+        }
+    }
 
-        out.println("ST");
-        opponent.out.println("ST");
+    /**
+     * Marks a user as in a match or not.
+     *
+     * @param server the user
+     * @param busy whether the user is in a match
+     */
+    private static void setBusy(MiniServer server, boolean busy) {
+        NAMES_LOCK.lock();
+        try {
+            if (busy) {
+                BUSY.add(server);
+            } else {
+                BUSY.remove(server);
+            }
+        } finally {
+            NAMES_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Sends a line to the user
+     *
+     * @param line the line to send
+     */
+    void send(String line) {
+        connection.send(line);
+    }
+
+    /**
+     * Sends a message to the user: as a binary frame if it is typed and the
+     * user asked for binary frames, and as a line otherwise
+     *
+     * @param message the message to send
+     */
+    void send(GameMessage message) {
+        if (binary && message.isBinary()) {
+            connection.sendBinary(message);
+        } else {
+            connection.send(message.toString());
+        }
     }
 
     /**
@@ -0,0 +1,471 @@
+package com.leftisttachyon.github.comm;
+
+import com.github.leftisttachyon.comm.GameMessage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A non-blocking server that runs every client on a single thread with a
+ * Selector. The protocol is framed by hand: bytes are read into one direct
+ * buffer shared by every connection and split on line breaks, or on the ends
+ * of binary frames for a message that starts with an opcode, and the
+ * lines sent to a connection are gathered and written through one shared
+ * direct buffer once every ready key has been handled. A connection only
+ * holds buffers of its own while it has a partial line or unsent output; both
+ * are let go as soon as they are empty, so an idle connection holds none.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class NioServer {
+
+    /**
+     * The size of the shared read and write buffers
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The longest line or binary frame a client may send; longer ones drop the
+     * client
+     */
+    private static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    /**
+     * The most unsent output a connection may have before it is dropped as a
+     * client that is not reading
+     */
+    private static final int MAX_PENDING = 1024 * 1024;
+
+    /**
+     * An empty array of bytes, shared by every connection without a buffer
+     */
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * The port to listen on
+     */
+    private final int port;
+
+    /**
+     * The buffer every connection reads into
+     */
+    private final ByteBuffer readBuffer;
+
+    /**
+     * The buffer every connection writes from
+     */
+    private final ByteBuffer writeBuffer;
+
+    /**
+     * The connections that have output waiting to be written
+     */
+    private final List<NioConnection> dirty;
+
+    /**
+     * The connections to drop once every ready key or every dirty connection
+     * has been handled
+     */
+    private final List<NioConnection> doomed;
+
+    /**
+     * Creates a new NioServer.
+     *
+     * @param port the port to listen on
+     */
+    public NioServer(int port) {
+        this.port = port;
+        readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        dirty = new ArrayList<>();
+        doomed = new ArrayList<>();
+    }
+
+    /**
+     * Runs the server. This method only returns if something goes wrong.
+     *
+     * @throws IOException if the server cannot be started or the selector
+     * fails
+     */
+    public void run() throws IOException {
+        try (Selector selector = Selector.open();
+                ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+
+            while (true) {
+                selector.select();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept(server, selector);
+                    } else {
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (connection.closing) {
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+                }
+
+                // both lists can grow while they are gone through: dropping
+                // a client notifies everyone else
+                while (!dirty.isEmpty() || !doomed.isEmpty()) {
+                    for (int i = 0; i < dirty.size(); i++) {
+                        dirty.get(i).flush();
+                    }
+                    dirty.clear();
+
+                    for (int i = 0; i < doomed.size(); i++) {
+                        doomed.get(i).drop();
+                    }
+                    doomed.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts every pending connection.
+     *
+     * @param server the channel to accept from
+     * @param selector the selector to register new connections with
+     * @throws IOException if a connection cannot be accepted
+     */
+    private void accept(ServerSocketChannel server, Selector selector)
+            throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+
+            NioConnection connection = new NioConnection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ,
+                    connection);
+            connection.server = new MiniServer(connection);
+            connection.server.connected();
+        }
+    }
+
+    /**
+     * A connection to one client of the NioServer.
+     */
+    private final class NioConnection implements ClientConnection {
+
+        /**
+         * The channel to the client
+         */
+        private final SocketChannel channel;
+
+        /**
+         * The key of the channel in the selector
+         */
+        private SelectionKey key;
+
+        /**
+         * The MiniServer that handles the lines of the client
+         */
+        private MiniServer server;
+
+        /**
+         * The bytes of the line or binary frame currently being read
+         */
+        private byte[] line;
+
+        /**
+         * The amount of bytes of the line currently being read
+         */
+        private int lineLength;
+
+        /**
+         * Whether a binary frame is being read instead of a line
+         */
+        private boolean frame;
+
+        /**
+         * The bytes waiting to be written
+         */
+        private byte[] pending;
+
+        /**
+         * The amount of bytes waiting to be written
+         */
+        private int pendingLength;
+
+        /**
+         * Whether this connection is in the list of dirty connections
+         */
+        private boolean queued;
+
+        /**
+         * Whether this connection is waiting to be dropped. A connection is
+         * never dropped while it is being sent to, since the MiniServers may
+         * be going through the other users.
+         */
+        private boolean closing;
+
+        /**
+         * Whether this connection has been closed
+         */
+        private boolean closed;
+
+        /**
+         * Creates a new NioConnection.
+         *
+         * @param channel the channel to the client
+         */
+        public NioConnection(SocketChannel channel) {
+            this.channel = channel;
+            line = EMPTY;
+            lineLength = 0;
+            frame = false;
+            pending = EMPTY;
+            pendingLength = 0;
+            queued = false;
+            closing = false;
+            closed = false;
+        }
+
+        /**
+         * Reads everything the client has sent and handles every complete
+         * line and binary frame.
+         */
+        public void read() {
+            try {
+                int read;
+                while ((read = channel.read(readBuffer)) > 0) {
+                    readBuffer.flip();
+                    while (readBuffer.hasRemaining()) {
+                        byte b = readBuffer.get();
+                        if (lineLength == 0) {
+                            frame = GameMessage.isOpcode(b);
+                        }
+
+                        if (!frame && b == '\n') {
+                            handleLine();
+                        } else if (lineLength == MAX_LINE_LENGTH) {
+                            server.println("sent a line that is too long");
+                            drop();
+                        } else {
+                            if (lineLength == line.length) {
+                                line = Arrays.copyOf(line,
+                                        Math.max(64, line.length * 2));
+                            }
+                            line[lineLength++] = b;
+                            if (frame) {
+                                handleFrame();
+                            }
+                        }
+
+                        if (closed || closing) {
+                            readBuffer.clear();
+                            return;
+                        }
+                    }
+                    readBuffer.clear();
+                }
+
+                if (read == -1) {
+                    drop();
+                } else if (lineLength == 0) {
+                    line = EMPTY;
+                }
+            } catch (IOException e) {
+                server.println(e.toString());
+                readBuffer.clear();
+                drop();
+            }
+        }
+
+        /**
+         * Hands the line that was just read to the MiniServer.
+         */
+        private void handleLine() {
+            int length = lineLength;
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            lineLength = 0;
+
+            try {
+                server.handleLine(new String(line, 0, length,
+                        StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                drop();
+            }
+        }
+
+        /**
+         * Hands the binary frame being read to the MiniServer, if all of it
+         * has been read.
+         */
+        private void handleFrame() {
+            try {
+                int length = GameMessage.frameLength(line, 0, lineLength);
+                if (length == -1) {
+                    return;
+                }
+                lineLength = 0;
+                frame = false;
+
+                server.handleMessage(GameMessage.decode(line, 0));
+            } catch (IllegalArgumentException e) {
+                server.println("sent an invalid frame: " + e.getMessage());
+                drop();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                drop();
+            }
+        }
+
+        @Override
+        public void send(String message) {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            if (reserve(bytes.length + 1)) {
+                System.arraycopy(bytes, 0, pending, pendingLength, bytes.length);
+                pendingLength += bytes.length;
+                pending[pendingLength++] = '\n';
+            }
+        }
+
+        @Override
+        public void sendBinary(GameMessage message) {
+            if (reserve(message.getEncodedLength())) {
+                pendingLength = message.encode(pending, pendingLength);
+            }
+        }
+
+        /**
+         * Makes room for output and marks this connection as dirty. A client
+         * with too much unsent output is marked to be dropped once the
+         * current pass is done.
+         *
+         * @param length the amount of bytes to make room for
+         * @return whether the output should be written into the pending bytes
+         */
+        private boolean reserve(int length) {
+            if (closed || closing) {
+                return false;
+            }
+
+            int needed = pendingLength + length;
+            if (needed > MAX_PENDING) {
+                server.println("is not reading its output");
+                closing = true;
+                pending = EMPTY;
+                pendingLength = 0;
+                doomed.add(this);
+                return false;
+            }
+            if (needed > pending.length) {
+                pending = Arrays.copyOf(pending,
+                        Math.max(needed, pending.length * 2));
+            }
+
+            if (!queued) {
+                queued = true;
+                dirty.add(this);
+            }
+            return true;
+        }
+
+        /**
+         * Writes as much of the waiting output as the client will take. If
+         * some of it is left, the selector is asked to say when the client can
+         * take more.
+         */
+        public void flush() {
+            queued = false;
+            if (closed || closing || pendingLength == 0) {
+                return;
+            }
+
+            try {
+                int offset = 0;
+                while (offset < pendingLength) {
+                    int chunk = Math.min(writeBuffer.capacity(),
+                            pendingLength - offset);
+                    writeBuffer.clear();
+                    writeBuffer.put(pending, offset, chunk);
+                    writeBuffer.flip();
+
+                    int written = channel.write(writeBuffer);
+                    offset += written;
+                    if (written < chunk) {
+                        break;
+                    }
+                }
+                writeBuffer.clear();
+
+                pendingLength -= offset;
+                System.arraycopy(pending, offset, pending, 0, pendingLength);
+                if (pendingLength == 0) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    pending = EMPTY;
+                } else {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                server.println(e.toString());
+                writeBuffer.clear();
+                drop();
+            }
+        }
+
+        /**
+         * Drops the client: lets the MiniServer clean up, which closes this
+         * connection.
+         */
+        private void drop() {
+            if (!closed) {
+                try {
+                    server.disconnected();
+                } finally {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            line = EMPTY;
+            pending = EMPTY;
+            pendingLength = 0;
+
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.leftisttachyon.github.comm;
 
+import com.github.leftisttachyon.comm.TaskExecutors;
 import javax.swing.*;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The main class; entry point of the application
@@ -15,7 +19,21 @@ import java.net.Socket;
 public class ServerMain {
 
     /**
-     * The main method; the entry point
+     * The port the server listens on
+     */
+    public static final int PORT = 9001;
+
+    /**
+     * How long running clients are given to finish when the server shuts
+     * down, in milliseconds
+     */
+    private static final long SHUTDOWN_TIMEOUT = 2000;
+
+    /**
+     * The main method; the entry point. Pass {@code --nio} to run every client
+     * on a single selector thread instead of a thread per client. Otherwise,
+     * every client runs on a virtual thread if the runtime has them; pass
+     * {@code --platform-threads} to use a platform thread per client anyway.
      *
      * @param args the command line arguments
      * @throws java.io.IOException if something goes wrong
@@ -26,23 +44,71 @@ public class ServerMain {
         /*MainWindow mw = new MainWindow();
         Handler.setMainWindow(mw);*/
 
-        try (ServerSocket listener = new ServerSocket(9001)) {
+        List<String> options = Arrays.asList(args);
+        try {
+            if (options.contains("--nio")) {
+                System.out.println("Using a non-blocking selector.");
+                new NioServer(PORT).run();
+            } else {
+                runThreadPerClient(createExecutor(
+                        options.contains("--platform-threads")));
+            }
+        } catch (BindException be) {
+            System.err.println("Cannot start server: " + be.getMessage());
+            JOptionPane.showMessageDialog(null, "Cannot start server",
+                    be.getMessage(), JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates the executor that runs the clients.
+     *
+     * @param platform whether to use platform threads even if virtual threads
+     * are available
+     * @return an executor that runs every task on a thread of its own
+     */
+    private static ExecutorService createExecutor(boolean platform) {
+        ExecutorService executor = platform ? null
+                : TaskExecutors.newVirtualExecutor();
+        if (executor == null) {
+            System.out.println("Using a platform thread per client.");
+            return TaskExecutors.newPlatformExecutor("MiniServer");
+        } else {
+            System.out.println("Using a virtual thread per client.");
+            return executor;
+        }
+    }
+
+    /**
+     * Runs the server with a blocking thread for every client. The executor
+     * is shut down when the server stops, including when the program is
+     * interrupted.
+     *
+     * @param executor the executor to run the clients on
+     * @throws IOException if something goes wrong
+     */
+    private static void runThreadPerClient(ExecutorService executor)
+            throws IOException {
+        Thread hook = new Thread(
+                () -> TaskExecutors.shutdown(executor, SHUTDOWN_TIMEOUT));
+        Runtime.getRuntime().addShutdownHook(hook);
+
+        try (ServerSocket listener = new ServerSocket(PORT)) {
             while (true) {
                 Socket socket = listener.accept();
 
                 MiniServer h = new MiniServer(socket);
 
-                new Thread(h::go).start();
+                executor.execute(h::go);
 
 //                PrintWriter out = new PrintWriter(socket.getOutputStream());
 //                out.println("egg");
                 // mw.addHandler(h);
             }
-        } catch (BindException be) {
-            System.err.println("Cannot start server: " + be.getMessage());
-            JOptionPane.showMessageDialog(null, "Cannot start server",
-                    be.getMessage(), JOptionPane.ERROR_MESSAGE);
-            System.exit(1);
+        } finally {
+            Runtime.getRuntime().removeShutdownHook(hook);
+            TaskExecutors.shutdown(executor, SHUTDOWN_TIMEOUT);
         }
     }
 }
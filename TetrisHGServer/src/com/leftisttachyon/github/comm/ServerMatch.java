@@ -0,0 +1,305 @@
+package com.leftisttachyon.github.comm;
+
+import com.github.leftisttachyon.comm.GameMessage;
+import com.github.leftisttachyon.tetris.TetrisEngine;
+import com.github.leftisttachyon.tetris.tetrominos.Tetromino;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A match between two players that the server plays out itself. Each player's
+ * matrix is mirrored by a headless TetrisEngine on the server; every in-game
+ * message is checked against that engine before it is applied and passed on
+ * to the opponent. A lock or garbage that does not fit the server's copy of
+ * the matrix is corrected: the opponent is sent what the server did instead,
+ * and the player is sent the server's matrix. Typed messages are handled as
+ * ints no matter whether they came as lines or as binary frames. Both players
+ * and the server's copies make their tetrominos from the seed of the match,
+ * so tetrominos are never sent.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class ServerMatch {
+
+    /**
+     * The two players of this match
+     */
+    private final MiniServer[] players;
+
+    /**
+     * The server's copy of each player's matrix
+     */
+    private final TetrisEngine[] engines;
+
+    /**
+     * The type of matrix each player chose
+     */
+    private final int[] selections;
+
+    /**
+     * Whether each player has finished counting down
+     */
+    private final boolean[] counted;
+
+    /**
+     * Whether the game has started
+     */
+    private boolean started;
+
+    /**
+     * The lock that keeps the messages of both players from being handled at
+     * once. Handling a message can block on sending it to the opponent, and
+     * a virtual thread that blocks while holding a monitor pins its carrier
+     * thread, so this is not a monitor.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Creates a new ServerMatch between the two given players.
+     *
+     * @param first the first player
+     * @param second the second player
+     * @param seed the seed of the tetrominos of both players
+     */
+    public ServerMatch(MiniServer first, MiniServer second, long seed) {
+        players = new MiniServer[]{first, second};
+        engines = new TetrisEngine[]{new TetrisEngine(false),
+            new TetrisEngine(false)};
+        engines[0].setPieceSeed(seed);
+        engines[1].setPieceSeed(seed);
+        selections = new int[2];
+        counted = new boolean[2];
+        started = false;
+        lock = new ReentrantLock();
+
+        for (int i = 0; i < 2; i++) {
+            final int player = i, opponent = 1 - i;
+            engines[i].setGarbageConsumer((lines) -> {
+                if (lines == -1) {
+                    players[player].println("topped out");
+                } else {
+                    engines[opponent].queueGarbage((int) (lines
+                            * TetrisEngine.getGarbageMultiplier(selections[player])));
+                }
+            });
+        }
+    }
+
+    /**
+     * Handles an in-game line from one of the players.
+     *
+     * @param from the player that sent the line
+     * @param line the line
+     */
+    public void handle(MiniServer from, String line) {
+        GameMessage message;
+        try {
+            message = GameMessage.parse(line);
+        } catch (IllegalArgumentException e) {
+            from.println("sent an invalid message \"" + line + "\": " + e);
+            return;
+        }
+        handle(from, message);
+    }
+
+    /**
+     * Handles an in-game message from one of the players.
+     *
+     * @param from the player that sent the message
+     * @param message the message
+     */
+    public void handle(MiniServer from, GameMessage message) {
+        int player = from == players[0] ? 0 : 1;
+        MiniServer opponent = players[1 - player];
+        TetrisEngine engine = engines[player];
+
+        lock.lock();
+        try {
+            switch (message.getType()) {
+                case GameMessage.TEXT:
+                    handleText(player, message.getText());
+                    break;
+                case GameMessage.ACTIONS:
+                    engine.executeActions(message.getActions());
+                    opponent.send(message);
+                    break;
+                case GameMessage.PAUSE_ENDED:
+                    engine.applyPauseEnded();
+                    opponent.send(message);
+                    break;
+                case GameMessage.LOCK:
+                    handleLock(player, message.getValue(0),
+                            message.getValue(1), message.getValue(2));
+                    break;
+                case GameMessage.ENTER:
+                    if (engine.isInGame() && engine.getCurrentTetromino() == null) {
+                        engine.applyEnter(message.getValue(0) == 1,
+                                message.getValue(1) == 1, message.getValue(2) == 1);
+                        opponent.send(message);
+                    } else {
+                        from.println("entered a tetromino while one was falling");
+                    }
+                    break;
+                case GameMessage.GARBAGE:
+                    handleGarbage(player, message);
+                    break;
+                case GameMessage.GRAVITY:
+                    handleGravity(player, message.getValue(0));
+                    break;
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException
+                | NoSuchElementException e) {
+            from.println("sent an invalid message \"" + message + "\": " + e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Handles an in-game line that is not a typed message.
+     *
+     * @param player the player that sent the line
+     * @param line the line
+     */
+    private void handleText(int player, String line) {
+        MiniServer opponent = players[1 - player];
+        TetrisEngine engine = engines[player];
+
+        if (line.startsWith("CHOOSE")) {
+            int selection = Integer.parseInt(line.substring(6));
+            TetrisEngine.setEngineAs(engine, selection);
+            selections[player] = selection;
+            opponent.send(line);
+        } else if (line.equals("COUNT0")) {
+            counted[player] = true;
+            opponent.send(line);
+
+            if (counted[0] && counted[1] && !started) {
+                started = true;
+                engines[0].startGame();
+                engines[1].startGame();
+            }
+        } else {
+            opponent.send(line);
+        }
+    }
+
+    /**
+     * Handles a tetromino locking by itself. The lock is accepted if the
+     * tetromino has the column and rotation of the server's copy of it, and
+     * is at the row the server's copy lands on when dropped straight down;
+     * otherwise the server locks it where its own copy of the tetromino would
+     * have landed.
+     *
+     * @param player the player that locked the tetromino
+     * @param x the claimed x coordinate of the tetromino
+     * @param y the claimed y coordinate of the tetromino
+     * @param rotation the claimed rotation state of the tetromino
+     */
+    private void handleLock(int player, int x, int y, int rotation) {
+        TetrisEngine engine = engines[player];
+        Tetromino current = engine.getCurrentTetromino();
+        if (current == null) {
+            players[player].println("locked without a tetromino");
+            return;
+        }
+
+        int landing = current.getY() + dropDistance(engine, current,
+                TetrisEngine.MATRIX_HEIGHT);
+        if (x == current.getX() && rotation == current.getRotation()
+                && y == landing) {
+            engine.applyLock(x, y, rotation);
+            players[1 - player].send(GameMessage.lock(x, y, rotation));
+        } else {
+            x = current.getX();
+            y = landing;
+            rotation = current.getRotation();
+            players[player].println("corrected a lock to " + x + " " + y
+                    + " " + rotation);
+
+            engine.applyLock(x, y, rotation);
+            engine.settleLock();
+            players[1 - player].send(GameMessage.lock(x, y, rotation));
+            sync(player);
+        }
+    }
+
+    /**
+     * Handles garbage being placed on a player's matrix. Only as many rows as
+     * the server thinks are waiting are accepted.
+     *
+     * @param player the player that took the garbage
+     * @param holes the empty column of each row of garbage
+     */
+    private void handleGarbage(int player, GameMessage holes) {
+        TetrisEngine engine = engines[player];
+        engine.settleLock();
+        int allowed = engine.getGarbageManager().getTotal();
+        boolean corrected = false;
+
+        int[] accepted = new int[holes.getValueCount()];
+        int count = 0;
+        for (int i = 0; i < holes.getValueCount(); i++) {
+            int hole = holes.getValue(i);
+            if (allowed > 0 && hole >= 0 && hole < TetrisEngine.MATRIX_WIDTH) {
+                engine.applyGarbage(hole);
+                accepted[count++] = hole;
+                allowed--;
+            } else {
+                corrected = true;
+            }
+        }
+
+        players[1 - player].send(corrected
+                ? GameMessage.garbage(accepted, count) : holes);
+        if (corrected) {
+            players[player].println("placed garbage that was not sent");
+            sync(player);
+        }
+    }
+
+    /**
+     * Handles gravity moving a player's tetromino down. The tetromino is never
+     * moved into anything.
+     *
+     * @param player the player whose tetromino moved
+     * @param rows the claimed amount of rows the tetromino moved
+     */
+    private void handleGravity(int player, int rows) {
+        TetrisEngine engine = engines[player];
+        Tetromino current = engine.getCurrentTetromino();
+        if (current != null) {
+            int allowed = dropDistance(engine, current, rows);
+            engine.applyGravity(allowed);
+            players[1 - player].send(GameMessage.gravity(allowed));
+        }
+    }
+
+    /**
+     * Sends a player the server's copy of their matrix.
+     *
+     * @param player the player to correct
+     */
+    private void sync(int player) {
+        TetrisEngine engine = engines[player];
+        players[player].send("SYNC" + engine.getLinesToClear() + " "
+                + engine.getMatrixString());
+    }
+
+    /**
+     * Finds how far the given tetromino can move down, up to the given limit.
+     *
+     * @param engine the engine the tetromino is in
+     * @param t the tetromino to move
+     * @param limit the most rows to move
+     * @return how many rows the tetromino can move down
+     */
+    private static int dropDistance(TetrisEngine engine, Tetromino t, int limit) {
+        int distance = 0;
+        while (distance < limit && !t.intersects(engine, 0, distance + 1)) {
+            distance++;
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,108 @@
+package com.leftisttachyon.github.comm;
+
+import com.github.leftisttachyon.comm.GameMessage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A ClientConnection over a blocking Socket, for the thread-per-client server.
+ * Writes are guarded by a ReentrantLock rather than a monitor, since a
+ * virtual thread that blocks on a write while holding a monitor pins the
+ * carrier thread it runs on.
+ *
+ * @author Jed Wang
+ * @since 1.0.0
+ */
+public class SocketConnection implements ClientConnection {
+
+    /**
+     * The internal socket
+     */
+    private final Socket socket;
+
+    /**
+     * A stream going to the client
+     */
+    private final OutputStream out;
+
+    /**
+     * Whether writing to the client has failed
+     */
+    private boolean failed;
+
+    /**
+     * The lock that keeps two threads from writing at once
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Creates a new SocketConnection over the given Socket.
+     *
+     * @param socket the Socket to use
+     * @throws IOException if the out stream cannot be created
+     */
+    public SocketConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        out = new BufferedOutputStream(socket.getOutputStream());
+        failed = false;
+        lock = new ReentrantLock();
+    }
+
+    @Override
+    public void send(String line) {
+        lock.lock();
+        try {
+            if (failed) {
+                return;
+            }
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+            out.flush();
+        } catch (IOException ex) {
+            // the reading thread notices the broken connection
+            failed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sendBinary(GameMessage message) {
+        lock.lock();
+        try {
+            if (failed) {
+                return;
+            }
+            message.write(out);
+            out.flush();
+        } catch (IOException ex) {
+            failed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            failed = true;
+            try {
+                out.close();
+            } catch (IOException ex) {
+                // closing the socket is what matters
+            }
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}